@@ -0,0 +1,62 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Looks up one attribute on many elements of the same kind. The name is
+ * interned once, parsers intern attribute names as well, so names mostly
+ * compare by identity. The position of the attribute found last is tried
+ * first on the next element.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ */
+class AttributeLookup {
+
+    private final String name;
+
+    private int hint;
+
+    AttributeLookup(String name) {
+        this.name = name.intern();
+    }
+
+    /**
+     * Returns the value of the attribute of the given node or
+     * <code>null</code> if the node is no element or has no such attribute.
+     */
+    String getValue(Node node) {
+        NamedNodeMap attributes = node.getAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        int length = attributes.getLength();
+        if (hint < length) {
+            Node attribute = attributes.item(hint);
+            if (matches(attribute.getNodeName())) {
+                return attribute.getNodeValue();
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            Node attribute = attributes.item(i);
+            if (matches(attribute.getNodeName())) {
+                hint = i;
+                return attribute.getNodeValue();
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(String attributeName) {
+        return attributeName == name || name.equals(attributeName);
+    }
+}
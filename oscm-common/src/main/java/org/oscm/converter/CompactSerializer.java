@@ -0,0 +1,462 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary encoding of the object graphs stored with
+ * {@link XMLSerializer}: <code>null</code>, strings, boxed primitives,
+ * {@link BigDecimal}, {@link BigInteger}, {@link UUID}, {@link Date}, enums,
+ * byte arrays and the common list, set and map implementations of these.
+ * <p>
+ * An encoded graph starts with {@link #MAGIC} followed by the format
+ * {@link #VERSION}. The leading zero byte cannot start an XML document, so
+ * both encodings can be told apart by their first bytes. Shared references are
+ * written once per occurrence, cyclic graphs and other types are rejected with
+ * an {@link IllegalArgumentException}.
+ *
+ */
+class CompactSerializer {
+
+    /**
+     * Header of the compact encoding, followed by the version byte.
+     */
+    static final byte[] MAGIC = new byte[] { 0, 'O', 'S', 'C' };
+
+    static final byte VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int STRING = 1;
+    private static final int TRUE = 2;
+    private static final int FALSE = 3;
+    private static final int INTEGER = 4;
+    private static final int LONG = 5;
+    private static final int SHORT = 6;
+    private static final int BYTE = 7;
+    private static final int DOUBLE = 8;
+    private static final int FLOAT = 9;
+    private static final int CHARACTER = 10;
+    private static final int BIG_DECIMAL = 11;
+    private static final int BIG_INTEGER = 12;
+    private static final int UUID_VALUE = 13;
+    private static final int DATE = 14;
+    private static final int ENUM = 15;
+    private static final int BYTE_ARRAY = 16;
+    private static final int ARRAY_LIST = 17;
+    private static final int LINKED_LIST = 18;
+    private static final int HASH_SET = 19;
+    private static final int LINKED_HASH_SET = 20;
+    private static final int HASH_MAP = 21;
+    private static final int LINKED_HASH_MAP = 22;
+
+    private static final Map<Class<?>, Integer> COLLECTION_TAGS = createCollectionTags();
+
+    private final OutputStream out;
+
+    private final Map<Object, Object> path = new IdentityHashMap<>();
+
+    private CompactSerializer(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Checks whether the given bytes start with the header of the compact
+     * encoding.
+     */
+    static boolean isCompact(byte[] bytes) {
+        if (bytes == null || bytes.length < MAGIC.length + 1) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Encodes the given object graph.
+     *
+     * @throws IllegalArgumentException
+     *             if the graph contains an unsupported type or a cycle
+     */
+    static byte[] toBytes(Object source) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            out.write(MAGIC);
+            out.write(VERSION);
+            new CompactSerializer(out).write(source);
+        } catch (IOException e) {
+            // not thrown by the in-memory stream
+            throw new IllegalStateException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes an object graph written by {@link #toBytes(Object)}.
+     *
+     * @throws IOException
+     *             if the bytes are no valid compact encoding
+     */
+    static Object toObject(byte[] bytes) throws IOException {
+        if (!isCompact(bytes)) {
+            throw new IOException("Missing compact encoding header");
+        }
+        int version = bytes[MAGIC.length];
+        if (version != VERSION) {
+            throw new IOException("Unsupported compact encoding version "
+                    + version);
+        }
+        Decoder decoder = new Decoder(bytes, MAGIC.length + 1);
+        Object result = decoder.read();
+        if (decoder.pos != bytes.length) {
+            throw new IOException("Trailing bytes after compact encoding");
+        }
+        return result;
+    }
+
+    private void write(Object value) throws IOException {
+        if (value == null) {
+            out.write(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            out.write(STRING);
+            writeString((String) value);
+        } else if (type == Boolean.class) {
+            out.write(((Boolean) value).booleanValue() ? TRUE : FALSE);
+        } else if (type == Integer.class) {
+            out.write(INTEGER);
+            writeVarLong(zigZag(((Integer) value).intValue()));
+        } else if (type == Long.class) {
+            out.write(LONG);
+            writeVarLong(zigZag(((Long) value).longValue()));
+        } else if (type == Short.class) {
+            out.write(SHORT);
+            writeVarLong(zigZag(((Short) value).shortValue()));
+        } else if (type == Byte.class) {
+            out.write(BYTE);
+            out.write(((Byte) value).byteValue());
+        } else if (type == Double.class) {
+            out.write(DOUBLE);
+            writeFixedLong(Double.doubleToRawLongBits(((Double) value)
+                    .doubleValue()));
+        } else if (type == Float.class) {
+            out.write(FLOAT);
+            writeVarLong(Float.floatToRawIntBits(((Float) value)
+                    .floatValue()) & 0xFFFFFFFFL);
+        } else if (type == Character.class) {
+            out.write(CHARACTER);
+            writeVarLong(((Character) value).charValue());
+        } else if (type == BigDecimal.class) {
+            BigDecimal decimal = (BigDecimal) value;
+            out.write(BIG_DECIMAL);
+            writeVarLong(zigZag(decimal.scale()));
+            writeBytes(decimal.unscaledValue().toByteArray());
+        } else if (type == BigInteger.class) {
+            out.write(BIG_INTEGER);
+            writeBytes(((BigInteger) value).toByteArray());
+        } else if (type == UUID.class) {
+            UUID uuid = (UUID) value;
+            out.write(UUID_VALUE);
+            writeFixedLong(uuid.getMostSignificantBits());
+            writeFixedLong(uuid.getLeastSignificantBits());
+        } else if (type == Date.class) {
+            out.write(DATE);
+            writeVarLong(zigZag(((Date) value).getTime()));
+        } else if (value instanceof Enum) {
+            Enum<?> e = (Enum<?>) value;
+            out.write(ENUM);
+            writeString(e.getDeclaringClass().getName());
+            writeString(e.name());
+        } else if (type == byte[].class) {
+            out.write(BYTE_ARRAY);
+            writeBytes((byte[]) value);
+        } else {
+            writeContainer(value);
+        }
+    }
+
+    private void writeContainer(Object value) throws IOException {
+        Integer tag = COLLECTION_TAGS.get(value.getClass());
+        if (tag == null) {
+            throw new IllegalArgumentException(
+                    "Type not supported by the compact encoding: "
+                            + value.getClass().getName());
+        }
+        if (path.put(value, value) != null) {
+            throw new IllegalArgumentException("Cyclic object graph");
+        }
+        out.write(tag.intValue());
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            writeVarLong(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                write(entry.getKey());
+                write(entry.getValue());
+            }
+        } else {
+            Collection<?> collection = (Collection<?>) value;
+            writeVarLong(collection.size());
+            for (Object element : collection) {
+                write(element);
+            }
+        }
+        path.remove(value);
+    }
+
+    private void writeString(String value) throws IOException {
+        writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeFixedLong(long value) throws IOException {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    /**
+     * Writes an unsigned value in 7 bit groups, least significant first.
+     */
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static Map<Class<?>, Integer> createCollectionTags() {
+        Map<Class<?>, Integer> tags = new HashMap<>();
+        tags.put(ArrayList.class, Integer.valueOf(ARRAY_LIST));
+        tags.put(LinkedList.class, Integer.valueOf(LINKED_LIST));
+        tags.put(HashSet.class, Integer.valueOf(HASH_SET));
+        tags.put(LinkedHashSet.class, Integer.valueOf(LINKED_HASH_SET));
+        tags.put(HashMap.class, Integer.valueOf(HASH_MAP));
+        tags.put(LinkedHashMap.class, Integer.valueOf(LINKED_HASH_MAP));
+        // read back as array list, as done by the XML encoding
+        tags.put(Collections.EMPTY_LIST.getClass(),
+                Integer.valueOf(ARRAY_LIST));
+        tags.put(Collections.singletonList(null).getClass(),
+                Integer.valueOf(ARRAY_LIST));
+        tags.put(Arrays.asList(new Object[] {}).getClass(),
+                Integer.valueOf(ARRAY_LIST));
+        return Collections.unmodifiableMap(tags);
+    }
+
+    /**
+     * Reads the encoded values from a byte array.
+     */
+    private static class Decoder {
+
+        private final byte[] bytes;
+
+        int pos;
+
+        Decoder(byte[] bytes, int pos) {
+            this.bytes = bytes;
+            this.pos = pos;
+        }
+
+        Object read() throws IOException {
+            int tag = readByte();
+            switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                return Integer.valueOf((int) unZigZag(readVarLong()));
+            case LONG:
+                return Long.valueOf(unZigZag(readVarLong()));
+            case SHORT:
+                return Short.valueOf((short) unZigZag(readVarLong()));
+            case BYTE:
+                return Byte.valueOf((byte) readByte());
+            case DOUBLE:
+                return Double.valueOf(Double.longBitsToDouble(readFixedLong()));
+            case FLOAT:
+                return Float.valueOf(Float.intBitsToFloat((int) readVarLong()));
+            case CHARACTER:
+                return Character.valueOf((char) readVarLong());
+            case BIG_DECIMAL:
+                int scale = (int) unZigZag(readVarLong());
+                return new BigDecimal(new BigInteger(readBytes()), scale);
+            case BIG_INTEGER:
+                return new BigInteger(readBytes());
+            case UUID_VALUE:
+                return new UUID(readFixedLong(), readFixedLong());
+            case DATE:
+                return new Date(unZigZag(readVarLong()));
+            case ENUM:
+                return readEnum();
+            case BYTE_ARRAY:
+                return readBytes();
+            case ARRAY_LIST:
+                int size = readSize();
+                return readElements(new ArrayList<Object>(size), size);
+            case LINKED_LIST:
+                return readElements(new LinkedList<Object>(), readSize());
+            case HASH_SET:
+                return readElements(new HashSet<Object>(), readSize());
+            case LINKED_HASH_SET:
+                return readElements(new LinkedHashSet<Object>(), readSize());
+            case HASH_MAP:
+                return readEntries(new HashMap<Object, Object>(), readSize());
+            case LINKED_HASH_MAP:
+                return readEntries(new LinkedHashMap<Object, Object>(),
+                        readSize());
+            default:
+                throw new IOException("Unknown type tag " + tag);
+            }
+        }
+
+        private Collection<Object> readElements(Collection<Object> collection,
+                int size) throws IOException {
+            for (int i = 0; i < size; i++) {
+                collection.add(read());
+            }
+            return collection;
+        }
+
+        private Map<Object, Object> readEntries(Map<Object, Object> map,
+                int size) throws IOException {
+            for (int i = 0; i < size; i++) {
+                Object key = read();
+                map.put(key, read());
+            }
+            return map;
+        }
+
+        private Object readEnum() throws IOException {
+            String typeName = readString();
+            String name = readString();
+            Class<?> type;
+            try {
+                type = Class.forName(typeName, false, getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new IOException(e);
+            }
+            if (!Enum.class.isAssignableFrom(type)) {
+                throw new IOException("No enum type: " + typeName);
+            }
+            return toEnum(type, name);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private static Object toEnum(Class<?> type, String name)
+                throws IOException {
+            try {
+                return Enum.valueOf((Class) type, name);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e);
+            }
+        }
+
+        private String readString() throws IOException {
+            int length = readSize();
+            String value = new String(bytes, pos, length,
+                    StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private byte[] readBytes() throws IOException {
+            int length = readSize();
+            byte[] value = Arrays.copyOfRange(bytes, pos, pos + length);
+            pos += length;
+            return value;
+        }
+
+        /**
+         * Reads a length or element count; as every element takes at least
+         * one byte it cannot exceed the remaining input.
+         */
+        private int readSize() throws IOException {
+            long size = readVarLong();
+            if (size > bytes.length - pos) {
+                throw new EOFException();
+            }
+            return (int) size;
+        }
+
+        private long readFixedLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length number");
+        }
+
+        private int readByte() throws IOException {
+            if (pos >= bytes.length) {
+                throw new EOFException();
+            }
+            return bytes[pos++] & 0xFF;
+        }
+    }
+
+    private static ClassLoader getClassLoader() {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return loader != null ? loader : CompactSerializer.class
+                .getClassLoader();
+    }
+}
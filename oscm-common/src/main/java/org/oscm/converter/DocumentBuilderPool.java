@@ -0,0 +1,156 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Pool of {@link DocumentBuilder}s sharing one factory configuration.
+ * <p>
+ * The factory is created once; builders are not thread-safe, so every thread
+ * gets its own builder which is {@link DocumentBuilder#reset() reset} before
+ * each use. This avoids the JAXP service lookup and the builder set-up of
+ * {@link DocumentBuilderFactory#newInstance()} on every parse.
+ *
+ */
+public class DocumentBuilderPool {
+
+    /**
+     * Builders for parsing untrusted input: secure processing enabled, not
+     * validating, ignoring element content whitespace.
+     */
+    static final DocumentBuilderPool SECURE = new DocumentBuilderPool(
+            newSecureFactory(false));
+
+    /**
+     * Namespace aware variant of {@link #SECURE}.
+     */
+    static final DocumentBuilderPool SECURE_NAMESPACE_AWARE = new DocumentBuilderPool(
+            newSecureFactory(true));
+
+    /**
+     * Namespace aware builders with the default JAXP settings.
+     */
+    static final DocumentBuilderPool NAMESPACE_AWARE = new DocumentBuilderPool(
+            newNamespaceAwareFactory());
+
+    /**
+     * Builders with the default JAXP settings, used for creating new
+     * documents.
+     */
+    static final DocumentBuilderPool DEFAULT = new DocumentBuilderPool(
+            DocumentBuilderFactory.newInstance());
+
+    private final DocumentBuilderFactory factory;
+
+    private final ThreadLocal<DocumentBuilder> builders = new ThreadLocal<DocumentBuilder>();
+
+    /**
+     * Creates a pool for the given, fully configured factory. The factory
+     * must not be modified afterwards.
+     *
+     * @param factory
+     *            the factory used to create the builders
+     */
+    public DocumentBuilderPool(DocumentBuilderFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the builder of the calling thread in its initial state. The
+     * builder must not be handed over to other threads.
+     *
+     * @return a reset document builder
+     * @throws ParserConfigurationException
+     *             Thrown in case the builder cannot be created.
+     */
+    public DocumentBuilder get() throws ParserConfigurationException {
+        DocumentBuilder builder = builders.get();
+        if (builder == null) {
+            // factories are not guaranteed to be thread-safe
+            synchronized (factory) {
+                builder = factory.newDocumentBuilder();
+            }
+            builders.set(builder);
+        } else {
+            builder.reset();
+        }
+        return builder;
+    }
+
+    /**
+     * Parses the given input source with the builder of the calling thread.
+     *
+     * @param source
+     *            the input to parse
+     * @return the parsed document
+     * @throws ParserConfigurationException
+     *             Thrown in case the builder cannot be created.
+     * @throws SAXException
+     *             Thrown in case the input cannot be parsed.
+     * @throws IOException
+     *             Thrown in case the input cannot be read.
+     */
+    public Document parse(InputSource source)
+            throws ParserConfigurationException, SAXException, IOException {
+        return get().parse(source);
+    }
+
+    /**
+     * Parses the given stream with the builder of the calling thread.
+     *
+     * @see #parse(InputSource)
+     */
+    public Document parse(InputStream inputStream)
+            throws ParserConfigurationException, SAXException, IOException {
+        return get().parse(inputStream);
+    }
+
+    /**
+     * Creates a new, empty document.
+     *
+     * @return a document
+     * @throws ParserConfigurationException
+     *             Thrown in case the builder cannot be created.
+     */
+    public Document newDocument() throws ParserConfigurationException {
+        return get().newDocument();
+    }
+
+    private static DocumentBuilderFactory newSecureFactory(
+            boolean nameSpaceAware) {
+        DocumentBuilderFactory dfactory = DocumentBuilderFactory.newInstance();
+        dfactory.setNamespaceAware(nameSpaceAware);
+        dfactory.setValidating(false);
+        dfactory.setIgnoringElementContentWhitespace(true);
+        try {
+            dfactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (ParserConfigurationException e) {
+            // secure processing must be supported by all JAXP implementations
+            throw new AssertionError(e);
+        }
+        return dfactory;
+    }
+
+    private static DocumentBuilderFactory newNamespaceAwareFactory() {
+        DocumentBuilderFactory dfactory = DocumentBuilderFactory.newInstance();
+        dfactory.setNamespaceAware(true);
+        return dfactory;
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes strings as UTF-8 directly into an {@link OutputStream} or a
+ * {@link WritableByteChannel} through one reusable buffer, so no intermediate
+ * string or byte array of the whole output is created. Malformed input is
+ * replaced like in {@link String#getBytes(java.nio.charset.Charset)}.
+ * <p>
+ * Instances are not thread-safe.
+ *
+ */
+class FragmentEncoder {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private final OutputStream out;
+
+    private final WritableByteChannel channel;
+
+    FragmentEncoder(OutputStream out) {
+        this.out = out;
+        this.channel = null;
+    }
+
+    FragmentEncoder(WritableByteChannel channel) {
+        this.out = null;
+        this.channel = channel;
+    }
+
+    /**
+     * Encodes the given characters into the buffer, draining it to the target
+     * whenever it is full.
+     */
+    FragmentEncoder write(CharSequence chars) throws IOException {
+        CharBuffer in = CharBuffer.wrap(chars);
+        while (true) {
+            // every fragment is complete, dangling surrogates are malformed
+            CoderResult result = encoder.encode(in, buffer, true);
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                break;
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes the remaining buffered bytes to the target. The target itself is
+     * neither flushed nor closed.
+     */
+    void finish() throws IOException {
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+        drain();
+        encoder.reset();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        if (channel != null) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } else {
+            out.write(buffer.array(), buffer.arrayOffset(), buffer.limit());
+        }
+        buffer.clear();
+    }
+}
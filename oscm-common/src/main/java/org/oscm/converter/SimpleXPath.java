@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.XMLConstants;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Evaluates simple XPath expressions by navigating the DOM directly, without
+ * the JAXP XPath engine.
+ * <p>
+ * Supported are absolute or relative location paths consisting of child steps
+ * with unprefixed element names, optionally followed by one unprefixed
+ * attribute step, e.g. <code>/BillingDetails/OrganizationDetails/@id</code>.
+ * {@link #compile(String)} returns <code>null</code> for all other
+ * expressions. Evaluation gives up if it meets elements or attributes with a
+ * namespace, the caller then falls back to JAXP XPath. Compiled paths are
+ * immutable, {@link #forExpression(String)} shares them between threads.
+ *
+ */
+class SimpleXPath {
+
+    private static final int UNSUPPORTED = -1;
+    private static final int CONTINUE = 0;
+    private static final int FOUND = 1;
+
+    static final int CACHE_CAPACITY = 256;
+
+    /** Marks cached expressions that are not within the supported subset */
+    private static final SimpleXPath NOT_SIMPLE = new SimpleXPath(false,
+            new String[0], null);
+
+    private static final ConcurrentMap<String, SimpleXPath> CACHE = new ConcurrentHashMap<String, SimpleXPath>(
+            CACHE_CAPACITY);
+
+    private final boolean absolute;
+
+    private final String[] elementNames;
+
+    private final String attributeName;
+
+    private SimpleXPath(boolean absolute, String[] elementNames,
+            String attributeName) {
+        this.absolute = absolute;
+        this.elementNames = elementNames;
+        this.attributeName = attributeName;
+    }
+
+    /**
+     * Returns the compiled form of the given expression like
+     * {@link #compile(String)}, but compiles every expression only once. The
+     * results of the first {@link #CACHE_CAPACITY} expressions are kept,
+     * including the ones that are not within the supported subset.
+     *
+     * @param expression
+     *            the XPath expression
+     * @return the compiled path or <code>null</code> if the expression has to
+     *         be evaluated by JAXP XPath
+     */
+    static SimpleXPath forExpression(String expression) {
+        if (expression == null) {
+            return null;
+        }
+        SimpleXPath path = CACHE.get(expression);
+        if (path == null) {
+            path = compile(expression);
+            if (path == null) {
+                path = NOT_SIMPLE;
+            }
+            if (CACHE.size() < CACHE_CAPACITY) {
+                CACHE.putIfAbsent(expression, path);
+            }
+        }
+        return path == NOT_SIMPLE ? null : path;
+    }
+
+    /**
+     * Compiles the given expression if it is within the supported subset.
+     *
+     * @param expression
+     *            the XPath expression
+     * @return the compiled path or <code>null</code> if the expression has to
+     *         be evaluated by JAXP XPath
+     */
+    static SimpleXPath compile(String expression) {
+        if (expression == null || expression.length() == 0) {
+            return null;
+        }
+        if ("/".equals(expression)) {
+            return new SimpleXPath(true, new String[0], null);
+        }
+        boolean absolute = expression.charAt(0) == '/';
+        List<String> names = new ArrayList<String>();
+        String attributeName = null;
+        int pos = absolute ? 1 : 0;
+        while (true) {
+            int end = expression.indexOf('/', pos);
+            if (end < 0) {
+                end = expression.length();
+            }
+            String step = expression.substring(pos, end);
+            if (step.startsWith("@") && end == expression.length()) {
+                attributeName = step.substring(1);
+                if (!isName(attributeName)
+                        || XMLConstants.XMLNS_ATTRIBUTE.equals(attributeName)) {
+                    return null;
+                }
+            } else if (isName(step)) {
+                names.add(step);
+            } else {
+                return null;
+            }
+            if (end == expression.length()) {
+                break;
+            }
+            pos = end + 1;
+        }
+        return new SimpleXPath(absolute, names.toArray(new String[names
+                .size()]), attributeName);
+    }
+
+    /**
+     * Returns the first node selected by the path in document order.
+     *
+     * @param context
+     *            the context node
+     * @param result
+     *            receives the selected node, if any
+     * @return <code>false</code> if the path cannot be evaluated on this
+     *         document
+     */
+    boolean selectFirst(Node context, List<Node> result) {
+        return select(context, result, true);
+    }
+
+    /**
+     * Returns all nodes selected by the path in document order.
+     *
+     * @param context
+     *            the context node
+     * @param result
+     *            receives the selected nodes
+     * @return <code>false</code> if the path cannot be evaluated on this
+     *         document
+     */
+    boolean selectAll(Node context, List<Node> result) {
+        return select(context, result, false);
+    }
+
+    private boolean select(Node context, List<Node> result, boolean firstOnly) {
+        Node start = context;
+        if (absolute) {
+            while (start.getParentNode() != null) {
+                start = start.getParentNode();
+            }
+            if (start.getNodeType() != Node.DOCUMENT_NODE) {
+                // the root of a detached subtree
+                return false;
+            }
+        } else if (start.getNodeType() == Node.ATTRIBUTE_NODE) {
+            return false;
+        }
+        if (elementNames.length == 0) {
+            // "/" selects the document node, "@a" an attribute of the context
+            if (attributeName == null) {
+                result.add(start);
+            } else if (start.getNodeType() == Node.ELEMENT_NODE) {
+                return select((Element) start, result) != UNSUPPORTED;
+            }
+            return true;
+        }
+        return collect(start, 0, result, firstOnly) != UNSUPPORTED;
+    }
+
+    private int collect(Node parent, int step, List<Node> result,
+            boolean firstOnly) {
+        for (Node child = parent.getFirstChild(); child != null; child = child
+                .getNextSibling()) {
+            if (child.getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            if (child.getNamespaceURI() != null
+                    || child.getNodeName().indexOf(':') >= 0) {
+                // XPath matches prefixed elements by their local name
+                return UNSUPPORTED;
+            }
+            if (!elementNames[step].equals(child.getNodeName())) {
+                continue;
+            }
+            int status;
+            if (step + 1 < elementNames.length) {
+                status = collect(child, step + 1, result, firstOnly);
+            } else {
+                status = select((Element) child, result);
+            }
+            if (status == UNSUPPORTED || status == FOUND && firstOnly) {
+                return status;
+            }
+        }
+        return result.isEmpty() ? CONTINUE : FOUND;
+    }
+
+    private int select(Element element, List<Node> result) {
+        if (attributeName == null) {
+            result.add(element);
+            return FOUND;
+        }
+        NamedNodeMap attributes = element.getAttributes();
+        Node attribute = null;
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String name = attributes.item(i).getNodeName();
+            if (name.equals(attributeName)) {
+                attribute = attributes.item(i);
+            } else if (name.endsWith(attributeName)
+                    && name.charAt(name.length() - attributeName.length()
+                            - 1) == ':') {
+                // XPath matches prefixed attributes by their local name
+                return UNSUPPORTED;
+            }
+        }
+        if (attribute == null) {
+            return CONTINUE;
+        }
+        result.add(attribute);
+        return FOUND;
+    }
+
+    private static boolean isName(String name) {
+        if (name.length() == 0
+                || !Character.isLetter(name.charAt(0)) && name.charAt(0) != '_') {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-'
+                    && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Node list over the selected nodes.
+     */
+    static class Nodes implements NodeList {
+
+        private final List<Node> nodes;
+
+        Nodes(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public Node item(int index) {
+            return index >= 0 && index < nodes.size() ? nodes.get(index)
+                    : null;
+        }
+
+        @Override
+        public int getLength() {
+            return nodes.size();
+        }
+    }
+}
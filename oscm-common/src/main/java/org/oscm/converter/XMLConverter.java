@@ -8,31 +8,32 @@
 
 package org.oscm.converter;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
-import javax.xml.XMLConstants;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
 import javax.xml.transform.OutputKeys;
 import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -78,24 +79,18 @@ public class XMLConverter {
         if (string == null) {
             return null;
         }
-        DocumentBuilderFactory dfactory = DocumentBuilderFactory.newInstance();
-        dfactory.setNamespaceAware(nameSpaceAware);
-        dfactory.setValidating(false);
-        dfactory.setIgnoringElementContentWhitespace(true);
-        dfactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
-        DocumentBuilder builder = dfactory.newDocumentBuilder();
-        Document doc = builder.parse(new InputSource(new StringReader(string)));
+        DocumentBuilderPool builders = nameSpaceAware
+                ? DocumentBuilderPool.SECURE_NAMESPACE_AWARE
+                : DocumentBuilderPool.SECURE;
+        Document doc = builders
+                .parse(new InputSource(new StringReader(string)));
         return doc;
     }
 
     public static Document convertToDocument(InputStream inputStream)
             throws ParserConfigurationException, SAXException, IOException {
 
-        DocumentBuilderFactory builderFactory = DocumentBuilderFactory
-                .newInstance();
-        builderFactory.setNamespaceAware(true);
-        DocumentBuilder builder = builderFactory.newDocumentBuilder();
-        return builder.parse(inputStream);
+        return DocumentBuilderPool.NAMESPACE_AWARE.parse(inputStream);
     }
 
     /**
@@ -152,7 +147,8 @@ public class XMLConverter {
     }
 
     /**
-     * Returns the node in the given document at the specified XPath.
+     * Returns the node in the given document at the specified XPath. Simple
+     * child and attribute paths are evaluated directly on the DOM.
      * 
      * @param node
      *            The document to be checked.
@@ -164,14 +160,26 @@ public class XMLConverter {
     public static Node getNodeByXPath(Node node, String xpathString)
             throws XPathExpressionException {
 
-        final XPathFactory factory = XPathFactory.newInstance();
-        final XPath xpath = factory.newXPath();
-        xpath.setNamespaceContext(new XmlNamespaceResolver(
-                getOwningDocument(node)));
-        final XPathExpression expr = xpath.compile(xpathString);
+        SimpleXPath path = SimpleXPath.forExpression(xpathString);
+        if (path != null) {
+            List<Node> result = new ArrayList<Node>(1);
+            if (path.selectFirst(node, result)) {
+                return result.isEmpty() ? null : result.get(0);
+            }
+        }
+        final XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                xpathString, namespaces(node));
         return (Node) expr.evaluate(node, XPathConstants.NODE);
     }
 
+    /**
+     * Returns the namespace context of the document the node belongs to,
+     * cached for the document.
+     */
+    private static XmlNamespaceResolver namespaces(Node node) {
+        return XmlNamespaceResolver.forDocument(getOwningDocument(node));
+    }
+
     private static Document getOwningDocument(Node node) {
         if (node instanceof Document) {
             return (Document) node;
@@ -182,6 +190,7 @@ public class XMLConverter {
 
     /**
      * Returns the node list in the given document at the specified XPath.
+     * Simple child and attribute paths are evaluated directly on the DOM.
      * 
      * @param node
      *            The document to be checked.
@@ -192,11 +201,15 @@ public class XMLConverter {
      */
     public static NodeList getNodeListByXPath(Node node, String xpathString)
             throws XPathExpressionException {
-        final XPathFactory factory = XPathFactory.newInstance();
-        final XPath xpath = factory.newXPath();
-        xpath.setNamespaceContext(new XmlNamespaceResolver(
-                getOwningDocument(node)));
-        final XPathExpression expr = xpath.compile(xpathString);
+        SimpleXPath path = SimpleXPath.forExpression(xpathString);
+        if (path != null) {
+            List<Node> result = new ArrayList<Node>();
+            if (path.selectAll(node, result)) {
+                return new SimpleXPath.Nodes(result);
+            }
+        }
+        final XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                xpathString, namespaces(node));
         return (NodeList) expr.evaluate(node, XPathConstants.NODESET);
     }
 
@@ -231,10 +244,8 @@ public class XMLConverter {
      */
     public static Number getNumberByXPath(Document doc, String xpathString)
             throws XPathExpressionException {
-        XPathFactory factory = XPathFactory.newInstance();
-        XPath xpath = factory.newXPath();
-
-        XPathExpression expr = xpath.compile(xpathString);
+        XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                xpathString, namespaces(doc));
 
         Number result = (Number) expr.evaluate(doc, XPathConstants.NUMBER);
         return result;
@@ -247,9 +258,7 @@ public class XMLConverter {
      */
     public static Document newDocument() {
         try {
-            final DocumentBuilder builder = DocumentBuilderFactory
-                    .newInstance().newDocumentBuilder();
-            return builder.newDocument();
+            return DocumentBuilderPool.DEFAULT.newDocument();
         } catch (ParserConfigurationException e) {
             throw new RuntimeException(e);
         }
@@ -384,6 +393,182 @@ public class XMLConverter {
         return result;
     }
 
+    /**
+     * Reads the attribute with the given name from all given nodes and
+     * converts the values to <code>long</code> in one pass, without boxing.
+     * 
+     * @param nodes
+     *            the nodes to get the attribute from
+     * @param attName
+     *            the attribute name
+     * @return the attribute values in the order of the nodes, 0 for nodes
+     *         without the attribute
+     */
+    public static long[] getLongAttValues(NodeList nodes, String attName) {
+        long[] values = new long[nodes.getLength()];
+        getLongAttValues(nodes, attName, values, 0);
+        return values;
+    }
+
+    /**
+     * Reads the attribute with the given name from all given nodes into the
+     * given buffer, see {@link #getLongAttValues(NodeList, String)}. The
+     * buffer can be reused for several node lists.
+     * 
+     * @param nodes
+     *            the nodes to get the attribute from
+     * @param attName
+     *            the attribute name
+     * @param values
+     *            the buffer receiving the values
+     * @param offset
+     *            the position of the value of the first node in the buffer
+     * @return the number of values written, i.e. the number of nodes
+     * @throws IndexOutOfBoundsException
+     *             if the buffer is too small
+     */
+    public static int getLongAttValues(NodeList nodes, String attName,
+            long[] values, int offset) {
+        int length = nodes.getLength();
+        checkBuffer(values.length, offset, length);
+        AttributeLookup lookup = new AttributeLookup(attName);
+        for (int i = 0; i < length; i++) {
+            String value = lookup.getValue(nodes.item(i));
+            values[offset + i] = value == null ? 0 : Long.parseLong(value);
+        }
+        return length;
+    }
+
+    /**
+     * Reads the attribute with the given name from all elements with the
+     * given name below the given document or element, in document order. See
+     * {@link #getLongAttValues(NodeList, String)}.
+     * 
+     * @param node
+     *            the document or element containing the elements
+     * @param elementName
+     *            the name of the elements
+     * @param attName
+     *            the attribute name
+     * @return the attribute values, 0 for elements without the attribute
+     */
+    public static long[] getLongAttValues(Node node, String elementName,
+            String attName) {
+        return getLongAttValues(getElementsByTagName(node, elementName),
+                attName);
+    }
+
+    /**
+     * Reads the attribute with the given name from all given nodes and
+     * converts the values to <code>double</code> in one pass, without
+     * boxing.
+     * 
+     * @param nodes
+     *            the nodes to get the attribute from
+     * @param attName
+     *            the attribute name
+     * @return the attribute values in the order of the nodes, 0 for nodes
+     *         without the attribute
+     */
+    public static double[] getDoubleAttValues(NodeList nodes, String attName) {
+        double[] values = new double[nodes.getLength()];
+        getDoubleAttValues(nodes, attName, values, 0);
+        return values;
+    }
+
+    /**
+     * Reads the attribute with the given name from all given nodes into the
+     * given buffer, see {@link #getDoubleAttValues(NodeList, String)}. The
+     * buffer can be reused for several node lists.
+     * 
+     * @param nodes
+     *            the nodes to get the attribute from
+     * @param attName
+     *            the attribute name
+     * @param values
+     *            the buffer receiving the values
+     * @param offset
+     *            the position of the value of the first node in the buffer
+     * @return the number of values written, i.e. the number of nodes
+     * @throws IndexOutOfBoundsException
+     *             if the buffer is too small
+     */
+    public static int getDoubleAttValues(NodeList nodes, String attName,
+            double[] values, int offset) {
+        int length = nodes.getLength();
+        checkBuffer(values.length, offset, length);
+        AttributeLookup lookup = new AttributeLookup(attName);
+        for (int i = 0; i < length; i++) {
+            String value = lookup.getValue(nodes.item(i));
+            values[offset + i] = value == null ? 0 : Double
+                    .parseDouble(value);
+        }
+        return length;
+    }
+
+    /**
+     * Reads the attribute with the given name from all elements with the
+     * given name below the given document or element, in document order. See
+     * {@link #getDoubleAttValues(NodeList, String)}.
+     * 
+     * @param node
+     *            the document or element containing the elements
+     * @param elementName
+     *            the name of the elements
+     * @param attName
+     *            the attribute name
+     * @return the attribute values, 0 for elements without the attribute
+     */
+    public static double[] getDoubleAttValues(Node node, String elementName,
+            String attName) {
+        return getDoubleAttValues(getElementsByTagName(node, elementName),
+                attName);
+    }
+
+    /**
+     * Sums up the attribute with the given name of all given nodes as
+     * <code>double</code> values, without boxing. Nodes without the
+     * attribute are skipped. Like {@link #sumup(Node, String)} the values are
+     * converted like the XPath <code>number()</code> function and the sum is
+     * <code>NaN</code> if a value is no number.
+     * 
+     * @param nodes
+     *            the nodes to get the attribute from
+     * @param attName
+     *            the attribute name
+     * @return the sum of the attribute values
+     */
+    public static double sumDoubleAttValues(NodeList nodes, String attName) {
+        AttributeLookup lookup = new AttributeLookup(attName);
+        double sum = 0;
+        for (int i = 0; i < nodes.getLength(); i++) {
+            String value = lookup.getValue(nodes.item(i));
+            if (value != null) {
+                sum += XmlStreamAggregator.toNumber(value);
+            }
+        }
+        return sum;
+    }
+
+    private static void checkBuffer(int bufferLength, int offset, int length) {
+        if (offset < 0 || offset > bufferLength - length) {
+            throw new IndexOutOfBoundsException("Buffer of length "
+                    + bufferLength + " too small for " + length
+                    + " values at offset " + offset);
+        }
+    }
+
+    private static NodeList getElementsByTagName(Node node, String elementName) {
+        if (node instanceof Document) {
+            return ((Document) node).getElementsByTagName(elementName);
+        }
+        if (node instanceof Element) {
+            return ((Element) node).getElementsByTagName(elementName);
+        }
+        throw new IllegalArgumentException(
+                "Node must be a document or an element: " + node);
+    }
+
     /**
      * Encodes the given String in UTF-8.
      * 
@@ -425,14 +610,7 @@ public class XMLConverter {
      * @return UTF-8 encoded XML file
      */
     public static byte[] combine(String rootname, List<String> fragments) {
-        final StringBuilder buffer = new StringBuilder();
-        buffer.append(HEADER);
-        buffer.append(String.format("<%s>%n", rootname));
-        for (final String f : fragments) {
-            buffer.append(String.format("%s%n", f));
-        }
-        buffer.append(String.format("</%s>%n", rootname));
-        return toUTF8(buffer.toString());
+        return combineToBytes(rootname, fragments, null);
     }
 
     /**
@@ -443,19 +621,107 @@ public class XMLConverter {
      *            name of the root element
      * @param fragments
      *            XML fragments to include
+     * @param schemaHeader
+     *            schema info added to the root element, <code>null</code> is
+     *            added as the text <code>null</code>
      * @return UTF-8 encoded XML file
      */
     public static byte[] combine(String rootname, List<String> fragments,
             String schemaHeader) {
+        return combineToBytes(rootname, fragments,
+                String.valueOf(schemaHeader));
+    }
+
+    private static byte[] combineToBytes(String rootname,
+            List<String> fragments, String schemaHeader) {
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            combine(rootname, fragments.iterator(), schemaHeader,
+                    new FragmentEncoder(out));
+        } catch (IOException e) {
+            // writing to memory does not fail
+            throw new AssertionError(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Combines the given fragments into a single XML file with the given root
+     * element and writes it UTF-8 encoded to the stream. The fragments are
+     * consumed one by one, so they can be produced lazily.
+     * 
+     * @param rootname
+     *            name of the root element
+     * @param fragments
+     *            XML fragments to include
+     * @param schemaHeader
+     *            schema info added to the root element, may be
+     *            <code>null</code>
+     * @param out
+     *            the target stream, neither flushed nor closed
+     * @throws IOException
+     *             Thrown in case writing to the stream fails.
+     */
+    public static void combine(String rootname, Iterator<String> fragments,
+            String schemaHeader, OutputStream out) throws IOException {
+        combine(rootname, fragments, schemaHeader, new FragmentEncoder(out));
+    }
+
+    /**
+     * @see #combine(String, Iterator, String, OutputStream)
+     */
+    public static void combine(String rootname, Stream<String> fragments,
+            String schemaHeader, OutputStream out) throws IOException {
+        combine(rootname, fragments.iterator(), schemaHeader, out);
+    }
+
+    /**
+     * Combines the given fragments into a single XML file with the given root
+     * element and writes it UTF-8 encoded to the channel. The fragments are
+     * consumed one by one, so they can be produced lazily.
+     * 
+     * @param rootname
+     *            name of the root element
+     * @param fragments
+     *            XML fragments to include
+     * @param schemaHeader
+     *            schema info added to the root element, may be
+     *            <code>null</code>
+     * @param channel
+     *            the target channel, not closed
+     * @throws IOException
+     *             Thrown in case writing to the channel fails.
+     */
+    public static void combine(String rootname, Iterator<String> fragments,
+            String schemaHeader, WritableByteChannel channel)
+            throws IOException {
+        combine(rootname, fragments, schemaHeader, new FragmentEncoder(
+                channel));
+    }
 
-        final StringBuilder buffer = new StringBuilder();
-        buffer.append(HEADER);
-        buffer.append(String.format("<%s %s>%n", rootname, schemaHeader));
-        for (final String f : fragments) {
-            buffer.append(String.format("%s%n", f));
+    /**
+     * @see #combine(String, Iterator, String, WritableByteChannel)
+     */
+    public static void combine(String rootname, Stream<String> fragments,
+            String schemaHeader, WritableByteChannel channel)
+            throws IOException {
+        combine(rootname, fragments.iterator(), schemaHeader, channel);
+    }
+
+    private static void combine(String rootname, Iterator<String> fragments,
+            String schemaHeader, FragmentEncoder encoder) throws IOException {
+        final String newline = System.lineSeparator();
+        encoder.write(HEADER).write("<").write(rootname);
+        if (schemaHeader != null) {
+            encoder.write(" ").write(schemaHeader);
         }
-        buffer.append(String.format("</%s>%n", rootname));
-        return toUTF8(buffer.toString());
+        encoder.write(">").write(newline);
+        while (fragments.hasNext()) {
+            encoder.write(String.valueOf(fragments.next())).write(newline);
+        }
+        encoder.write("</").write(rootname).write(">").write(newline);
+        encoder.finish();
     }
 
     /**
@@ -499,9 +765,8 @@ public class XMLConverter {
      */
     public static Double sumup(Node node, String expression)
             throws XPathExpressionException {
-        final XPathFactory factory = XPathFactory.newInstance();
-        final XPath xpath = factory.newXPath();
-        final XPathExpression expr = xpath.compile("sum(" + expression + ')');
+        final XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                "sum(" + expression + ')', namespaces(node));
         return (Double) expr.evaluate(node, XPathConstants.NUMBER);
     }
 
@@ -510,10 +775,51 @@ public class XMLConverter {
      */
     public static Double countNodes(Node node, String nodePath)
             throws XPathExpressionException {
-        final XPathFactory factory = XPathFactory.newInstance();
-        final XPath xpath = factory.newXPath();
-        final XPathExpression expr = xpath.compile("count(" + nodePath + ')');
+        final XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                "count(" + nodePath + ')', namespaces(node));
         return (Double) expr.evaluate(node, XPathConstants.NUMBER);
     }
 
+    /**
+     * Streaming counterpart of {@link #sumup(Node, String)}: calculates the
+     * sum of the given attribute of all elements selected by the path in a
+     * single pass over the stream, without building a DOM.
+     * 
+     * @param inputStream
+     *            the XML document, not closed by this method
+     * @param elementPath
+     *            restricted path expression selecting the elements, see
+     *            {@link XmlStreamAggregator}
+     * @param attributeName
+     *            the attribute to sum up
+     * @return the sum, <code>NaN</code> if a value is not a number
+     * @throws XMLStreamException
+     *             Thrown in case the document cannot be parsed.
+     */
+    public static Double sumup(InputStream inputStream, String elementPath,
+            String attributeName) throws XMLStreamException {
+        return Double.valueOf(new XmlStreamAggregator(elementPath).aggregate(
+                inputStream, attributeName).getSum());
+    }
+
+    /**
+     * Streaming counterpart of {@link #countNodes(Node, String)}: counts the
+     * elements selected by the path in a single pass over the stream, without
+     * building a DOM.
+     * 
+     * @param inputStream
+     *            the XML document, not closed by this method
+     * @param elementPath
+     *            restricted path expression selecting the elements, see
+     *            {@link XmlStreamAggregator}
+     * @return the number of elements
+     * @throws XMLStreamException
+     *             Thrown in case the document cannot be parsed.
+     */
+    public static Double countNodes(InputStream inputStream, String elementPath)
+            throws XMLStreamException {
+        return Double.valueOf(new XmlStreamAggregator(elementPath).aggregate(
+                inputStream, null).getCount());
+    }
+
 }
@@ -22,7 +22,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.oscm.encrypter.AESEncrypter;
 import org.oscm.logging.Log4jLogger;
@@ -103,19 +108,38 @@ public class XMLSerializer {
         }
     }
 
+    private static final PersistenceDelegate ENUM_DELEGATE = new EnumPersistenceDelegate();
+
+    private static final PersistenceDelegate BIG_DECIMAL_DELEGATE = new BigDecimalPersistenceDelegate();
+
+    private static final PersistenceDelegate BYTE_ARRAY_DELEGATE = new ByteArrayPersistenceDelegate();
+
+    private static final PersistenceDelegate UUID_DELEGATE = new UUIDDelegate();
+
+    private static final List<Class<?>> NO_TYPES = Collections.emptyList();
+
+    /**
+     * Persistence delegates to register, per set of enum types passed to
+     * {@link #toXml(Object, Class[])}. The delegates are stateless and shared.
+     * The type sets are fixed by the callers, so the map stays small.
+     */
+    private static final ConcurrentMap<List<Class<?>>, Map<Class<?>, PersistenceDelegate>> DELEGATES = new ConcurrentHashMap<>();
+
     public static String toXml(Object source) {
         return toXml(source, null);
     }
 
     /**
-     * Serializes an object to an XML string.
+     * Serializes an object to an XML string. May be called concurrently, each
+     * call uses its own encoder with the persistence delegates registered on
+     * that encoder only.
      * 
      * @param source
      *            the object to serialize.
      * @return the XML string representing the object.
      * @throws UnsupportedEncodingException
      */
-    public static synchronized String toXml(Object source, Class<?>[] types) {
+    public static String toXml(Object source, Class<?>[] types) {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         try {
             XMLEncoder encoder = new XMLEncoder(out);
@@ -145,8 +169,8 @@ public class XMLSerializer {
 
         String result = null;
         try {
-            result = AESEncrypter.encrypt(XmlStringCleaner
-                    .cleanString(new String(out.toByteArray(), "UTF-8")));
+            result = AESEncrypter.encrypt(XmlStringCleaner.cleanString(out
+                    .toString("UTF-8")));
         } catch (GeneralSecurityException e) {
             throw new RuntimeException(e);
         } catch (UnsupportedEncodingException e) {
@@ -155,22 +179,76 @@ public class XMLSerializer {
         return result;
     }
 
+    /**
+     * Serializes an object to the compact binary encoding, encrypted like
+     * {@link #toXml(Object)}. Object graphs which are not supported by the
+     * compact encoding, e.g. JavaBeans, are serialized to XML instead. Both
+     * results are read by {@link #toObject(String)}.
+     * 
+     * @param source
+     *            the object to serialize.
+     * @return the encrypted string representing the object.
+     */
+    public static String toBinary(Object source) {
+        byte[] bytes;
+        try {
+            bytes = CompactSerializer.toBytes(source);
+        } catch (IllegalArgumentException e) {
+            return toXml(source);
+        }
+        try {
+            return AESEncrypter.encryptBytes(bytes);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Converts a stored serialized object, XML or compact binary, into the
+     * compact binary encoding. Used to migrate stored values; the result of
+     * {@link #toObject(String)} does not change.
+     * 
+     * @param serialized
+     *            the stored value
+     * @return the value in the compact binary encoding, or the given value if
+     *         it cannot be converted
+     */
+    public static String migrateToBinary(String serialized) {
+        Object value = toObject(serialized);
+        if (value == null) {
+            return serialized;
+        }
+        return toBinary(value);
+    }
+
     private static void setPersistenceDelegates(XMLEncoder encoder,
             Class<?>[] types) {
-        if (types != null && types.length > 0) {
-            PersistenceDelegate persistenceDelegate = new EnumPersistenceDelegate();
-            for (int i = 0; i < types.length; i++) {
-                encoder.setPersistenceDelegate(types[i], persistenceDelegate);
-            }
+        for (Map.Entry<Class<?>, PersistenceDelegate> entry : getPersistenceDelegates(
+                types).entrySet()) {
+            encoder.setPersistenceDelegate(entry.getKey(), entry.getValue());
         }
+    }
+
+    private static Map<Class<?>, PersistenceDelegate> getPersistenceDelegates(
+            Class<?>[] types) {
+        List<Class<?>> key = types == null ? NO_TYPES : Arrays.asList(types);
+        Map<Class<?>, PersistenceDelegate> delegates = DELEGATES.get(key);
+        if (delegates == null) {
+            // the caller may modify the array afterwards
+            key = new ArrayList<>(key);
+            delegates = new LinkedHashMap<>();
+            for (Class<?> type : key) {
+                delegates.put(type, ENUM_DELEGATE);
+            }
 
-        // Handle "BiGDecimal" manually (has no default constructor)
-        encoder.setPersistenceDelegate(BigDecimal.class,
-                new BigDecimalPersistenceDelegate());
+            // Handle "BiGDecimal" manually (has no default constructor)
+            delegates.put(BigDecimal.class, BIG_DECIMAL_DELEGATE);
 
-        encoder.setPersistenceDelegate(byte[].class,
-                new ByteArrayPersistenceDelegate());
-        encoder.setPersistenceDelegate(UUID.class, new UUIDDelegate());
+            delegates.put(byte[].class, BYTE_ARRAY_DELEGATE);
+            delegates.put(UUID.class, UUID_DELEGATE);
+            DELEGATES.putIfAbsent(key, Collections.unmodifiableMap(delegates));
+        }
+        return delegates;
     }
 
     /**
@@ -190,6 +268,15 @@ public class XMLSerializer {
         }
     }
 
+    /**
+     * Deserializes an object written by {@link #toXml(Object)} or
+     * {@link #toBinary(Object)}. Unencrypted XML is accepted as well. The
+     * encoding is detected by the header of the decrypted bytes.
+     * 
+     * @param xml
+     *            the serialized object
+     * @return the object or <code>null</code> if it cannot be deserialized
+     */
     public static Object toObject(String xml) {
         Object result = null;
         XMLDecoder decoder = null;
@@ -198,8 +285,10 @@ public class XMLSerializer {
             if (xml.contains("<")) {
                 bytes = xml.getBytes(StandardCharsets.UTF_8);
             } else {
-                String decrypted = AESEncrypter.decrypt(xml);
-                bytes = decrypted.getBytes(StandardCharsets.UTF_8);
+                bytes = AESEncrypter.decryptBytes(xml);
+                if (CompactSerializer.isCompact(bytes)) {
+                    return CompactSerializer.toObject(bytes);
+                }
             }
             decoder = new XMLDecoder(new ByteArrayInputStream(bytes));
             result = decoder.readObject();
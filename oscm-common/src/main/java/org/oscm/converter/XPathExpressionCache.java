@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+/**
+ * Bounded cache of compiled XPath expressions, keyed by expression and
+ * namespace context.
+ * <p>
+ * Neither {@link XPath} nor {@link XPathExpression} is thread-safe, so each
+ * thread keeps its own XPath instance and its own least recently used set of
+ * compiled expressions. The cache can therefore be shared freely between
+ * threads.
+ *
+ */
+public class XPathExpressionCache {
+
+    static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Cache used by the {@link XMLConverter} XPath helpers.
+     */
+    static final XPathExpressionCache SHARED = new XPathExpressionCache(
+            DEFAULT_CAPACITY);
+
+    private final int capacity;
+
+    private final ThreadLocal<Compiler> compilers = new ThreadLocal<Compiler>();
+
+    /**
+     * @param capacity
+     *            the maximum number of compiled expressions kept per thread
+     */
+    public XPathExpressionCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the compiled form of the given expression. The result is
+     * confined to the calling thread and must not be handed over to other
+     * threads.
+     *
+     * @param expression
+     *            the XPath expression
+     * @param namespaceContext
+     *            the namespace context used for resolving prefixes, may be
+     *            <code>null</code>. Contexts are compared with
+     *            {@link Object#equals(Object)}.
+     * @return the compiled expression
+     * @throws XPathExpressionException
+     *             Thrown in case the expression cannot be compiled.
+     */
+    public XPathExpression compile(String expression,
+            NamespaceContext namespaceContext) throws XPathExpressionException {
+        Compiler compiler = compilers.get();
+        if (compiler == null) {
+            compiler = new Compiler(capacity);
+            compilers.set(compiler);
+        }
+        return compiler.compile(expression, namespaceContext);
+    }
+
+    /**
+     * Returns the number of expressions cached for the calling thread.
+     */
+    int size() {
+        Compiler compiler = compilers.get();
+        return compiler == null ? 0 : compiler.expressions.size();
+    }
+
+    /**
+     * Per thread XPath instance together with its compiled expressions.
+     */
+    private static class Compiler {
+
+        private final XPath xpath = XPathFactory.newInstance().newXPath();
+
+        private final Map<Key, XPathExpression> expressions;
+
+        Compiler(final int capacity) {
+            expressions = new LinkedHashMap<Key, XPathExpression>(16, 0.75f,
+                    true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Key, XPathExpression> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        XPathExpression compile(String expression,
+                NamespaceContext namespaceContext)
+                throws XPathExpressionException {
+            Key key = new Key(expression, namespaceContext);
+            XPathExpression compiled = expressions.get(key);
+            if (compiled == null) {
+                try {
+                    if (namespaceContext != null) {
+                        xpath.setNamespaceContext(namespaceContext);
+                    }
+                    compiled = xpath.compile(expression);
+                } finally {
+                    xpath.reset();
+                }
+                expressions.put(key, compiled);
+            }
+            return compiled;
+        }
+    }
+
+    private static class Key {
+
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+        private final int hash;
+
+        Key(String expression, NamespaceContext namespaceContext) {
+            this.expression = expression;
+            this.namespaceContext = namespaceContext;
+            this.hash = 31 * expression.hashCode()
+                    + (namespaceContext == null ? 0
+                            : namespaceContext.hashCode());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return expression.equals(other.expression)
+                    && (namespaceContext == null ? other.namespaceContext == null
+                            : namespaceContext.equals(other.namespaceContext));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reader removing the characters and char elements from the underlying XML
+ * stream that {@link XmlStringCleaner#cleanString(String)} removes from a
+ * string, without reading the whole document into memory. Mark and reset are
+ * not supported.
+ *
+ */
+public class XmlCleaningReader extends FilterReader {
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final XmlStringCleaner.StreamCleaner cleaner = new XmlStringCleaner.StreamCleaner();
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+
+    /** Receives the character of {@link #read()} */
+    private final char[] single = new char[1];
+
+    private int position;
+
+    private boolean endOfInput;
+
+    public XmlCleaningReader(Reader in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0];
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        StringBuilder output = cleaner.output;
+        while (position == output.length()) {
+            if (endOfInput) {
+                return -1;
+            }
+            output.setLength(0);
+            position = 0;
+            int read = in.read(buffer, 0, buffer.length);
+            if (read < 0) {
+                endOfInput = true;
+                cleaner.finish();
+            } else {
+                cleaner.accept(buffer, 0, read);
+            }
+        }
+        int count = Math.min(len, output.length() - position);
+        output.getChars(position, position + count, cbuf, off);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n < 0L) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+        char[] skipped = new char[(int) Math.min(n, BUFFER_SIZE)];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(skipped, 0,
+                    (int) Math.min(remaining, skipped.length));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        return position < cleaner.output.length() || in.ready();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readAheadLimit) throws IOException {
+        throw new IOException("mark() not supported");
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("reset() not supported");
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer removing the characters and char elements that
+ * {@link XmlStringCleaner#cleanString(String)} removes from a string before
+ * passing the XML on to the underlying writer. A potential char element is
+ * held back until its line is complete, so the cleaned output is only
+ * complete after {@link #close()}.
+ *
+ */
+public class XmlCleaningWriter extends FilterWriter {
+
+    private final XmlStringCleaner.StreamCleaner cleaner = new XmlStringCleaner.StreamCleaner();
+
+    private char[] buffer = new char[0];
+
+    public XmlCleaningWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        cleaner.accept((char) c);
+        drain();
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        cleaner.accept(cbuf, off, len);
+        drain();
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        cleaner.accept(str, off, len);
+        drain();
+    }
+
+    /**
+     * Flushes the cleaned characters; a held back potential char element is
+     * not written before the end of its line or the end of the stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        cleaner.finish();
+        drain();
+        out.close();
+    }
+
+    private void drain() throws IOException {
+        StringBuilder output = cleaner.output;
+        int length = output.length();
+        if (length == 0) {
+            return;
+        }
+        if (buffer.length < length) {
+            buffer = new char[length];
+        }
+        output.getChars(0, length, buffer, 0);
+        output.setLength(0);
+        out.write(buffer, 0, length);
+    }
+}
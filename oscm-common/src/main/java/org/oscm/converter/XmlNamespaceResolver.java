@@ -28,11 +28,43 @@ import org.w3c.dom.NodeList;
  */
 public class XmlNamespaceResolver implements NamespaceContext {
 
+    /**
+     * Key of the resolver in the user data of its document.
+     */
+    private static final String USER_DATA_KEY = XmlNamespaceResolver.class
+            .getName();
+
     private Map<String, String> nsToUrl = new HashMap<String, String>();
     private Map<String, String> urlToNs = new HashMap<String, String>();
 
+    private final int hashCode;
+
     public XmlNamespaceResolver(Document document) {
         extractNamespaces(document);
+        hashCode = nsToUrl.hashCode();
+    }
+
+    /**
+     * Returns the resolver of the given document. It is created when the
+     * document is passed for the first time and kept in the user data of the
+     * document, so the document is walked only once and the resolver is
+     * dropped together with it. Like the document itself this is not
+     * thread-safe. Namespaces declared after that are not seen, a modified
+     * document needs a new resolver created with
+     * {@link #XmlNamespaceResolver(Document)}.
+     * 
+     * @param document
+     *            the document whose namespace declarations are resolved
+     * @return the cached resolver
+     */
+    public static XmlNamespaceResolver forDocument(Document document) {
+        XmlNamespaceResolver resolver = (XmlNamespaceResolver) document
+                .getUserData(USER_DATA_KEY);
+        if (resolver == null) {
+            resolver = new XmlNamespaceResolver(document);
+            document.setUserData(USER_DATA_KEY, resolver, null);
+        }
+        return resolver;
     }
 
     private void extractNamespaces(Node node) {
@@ -72,4 +104,25 @@ public class XmlNamespaceResolver implements NamespaceContext {
     public Iterator getPrefixes(String namespaceURI) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Resolvers are equal if they map the same prefixes to the same URLs, so
+     * they can be used as part of a cache key for compiled XPath expressions.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof XmlNamespaceResolver)) {
+            return false;
+        }
+        XmlNamespaceResolver other = (XmlNamespaceResolver) obj;
+        return nsToUrl.equals(other.nsToUrl) && urlToNs.equals(other.urlToNs);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
 }
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Aggregates numeric attribute values of an XML document in a single StAX
+ * pass, without building a DOM. Memory consumption only depends on the nesting
+ * depth of the document, not on its size.
+ * <p>
+ * Elements are selected by a restricted path expression: an absolute location
+ * path consisting of element name steps separated by <code>/</code> (child)
+ * or <code>//</code> (descendant), e.g. <code>/BillingDetails/Subscriptions
+ * //PriceModelCosts</code>. A step is either a local element name or
+ * <code>*</code>. Namespace prefixes, predicates, attribute steps and
+ * functions are not supported.
+ *
+ */
+public class XmlStreamAggregator {
+
+    private static final String WILDCARD = "*";
+
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+
+    private final String[] steps;
+
+    private final boolean[] descendant;
+
+    /**
+     * Result of an aggregation.
+     */
+    public static class Aggregate {
+
+        private final long count;
+        private final long valueCount;
+        private final double sum;
+
+        Aggregate(long count, long valueCount, double sum) {
+            this.count = count;
+            this.valueCount = valueCount;
+            this.sum = sum;
+        }
+
+        /**
+         * @return the number of elements matching the path
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the number of matching elements carrying the aggregated
+         *         attribute
+         */
+        public long getValueCount() {
+            return valueCount;
+        }
+
+        /**
+         * @return the sum of the attribute values, <code>NaN</code> if one of
+         *         the values is not a number (as with XPath
+         *         <code>sum()</code>)
+         */
+        public double getSum() {
+            return sum;
+        }
+    }
+
+    /**
+     * Compiles the given path expression.
+     *
+     * @param path
+     *            the restricted path expression
+     * @throws IllegalArgumentException
+     *             if the path is not within the supported subset
+     */
+    public XmlStreamAggregator(String path) {
+        if (path == null || !path.startsWith("/")) {
+            throw new IllegalArgumentException("Path must be absolute: "
+                    + path);
+        }
+        List<String> names = new ArrayList<String>();
+        List<Boolean> axes = new ArrayList<Boolean>();
+        int pos = 0;
+        while (pos < path.length()) {
+            boolean isDescendant = path.startsWith("//", pos);
+            pos += isDescendant ? 2 : 1;
+            int end = path.indexOf('/', pos);
+            if (end < 0) {
+                end = path.length();
+            }
+            String name = path.substring(pos, end);
+            if (!isSupportedStep(name)) {
+                throw new IllegalArgumentException("Unsupported path step '"
+                        + name + "' in " + path);
+            }
+            names.add(name);
+            axes.add(Boolean.valueOf(isDescendant));
+            pos = end;
+        }
+        steps = names.toArray(new String[names.size()]);
+        descendant = new boolean[axes.size()];
+        for (int i = 0; i < descendant.length; i++) {
+            descendant[i] = axes.get(i).booleanValue();
+        }
+    }
+
+    /**
+     * Counts the elements matching the path and sums up the given attribute
+     * of these elements. The stream is not closed.
+     *
+     * @param inputStream
+     *            the XML document
+     * @param attributeName
+     *            the local name of the attribute to sum up, or
+     *            <code>null</code> to only count the elements
+     * @return the aggregate
+     * @throws XMLStreamException
+     *             Thrown in case the document cannot be parsed.
+     */
+    public Aggregate aggregate(InputStream inputStream, String attributeName)
+            throws XMLStreamException {
+        long count = 0;
+        long valueCount = 0;
+        double sum = 0;
+        List<String> stack = new ArrayList<String>();
+        XMLStreamReader reader = INPUT_FACTORY
+                .createXMLStreamReader(inputStream);
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    stack.add(reader.getLocalName());
+                    if (matches(steps.length - 1, stack, stack.size() - 1)) {
+                        count++;
+                        if (attributeName != null) {
+                            String value = reader.getAttributeValue(null,
+                                    attributeName);
+                            if (value != null) {
+                                valueCount++;
+                                sum += toNumber(value);
+                            }
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    stack.remove(stack.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return new Aggregate(count, valueCount, sum);
+    }
+
+    /**
+     * Checks whether step <code>step</code> and all steps before it match the
+     * element at <code>depth</code> and its ancestors.
+     */
+    private boolean matches(int step, List<String> stack, int depth) {
+        String name = steps[step];
+        if (!WILDCARD.equals(name) && !name.equals(stack.get(depth))) {
+            return false;
+        }
+        if (step == 0) {
+            return descendant[0] || depth == 0;
+        }
+        if (!descendant[step]) {
+            return depth > 0 && matches(step - 1, stack, depth - 1);
+        }
+        for (int ancestor = depth - 1; ancestor >= 0; ancestor--) {
+            if (matches(step - 1, stack, ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSupportedStep(String name) {
+        if (WILDCARD.equals(name)) {
+            return true;
+        }
+        if (name.length() == 0
+                || !Character.isLetter(name.charAt(0)) && name.charAt(0) != '_') {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-'
+                    && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts the value like the XPath <code>number()</code> function: only
+     * an optional minus sign followed by digits with an optional decimal
+     * point, surrounded by optional whitespace, is a number. Other values like
+     * exponents, type suffixes, hexadecimal values or <code>Infinity</code>
+     * result in <code>NaN</code>.
+     */
+    static double toNumber(String value) {
+        int start = 0;
+        int end = value.length();
+        while (start < end && isXmlWhitespace(value.charAt(start))) {
+            start++;
+        }
+        while (end > start && isXmlWhitespace(value.charAt(end - 1))) {
+            end--;
+        }
+        int i = start;
+        if (i < end && value.charAt(i) == '-') {
+            i++;
+        }
+        boolean digits = false;
+        boolean point = false;
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+        return Double.parseDouble(value.substring(start, end));
+    }
+
+    private static boolean isXmlWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES,
+                Boolean.FALSE);
+        return factory;
+    }
+}
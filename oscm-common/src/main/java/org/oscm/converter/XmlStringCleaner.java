@@ -8,57 +8,326 @@
 
 package org.oscm.converter;
 
-import java.util.regex.Pattern;
-
 /**
  * Utility class for removing invalid character (such as '\u000b' - see Bug
  * 9711) from an XML string.
  * <p>
  * Sample: \uD83F\uDFFE-\uD83F\uDFFF is the code point notation (double byte
  * character) for \u1FFFE-\u1FFFF
+ * <p>
+ * The string is scanned once per code point against a precomputed
+ * classification table; strings which do not contain anything to remove are
+ * returned as they are. {@link XmlCleaningReader} and
+ * {@link XmlCleaningWriter} apply the same cleaning to character streams.
  * 
  * @author weiser
  * 
  */
 public class XmlStringCleaner {
 
-    final static Pattern INVALID_CHARACTERS = Pattern
-            .compile("<char\\scode=\"#.*\"/>");
+    /**
+     * Start of the elements written by the XML encoder for characters which
+     * cannot be represented in XML, e.g. <code>&lt;char code="#B"/&gt;</code>.
+     */
+    private static final String CHAR_ELEMENT_START = "<char";
+
+    private static final String CHAR_ELEMENT_CODE = "code=\"#";
+
+    private static final String CHAR_ELEMENT_END = "\"/>";
 
     /**
-     * All character that are not part of the character range of the XML
-     * definition ((http://www.w3.org/TR/xml/#charsets)
+     * Length of <code>&lt;char code="#</code>, the fixed part of a char
+     * element.
      */
-    final static Pattern INVALID_XML_CHARS = Pattern
-            .compile("[^\\u0009\\u000A\\u000D\\u0020-\\uD7FF\\uE000-\\uFFFD\uD800\uDC00-\uDBFF\uDFFF]");
+    static final int CHAR_ELEMENT_PREFIX_LENGTH = CHAR_ELEMENT_START.length()
+            + 1 + CHAR_ELEMENT_CODE.length();
 
     /**
-     * All discouraged characters that should not be used within XML
-     * (http://www.w3.org/TR/xml/#charsets)
+     * Bit set over the basic multilingual plane, a set bit marks a character
+     * to be removed: all characters that are not part of the character range
+     * of the XML definition, all discouraged characters
+     * (http://www.w3.org/TR/xml/#charsets) and all surrogates, as only
+     * complete surrogate pairs are kept.
      */
-    final static Pattern DISCOURAGED_XML_CHARS = Pattern
-            .compile("[\\u007F-\\u0084\\u0086-\\u009F\\uFDD0-\\uFDEF"
-                    + "\uD83F\uDFFE-\uD83F\uDFFF" + "\uD87F\uDFFE-\uD87F\uDFFF"
-                    + "\uD8BF\uDFFE-\uD8BF\uDFFF" + "\uD8FF\uDFFE-\uD8FF\uDFFF"
-                    + "\uD93F\uDFFE-\uD93F\uDFFF" + "\uD97F\uDFFE-\uD97F\uDFFF"
-                    + "\uD9BF\uDFFE-\uD9BF\uDFFF" + "\uD9FF\uDFFE-\uD9FF\uDFFF"
-                    + "\uDA3F\uDFFE-\uDA3F\uDFFF" + "\uDA7F\uDFFE-\uDA7F\uDFFF"
-                    + "\uDABF\uDFFE-\uDABF\uDFFF" + "\uDAFF\uDFFE-\uDAFF\uDFFF"
-                    + "\uDB3F\uDFFE-\uDB3F\uDFFF" + "\uDB7F\uDFFE-\uDB7F\uDFFF"
-                    + "\uDBBF\uDFFE-\uDBBF\uDFFF"
-                    + "\uDBFF\uDFFE-\uDBFF\uDFFF]");
+    private static final long[] REMOVED_BMP_CHARS = createRemovedBmpChars();
 
     /**
      * Removes all characters from the passed XML string that are not allowed
      * per definition and discouraged to be used.
-     * 
+     *
      * @param toClean
      *            the XML string to clean
      * @return the cleaned XML string
      */
     public static String cleanString(String toClean) {
-        String tmp = INVALID_XML_CHARS.matcher(toClean).replaceAll("");
-        tmp = DISCOURAGED_XML_CHARS.matcher(tmp).replaceAll("");
-        return INVALID_CHARACTERS.matcher(tmp).replaceAll("");
+        return removeCharElements(removeCharacters(toClean));
+    }
+
+    /**
+     * Checks whether the given code point is invalid or discouraged in XML.
+     * Surrogate code units are always reported as removed.
+     */
+    static boolean isRemoved(int codePoint) {
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return (REMOVED_BMP_CHARS[codePoint >>> 6] & (1L << codePoint)) != 0;
+        }
+        // the last two code points of each supplementary plane
+        return (codePoint & 0xFFFE) == 0xFFFE;
+    }
+
+    private static String removeCharacters(String toClean) {
+        final int length = toClean.length();
+        int i = 0;
+        int width = 0;
+        // fast path: look for the first character to remove
+        while (i < length) {
+            width = keptWidth(toClean, i, length);
+            if (width <= 0) {
+                break;
+            }
+            i += width;
+        }
+        if (i == length) {
+            return toClean;
+        }
+        char[] result = new char[length];
+        toClean.getChars(0, i, result, 0);
+        int count = i;
+        i -= width;
+        while (i < length) {
+            width = keptWidth(toClean, i, length);
+            if (width > 0) {
+                result[count++] = toClean.charAt(i);
+                if (width == 2) {
+                    result[count++] = toClean.charAt(i + 1);
+                }
+                i += width;
+            } else {
+                i -= width;
+            }
+        }
+        return new String(result, 0, count);
+    }
+
+    /**
+     * Returns the number of chars of the code point at the given index if it
+     * is kept, or the negative number of chars if it is removed.
+     */
+    private static int keptWidth(String s, int index, int length) {
+        char c = s.charAt(index);
+        if (Character.isHighSurrogate(c) && index + 1 < length
+                && Character.isLowSurrogate(s.charAt(index + 1))) {
+            return isRemoved(Character.toCodePoint(c, s.charAt(index + 1))) ? -2
+                    : 2;
+        }
+        return isRemoved(c) ? -1 : 1;
+    }
+
+    /**
+     * Removes all char elements, each reaching from
+     * <code>&lt;char code="#</code> up to the last <code>"/&gt;</code> of the
+     * same line.
+     */
+    static String removeCharElements(String s) {
+        int start = s.indexOf(CHAR_ELEMENT_START);
+        if (start < 0) {
+            return s;
+        }
+        StringBuilder result = null;
+        int copied = 0;
+        while (start >= 0) {
+            int end = matchCharElement(s, start);
+            if (end < 0) {
+                start = s.indexOf(CHAR_ELEMENT_START, start + 1);
+                continue;
+            }
+            if (result == null) {
+                result = new StringBuilder(s.length());
+            }
+            result.append(s, copied, start);
+            copied = end;
+            start = s.indexOf(CHAR_ELEMENT_START, end);
+        }
+        if (result == null) {
+            return s;
+        }
+        return result.append(s, copied, s.length()).toString();
+    }
+
+    /**
+     * Returns the end index of the char element starting at the given index
+     * or -1 if there is none.
+     */
+    private static int matchCharElement(String s, int start) {
+        int bodyStart = start + CHAR_ELEMENT_PREFIX_LENGTH;
+        if (bodyStart > s.length()
+                || !isPrefixChar(CHAR_ELEMENT_START.length(),
+                        s.charAt(start + CHAR_ELEMENT_START.length()))
+                || !s.startsWith(CHAR_ELEMENT_CODE,
+                        start + CHAR_ELEMENT_START.length() + 1)) {
+            return -1;
+        }
+        int lineEnd = bodyStart;
+        while (lineEnd < s.length() && !isLineTerminator(s.charAt(lineEnd))) {
+            lineEnd++;
+        }
+        int end = s.lastIndexOf(CHAR_ELEMENT_END,
+                lineEnd - CHAR_ELEMENT_END.length());
+        if (end < bodyStart) {
+            return -1;
+        }
+        return end + CHAR_ELEMENT_END.length();
+    }
+
+    /**
+     * Checks whether the given char is valid at the given position of
+     * <code>&lt;char code="#</code>, the position of the blank accepts any
+     * white space.
+     */
+    static boolean isPrefixChar(int position, char c) {
+        int blank = CHAR_ELEMENT_START.length();
+        if (position < blank) {
+            return CHAR_ELEMENT_START.charAt(position) == c;
+        }
+        if (position == blank) {
+            return isWhitespace(c);
+        }
+        return CHAR_ELEMENT_CODE.charAt(position - blank - 1) == c;
+    }
+
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B'
+                || c == '\f' || c == '\r';
+    }
+
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028'
+                || c == '\u2029';
+    }
+
+    private static long[] createRemovedBmpChars() {
+        long[] table = new long[(Character.MAX_VALUE + 1) >>> 6];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            boolean valid = c == 0x9 || c == 0xA || c == 0xD
+                    || c >= 0x20 && c <= 0xD7FF || c >= 0xE000 && c <= 0xFFFD;
+            boolean discouraged = c >= 0x7F && c <= 0x84 || c >= 0x86
+                    && c <= 0x9F || c >= 0xFDD0 && c <= 0xFDEF;
+            if (!valid || discouraged) {
+                table[c >>> 6] |= 1L << c;
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Incremental form of {@link XmlStringCleaner#cleanString(String)} used by
+     * the cleaning reader and writer. Characters are passed in one by one, the
+     * cleaned characters are collected in {@link #output}. Only a potential
+     * char element is held back until the end of its line. Not thread-safe.
+     */
+    static class StreamCleaner {
+
+        final StringBuilder output = new StringBuilder();
+
+        private final StringBuilder candidate = new StringBuilder();
+
+        private char pendingHighSurrogate;
+
+        void accept(char c) {
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    if (!isRemoved(Character.toCodePoint(high, c))) {
+                        append(high);
+                        append(c);
+                    }
+                    return;
+                }
+                // a lone high surrogate is dropped
+            }
+            if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (!isRemoved(c)) {
+                append(c);
+            }
+        }
+
+        void accept(char[] chars, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                accept(chars[i]);
+            }
+        }
+
+        void accept(String chars, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                accept(chars.charAt(i));
+            }
+        }
+
+        /**
+         * Signals the end of the input and releases all held back characters.
+         */
+        void finish() {
+            pendingHighSurrogate = 0;
+            if (candidate.length() > CHAR_ELEMENT_PREFIX_LENGTH) {
+                output.append(removeCharElements(candidate.toString()));
+            } else {
+                output.append(candidate);
+            }
+            candidate.setLength(0);
+        }
+
+        private void append(char c) {
+            if (candidate.length() == 0) {
+                if (c == '<') {
+                    candidate.append(c);
+                } else {
+                    output.append(c);
+                }
+                return;
+            }
+            int position = candidate.length();
+            candidate.append(c);
+            if (position < CHAR_ELEMENT_PREFIX_LENGTH) {
+                if (!isPrefixChar(position, c)) {
+                    release();
+                }
+            } else if (isLineTerminator(c)) {
+                endOfLine(c);
+            }
+        }
+
+        /**
+         * The candidate is no char element; emit its first character and
+         * rescan the rest.
+         */
+        private void release() {
+            String rest = candidate.substring(1);
+            candidate.setLength(0);
+            output.append('<');
+            for (int i = 0; i < rest.length(); i++) {
+                append(rest.charAt(i));
+            }
+        }
+
+        private void endOfLine(char terminator) {
+            String line = candidate.substring(0, candidate.length() - 1);
+            candidate.setLength(0);
+            boolean continued = isWhitespace(terminator)
+                    && line.endsWith(CHAR_ELEMENT_START);
+            if (continued) {
+                // a char element may start right at the end of the line
+                line = line.substring(0,
+                        line.length() - CHAR_ELEMENT_START.length());
+            }
+            output.append(removeCharElements(line));
+            if (continued) {
+                for (int i = 0; i < CHAR_ELEMENT_START.length(); i++) {
+                    append(CHAR_ELEMENT_START.charAt(i));
+                }
+            }
+            append(terminator);
+        }
     }
 }
@@ -79,6 +79,25 @@ public class AESEncrypter {
             throw new RuntimeException(e);
         }
 
+        return encryptBytes(decrypted);
+    }
+
+    /**
+     * Encrypts the given bytes based on a shared secret.
+     *
+     * @param decrypted
+     *            the bytes to encrypt
+     * @return the iv and encrypted bytes as Base64 separated with ':'.
+     * @throws GeneralSecurityException
+     *             on any problem during encryption
+     */
+    public static String encryptBytes(byte[] decrypted)
+            throws GeneralSecurityException {
+
+        if (decrypted == null) {
+            return null;
+        }
+
         byte[] iv = new byte[IV_BYTES];
         new SecureRandom().nextBytes(iv);
         IvParameterSpec ivSpec = new IvParameterSpec(iv);
@@ -106,6 +125,24 @@ public class AESEncrypter {
             return null;
         }
 
+        return new String(decryptBytes(encrypted), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decrypts a given text into the original bytes.
+     *
+     * @param encrypted
+     *            the encrypted text. optionally leaded by the iv and separated
+     *            with ':'.
+     * @return the decrypted bytes
+     */
+    public static byte[] decryptBytes(String encrypted)
+            throws GeneralSecurityException {
+
+        if (encrypted == null) {
+            return null;
+        }
+
         byte[] iv;
         byte[] decoded;
         Cipher cipher;
@@ -127,7 +164,7 @@ public class AESEncrypter {
                 cipher.init(Cipher.DECRYPT_MODE, key);
             }
 
-            return new String(cipher.doFinal(decoded), StandardCharsets.UTF_8);
+            return cipher.doFinal(decoded);
         } catch (BadPaddingException exc) {
             LOG.logError(Log4jLogger.SYSTEM_LOG, exc,
                     LogMessageIdentifier.ERROR_BAD_PASSWORD);
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.AccessType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Caches access tokens per tenant and access type. The lifetime of a token is taken from the
+ * 'exp' claim if the token is a JWT, the default lifetime is used otherwise. A token is given up a
+ * safety margin before it expires and refreshed once the given share of its lifetime has passed.
+ * Only one request per tenant and access type loads a new token, concurrent callers use the
+ * previous token while it is valid or wait for the result of the running request. Tokens are
+ * only valid for the oscm-identity instance issuing them, so every {@link IdentityClientFactory}
+ * owns its own cache.
+ */
+public class AccessTokenCache {
+
+  private static final Pattern EXP_CLAIM = Pattern.compile("\"exp\"\\s*:\\s*(\\d+)");
+
+  private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Key, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+  private final long defaultLifetime;
+  private final long safetyMargin;
+  private final double refreshRatio;
+
+  /** Creates a cache with a default lifetime of 5 minutes and a safety margin of 30 seconds */
+  public AccessTokenCache() {
+    this(TimeUnit.MINUTES.toMillis(5), TimeUnit.SECONDS.toMillis(30), 0.8);
+  }
+
+  /**
+   * @param defaultLifetime lifetime in milliseconds of tokens without 'exp' claim
+   * @param safetyMargin time in milliseconds before expiry at which a token is no longer used
+   * @param refreshRatio share of the usable lifetime after which a token is refreshed, between 0
+   *     and 1
+   */
+  public AccessTokenCache(long defaultLifetime, long safetyMargin, double refreshRatio) {
+    if (defaultLifetime <= 0 || safetyMargin < 0 || refreshRatio <= 0 || refreshRatio > 1) {
+      throw new IllegalArgumentException("Invalid token cache settings");
+    }
+    this.defaultLifetime = defaultLifetime;
+    this.safetyMargin = safetyMargin;
+    this.refreshRatio = refreshRatio;
+  }
+
+  /** Loads a new access token from oscm-identity */
+  interface TokenLoader {
+    String load() throws IdentityClientException;
+  }
+
+  /**
+   * Returns the cached access token for the given tenant and access type, loading a new one if
+   * there is none or it is due for refresh.
+   *
+   * @param tenantId id of the tenant
+   * @param accessType type of access of the token
+   * @param loader requests a new token
+   * @return access token
+   * @throws IdentityClientException if a new token is needed and could not be loaded
+   */
+  String getAccessToken(String tenantId, AccessType accessType, TokenLoader loader)
+      throws IdentityClientException {
+
+    Key key = new Key(tenantId, accessType);
+    Entry entry = entries.get(key);
+    long now = now();
+    if (entry != null && now < entry.refreshAt) {
+      return entry.token;
+    }
+
+    CompletableFuture<Entry> future = new CompletableFuture<>();
+    CompletableFuture<Entry> running = loading.putIfAbsent(key, future);
+    if (running == null) {
+      return load(key, loader, future, entry);
+    }
+    if (entry != null && now < entry.expiresAt) {
+      return entry.token;
+    }
+    return await(running).token;
+  }
+
+  /**
+   * Removes the cached token of the given tenant and access type, e.g. after it has been rejected.
+   *
+   * @param tenantId id of the tenant
+   * @param accessType type of access of the token
+   */
+  public void invalidate(String tenantId, AccessType accessType) {
+    entries.remove(new Key(tenantId, accessType));
+  }
+
+  /**
+   * Removes the cached token of the given tenant and access type if it is the given token. Callers
+   * rejected with the same token therefore do not discard a token loaded in the meantime.
+   *
+   * @param tenantId id of the tenant
+   * @param accessType type of access of the token
+   * @param token the rejected token, null removes any cached token
+   */
+  public void invalidate(String tenantId, AccessType accessType, String token) {
+    entries.computeIfPresent(
+        new Key(tenantId, accessType),
+        (key, entry) -> token == null || token.equals(entry.token) ? null : entry);
+  }
+
+  /**
+   * Returns the cached token of the given tenant and access type without loading one
+   *
+   * @param tenantId id of the tenant
+   * @param accessType type of access of the token
+   * @return cached token or null if there is none
+   */
+  String getCachedToken(String tenantId, AccessType accessType) {
+    Entry entry = entries.get(new Key(tenantId, accessType));
+    return entry == null ? null : entry.token;
+  }
+
+  /** Removes all cached tokens */
+  public void clear() {
+    entries.clear();
+  }
+
+  long now() {
+    return System.currentTimeMillis();
+  }
+
+  private String load(Key key, TokenLoader loader, CompletableFuture<Entry> future, Entry previous)
+      throws IdentityClientException {
+    try {
+      String token = loader.load();
+      Entry entry = newEntry(token);
+      if (entry != null) {
+        entries.put(key, entry);
+      } else {
+        entries.remove(key);
+        entry = new Entry(token, 0, 0);
+      }
+      future.complete(entry);
+      return token;
+    } catch (IdentityClientException | RuntimeException e) {
+      future.completeExceptionally(e);
+      if (previous != null && now() < previous.expiresAt) {
+        // a failed proactive refresh, the previous token is still valid
+        return previous.token;
+      }
+      throw e;
+    } finally {
+      loading.remove(key, future);
+    }
+  }
+
+  private Entry await(CompletableFuture<Entry> running) throws IdentityClientException {
+    try {
+      return running.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IdentityClientException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IdentityClientException) {
+        throw (IdentityClientException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IdentityClientException(cause);
+    }
+  }
+
+  /** Returns the cache entry for the given token or null if it must not be cached */
+  private Entry newEntry(String token) {
+    if (token == null) {
+      return null;
+    }
+    long now = now();
+    long expiry = getExpiry(token);
+    long usable = (expiry > 0 ? expiry - now : defaultLifetime) - safetyMargin;
+    if (usable <= 0) {
+      return null;
+    }
+    return new Entry(token, now + (long) (usable * refreshRatio), now + usable);
+  }
+
+  /**
+   * Returns the expiry time in milliseconds given by the 'exp' claim of a JWT or 0 if the token
+   * is no JWT or has no such claim.
+   */
+  static long getExpiry(String token) {
+    int start = token.indexOf('.');
+    int end = token.indexOf('.', start + 1);
+    if (start < 0 || end < 0) {
+      return 0;
+    }
+    String payload;
+    try {
+      payload =
+          new String(
+              Base64.getUrlDecoder().decode(token.substring(start + 1, end)),
+              StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      return 0;
+    }
+    Matcher matcher = EXP_CLAIM.matcher(payload);
+    if (!matcher.find()) {
+      return 0;
+    }
+    try {
+      return TimeUnit.SECONDS.toMillis(Long.parseLong(matcher.group(1)));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static class Key {
+
+    private final String tenantId;
+    private final AccessType accessType;
+
+    Key(String tenantId, AccessType accessType) {
+      this.tenantId = tenantId;
+      this.accessType = accessType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Objects.equals(tenantId, other.tenantId) && accessType == other.accessType;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(tenantId) * 31 + Objects.hashCode(accessType);
+    }
+  }
+
+  private static class Entry {
+
+    private final String token;
+    private final long refreshAt;
+    private final long expiresAt;
+
+    Entry(String token, long refreshAt, long expiresAt) {
+      this.token = token;
+      this.refreshAt = refreshAt;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -7,23 +7,45 @@
  *******************************************************************************/
 package org.oscm.identity;
 
+import org.oscm.identity.IdentityEndpoints.Endpoint;
 import org.oscm.identity.exception.IdentityClientException;
 import org.oscm.identity.model.AccessToken;
 import org.oscm.identity.model.AccessType;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
 
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Client for accessing oscm-identity using client credentials flow. it requires from the client to
  * get access token first, validate it and then request wanted endpoint. All necessary settings are
- * stored in {@link IdentityConfiguration} object and it requires only id of the tenant.
+ * stored in {@link IdentityConfiguration} object and it requires only id of the tenant. Access
+ * tokens are shared through the {@link AccessTokenCache} of the {@link IdentityClientFactory} until
+ * shortly before they expire. A request rejected because of its access token removes the token
+ * from the cache and is repeated once with a new token.
  */
 public class ApiIdentityClient extends IdentityClient {
 
+  private static final String EXPIRED_TOKEN = "Access token has expired.";
+
+  AccessTokenCache tokenCache;
+
   public ApiIdentityClient(IdentityConfiguration configuration) {
-    super(configuration);
+    this(configuration, IdentityClientFactory.getDefault());
+  }
+
+  public ApiIdentityClient(IdentityConfiguration configuration, IdentityClientFactory factory) {
+    super(configuration, factory);
+    this.tokenCache = factory.getTokenCache();
   }
 
   @Override
@@ -36,19 +58,158 @@ public class ApiIdentityClient extends IdentityClient {
 
     validate(configuration);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.buildGetAccessTokenUrl();
+    return tokenCache.getAccessToken(
+        configuration.getTenantId(), accessType, () -> requestAccessToken(accessType));
+  }
+
+  @Override
+  public UserInfo getUser(String userId) throws IdentityClientException {
+    return withValidToken(() -> super.getUser(userId));
+  }
+
+  @Override
+  public Map<String, IdentityCallResult<UserInfo>> getUsers(
+      Collection<String> userIds, Executor executor, int parallelism)
+      throws IdentityClientException {
+
+    String usedToken = cachedToken();
+    Map<String, IdentityCallResult<UserInfo>> results =
+        super.getUsers(userIds, executor, parallelism);
+
+    List<String> retry = new ArrayList<>();
+    for (Map.Entry<String, IdentityCallResult<UserInfo>> result : results.entrySet()) {
+      Exception exception = result.getValue().getException();
+      if (exception instanceof IdentityClientException
+          && isRejectedToken((IdentityClientException) exception)) {
+        retry.add(result.getKey());
+      }
+    }
+    if (!retry.isEmpty()) {
+      tokenCache.invalidate(configuration.getTenantId(), AccessType.IDP, usedToken);
+      results.putAll(super.getUsers(retry, executor, parallelism));
+    }
+    return results;
+  }
+
+  @Override
+  public Response updateUser(UserInfo user) throws IdentityClientException {
+    return withValidToken(() -> super.updateUser(user));
+  }
+
+  @Override
+  public GroupInfo createGroup(String groupName, String groupDescription)
+      throws IdentityClientException {
+    return withValidToken(() -> super.createGroup(groupName, groupDescription));
+  }
+
+  @Override
+  public Set<UserInfo> getGroupMembers(String groupId) throws IdentityClientException {
+    return withValidToken(() -> super.getGroupMembers(groupId));
+  }
+
+  @Override
+  public long forEachGroupMember(String groupId, Consumer<? super UserInfo> consumer)
+      throws IdentityClientException {
+    return withValidToken(() -> super.forEachGroupMember(groupId, consumer));
+  }
+
+  @Override
+  public void addGroupMember(String userId, String groupId) throws IdentityClientException {
+    withValidToken(
+        () -> {
+          super.addGroupMember(userId, groupId);
+          return null;
+        });
+  }
+
+  @Override
+  public Set<GroupInfo> getGroups() throws IdentityClientException {
+    return withValidToken(super::getGroups);
+  }
+
+  @Override
+  public long forEachGroup(Consumer<? super GroupInfo> consumer) throws IdentityClientException {
+    return withValidToken(() -> super.forEachGroup(consumer));
+  }
+
+  @Override
+  public void deleteGroup(String groupId) throws IdentityClientException {
+    withValidToken(
+        () -> {
+          super.deleteGroup(groupId);
+          return null;
+        });
+  }
+
+  /** Request authorized with the access token of the client */
+  private interface Request<T> {
+    T execute() throws IdentityClientException;
+  }
+
+  /**
+   * Executes the given request. If oscm-identity rejects the used access token, the token is
+   * removed from the cache and the request is repeated once with a new token.
+   */
+  private <T> T withValidToken(Request<T> request) throws IdentityClientException {
+
+    String usedToken = cachedToken();
+    try {
+      return request.execute();
+    } catch (IdentityClientException exception) {
+      if (!isRejectedToken(exception)) {
+        throw exception;
+      }
+      tokenCache.invalidate(configuration.getTenantId(), AccessType.IDP, usedToken);
+      return request.execute();
+    }
+  }
+
+  private String cachedToken() {
+    return tokenCache.getCachedToken(configuration.getTenantId(), AccessType.IDP);
+  }
+
+  private static boolean isRejectedToken(IdentityClientException exception) {
+    return exception.getStatus() == Response.Status.UNAUTHORIZED.getStatusCode()
+        || EXPIRED_TOKEN.equals(exception.getMessage());
+  }
+
+  /**
+   * Requests a new access token from oscm-identity, bypassing the cache
+   *
+   * @param accessType type of access for requested access token
+   * @return access token
+   * @throws IdentityClientException
+   */
+  String requestAccessToken(AccessType accessType) throws IdentityClientException {
+
+    Endpoint endpoint = endpoints().token();
 
     AccessToken accessToken = new AccessToken();
     accessToken.setAccessType(accessType);
 
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .post(Entity.entity(accessToken, MediaType.APPLICATION_JSON));
+    AccessToken token =
+        call(
+            IdentityOperation.ACCESS_TOKEN,
+            false,
+            timeout -> {
+              long start = System.nanoTime();
+              Response response =
+                  IdentityClientHelper.send(
+                      IdentityOperation.ACCESS_TOKEN,
+                      start,
+                      () ->
+                          withTimeout(
+                                  endpoint.getTarget().request(MediaType.APPLICATION_JSON),
+                                  timeout)
+                              .post(Entity.entity(accessToken, MediaType.APPLICATION_JSON)));
 
-    AccessToken token = IdentityClientHelper.handleResponse(response, AccessToken.class, url);
+              return IdentityClientHelper.handleResponse(
+                  response,
+                  AccessToken.class,
+                  endpoint.getUrl(),
+                  IdentityOperation.ACCESS_TOKEN,
+                  start);
+            });
 
     return token.getAccessToken();
   }
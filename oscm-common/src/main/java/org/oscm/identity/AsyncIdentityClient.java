@@ -0,0 +1,114 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import javax.ws.rs.core.Response;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous view on an {@link IdentityClient}. Every call runs the corresponding blocking call
+ * on the given executor, so independent calls overlap. A failed call completes its future
+ * exceptionally with the {@link IdentityClientException} the blocking call would have thrown,
+ * wrapped in a {@link CompletionException} when obtained via {@link CompletableFuture#join()}.
+ * Within a container the executor should be a managed executor service.
+ */
+public class AsyncIdentityClient {
+
+  private final IdentityClient identityClient;
+  private final Executor executor;
+
+  /**
+   * @param identityClient client executing the calls
+   * @param executor executor running the calls
+   */
+  public AsyncIdentityClient(IdentityClient identityClient, Executor executor) {
+    this.identityClient = identityClient;
+    this.executor = executor;
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#getUser(String)} */
+  public CompletableFuture<UserInfo> getUser(String userId) {
+    return submit(() -> identityClient.getUser(userId));
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#updateUser(UserInfo)} */
+  public CompletableFuture<Response> updateUser(UserInfo user) {
+    return submit(() -> identityClient.updateUser(user));
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#createGroup(String, String)} */
+  public CompletableFuture<GroupInfo> createGroup(String groupName, String groupDescription) {
+    return submit(() -> identityClient.createGroup(groupName, groupDescription));
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#getGroupMembers(String)} */
+  public CompletableFuture<Set<UserInfo>> getGroupMembers(String groupId) {
+    return submit(() -> identityClient.getGroupMembers(groupId));
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#addGroupMember(String, String)} */
+  public CompletableFuture<Void> addGroupMember(String userId, String groupId) {
+    return submit(
+        () -> {
+          identityClient.addGroupMember(userId, groupId);
+          return null;
+        });
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#getGroups()} */
+  public CompletableFuture<Set<GroupInfo>> getGroups() {
+    return submit(identityClient::getGroups);
+  }
+
+  /** Asynchronous variant of {@link IdentityClient#deleteGroup(String)} */
+  public CompletableFuture<Void> deleteGroup(String groupId) {
+    return submit(
+        () -> {
+          identityClient.deleteGroup(groupId);
+          return null;
+        });
+  }
+
+  /**
+   * Returns the {@link IdentityClientException} that caused the given failure, if any
+   *
+   * @param throwable failure of a future returned by this client
+   * @return the client exception or null if the call failed for another reason
+   */
+  public static IdentityClientException getClientException(Throwable throwable) {
+    Throwable cause = throwable;
+    while (cause instanceof CompletionException && cause.getCause() != null) {
+      cause = cause.getCause();
+    }
+    return cause instanceof IdentityClientException ? (IdentityClientException) cause : null;
+  }
+
+  private <T> CompletableFuture<T> submit(Call<T> call) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return call.call();
+          } catch (IdentityClientException e) {
+            throw new CompletionException(e);
+          }
+        },
+        executor);
+  }
+
+  /** Blocking identity client call */
+  private interface Call<T> {
+    T call() throws IdentityClientException;
+  }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+/**
+ * Circuit breaker guarding the calls of one operation of one tenant. After the configured number
+ * of consecutive failures it opens and rejects all calls. Once the open duration has elapsed, a
+ * single trial call is let through, which closes the breaker on success and opens it again on
+ * failure.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final int failureThreshold;
+  private final long openDuration;
+
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+  private boolean trialRunning;
+
+  /**
+   * @param failureThreshold number of consecutive failures opening the breaker
+   * @param openDuration time in milliseconds the breaker stays open
+   */
+  public CircuitBreaker(int failureThreshold, long openDuration) {
+    if (failureThreshold < 1 || openDuration <= 0) {
+      throw new IllegalArgumentException("Invalid circuit breaker settings");
+    }
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+  }
+
+  /**
+   * Checks if a call may be executed
+   *
+   * @param now current time in milliseconds
+   * @return true if the call may be executed, false if it has to fail fast
+   */
+  synchronized boolean tryAcquire(long now) {
+    switch (state) {
+      case CLOSED:
+        return true;
+      case OPEN:
+        if (now - openedAt < openDuration) {
+          return false;
+        }
+        state = State.HALF_OPEN;
+        trialRunning = true;
+        return true;
+      default:
+        if (trialRunning) {
+          return false;
+        }
+        trialRunning = true;
+        return true;
+    }
+  }
+
+  /** Records a call answered by oscm-identity */
+  synchronized void onSuccess() {
+    state = State.CLOSED;
+    failures = 0;
+    trialRunning = false;
+  }
+
+  /**
+   * Records a call failing because oscm-identity was unavailable
+   *
+   * @param now current time in milliseconds
+   */
+  synchronized void onFailure(long now) {
+    trialRunning = false;
+    if (state == State.HALF_OPEN || ++failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = now;
+      failures = 0;
+    }
+  }
+
+  /** Records a call that ended without a result telling anything about oscm-identity */
+  synchronized void onIgnored() {
+    trialRunning = false;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+}
@@ -0,0 +1,229 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Read-through cache for the groups of a tenant and the members of a group. Entries expire after
+ * their time to live, the least recently used entries are evicted once the maximum number of
+ * entries is reached. The cache is enabled for a client by setting it in the {@link
+ * IdentityConfiguration}, the client then invalidates the affected entries when it creates or
+ * deletes groups or adds members. Every caller receives an unmodifiable set of its own copies of
+ * the cached groups or users, so no caller sees the changes of another.
+ */
+public class GroupCache {
+
+  private final long groupsTimeToLive;
+  private final long membersTimeToLive;
+  private final int maxEntries;
+
+  private final Map<Key, Entry> entries;
+
+  /** Incremented by every invalidation, guarded by entries */
+  private long invalidations;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param groupsTimeToLive time in milliseconds the groups of a tenant are cached
+   * @param membersTimeToLive time in milliseconds the members of a group are cached
+   * @param maxEntries maximum number of cached group and member sets
+   */
+  public GroupCache(long groupsTimeToLive, long membersTimeToLive, int maxEntries) {
+    if (groupsTimeToLive <= 0 || membersTimeToLive <= 0 || maxEntries < 1) {
+      throw new IllegalArgumentException("Invalid group cache settings");
+    }
+    this.groupsTimeToLive = groupsTimeToLive;
+    this.membersTimeToLive = membersTimeToLive;
+    this.maxEntries = maxEntries;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /** Loads a set from oscm-identity */
+  interface Loader<T> {
+    Set<T> load() throws IdentityClientException;
+  }
+
+  Set<GroupInfo> getGroups(String tenantId, Loader<GroupInfo> loader)
+      throws IdentityClientException {
+    return get(new Key(tenantId, null), groupsTimeToLive, loader, IdentityClientHelper::copy);
+  }
+
+  Set<UserInfo> getGroupMembers(String tenantId, String groupId, Loader<UserInfo> loader)
+      throws IdentityClientException {
+    return get(new Key(tenantId, groupId), membersTimeToLive, loader, IdentityClientHelper::copy);
+  }
+
+  /**
+   * Removes the cached groups of the given tenant
+   *
+   * @param tenantId id of the tenant
+   */
+  public void invalidateGroups(String tenantId) {
+    remove(new Key(tenantId, null));
+  }
+
+  /**
+   * Removes the cached members of the given group
+   *
+   * @param tenantId id of the tenant
+   * @param groupId id of the group
+   */
+  public void invalidateGroupMembers(String tenantId, String groupId) {
+    remove(new Key(tenantId, groupId));
+  }
+
+  /**
+   * Removes all cached groups and members of the given tenant
+   *
+   * @param tenantId id of the tenant
+   */
+  public void invalidateTenant(String tenantId) {
+    synchronized (entries) {
+      invalidations++;
+      Iterator<Key> keys = entries.keySet().iterator();
+      while (keys.hasNext()) {
+        if (Objects.equals(tenantId, keys.next().tenantId)) {
+          keys.remove();
+        }
+      }
+    }
+  }
+
+  /** Removes all entries */
+  public void clear() {
+    synchronized (entries) {
+      invalidations++;
+      entries.clear();
+    }
+  }
+
+  /** @return number of requests answered from the cache */
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  /** @return number of requests passed to oscm-identity */
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  /** @return number of cached group and member sets, including expired ones */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  long now() {
+    return System.currentTimeMillis();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Set<T> get(Key key, long timeToLive, Loader<T> loader, UnaryOperator<T> copy)
+      throws IdentityClientException {
+
+    long now = now();
+    long loadedAfter;
+    Set<T> cached = null;
+    synchronized (entries) {
+      Entry entry = entries.get(key);
+      if (entry != null && now < entry.expiresAt) {
+        cached = (Set<T>) entry.value;
+      }
+      loadedAfter = invalidations;
+    }
+    if (cached != null) {
+      hits.incrementAndGet();
+      return copy(cached, copy);
+    }
+    misses.incrementAndGet();
+
+    Set<T> loaded = loader.load();
+    Set<T> value = copy(loaded, copy);
+    synchronized (entries) {
+      if (loadedAfter != invalidations) {
+        // the loaded set may predate a concurrent change
+        return Collections.unmodifiableSet(loaded);
+      }
+      entries.put(key, new Entry(value, now + timeToLive));
+      if (entries.size() > maxEntries) {
+        Iterator<Entry> eldest = entries.values().iterator();
+        eldest.next();
+        eldest.remove();
+      }
+    }
+    return Collections.unmodifiableSet(loaded);
+  }
+
+  /** Copies the elements of the given set, the cached elements are never handed out */
+  private static <T> Set<T> copy(Set<T> set, UnaryOperator<T> copy) {
+    Set<T> copies = new HashSet<>();
+    for (T element : set) {
+      copies.add(element == null ? null : copy.apply(element));
+    }
+    return Collections.unmodifiableSet(copies);
+  }
+
+  private void remove(Key key) {
+    synchronized (entries) {
+      invalidations++;
+      entries.remove(key);
+    }
+  }
+
+  private static class Key {
+
+    private final String tenantId;
+    private final String groupId;
+
+    Key(String tenantId, String groupId) {
+      this.tenantId = tenantId;
+      this.groupId = groupId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) o;
+      return Objects.equals(tenantId, other.tenantId) && Objects.equals(groupId, other.groupId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(tenantId) * 31 + Objects.hashCode(groupId);
+    }
+  }
+
+  private static class Entry {
+
+    private final Set<?> value;
+    private final long expiresAt;
+
+    Entry(Set<?> value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.exception.IdentityClientException.Reason;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Guards oscm-identity calls with deadlines, retries and circuit breakers. Every operation has a
+ * deadline covering all of its attempts. It is checked before every attempt, the remaining time is
+ * passed to the attempt as connect and read timeout, and the caller waits for the attempt at most
+ * the remaining time. An attempt exceeding it is interrupted, which also ends the wait for a pooled
+ * connection, and the call fails with {@link Reason#TIMEOUT}. The attempt itself is bounded by its
+ * socket timeouts, a response it still returns is closed. Idempotent GETs failing with a server
+ * error or without response are retried with exponential backoff and full jitter. A response body
+ * that breaks off while it is read counts as failure but is not retried, since parts of it may have
+ * been consumed. Each operation of each tenant has its own {@link CircuitBreaker}, while it is open
+ * calls fail fast with {@link Reason#CIRCUIT_OPEN}. The policy is enabled for a client by setting
+ * it in the {@link IdentityConfiguration}, clients sharing a policy share its breakers.
+ */
+public class IdentityCallPolicy {
+
+  /** Runs the attempts of all policies, so that callers can stop waiting at the deadline */
+  private static final ExecutorService ATTEMPTS =
+      Executors.newCachedThreadPool(
+          new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+              Thread thread = new Thread(runnable, "identity-call-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+
+  private final IdentityCallSettings settings;
+
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+  public IdentityCallPolicy(IdentityCallSettings settings) {
+    if (settings.getMaxRetries() < 0
+        || settings.getInitialBackoff() < 0
+        || settings.getMaxBackoff() < settings.getInitialBackoff()) {
+      throw new IllegalArgumentException("Invalid identity call settings");
+    }
+    this.settings = settings;
+  }
+
+  /** Single attempt of a call */
+  interface Attempt<T> {
+
+    /**
+     * @param timeout connect and read timeout in milliseconds of the attempt, 0 if unlimited
+     * @return result of the call
+     */
+    T run(int timeout) throws IdentityClientException;
+  }
+
+  /**
+   * Executes a call
+   *
+   * @param tenantId id of the tenant
+   * @param operation the called operation
+   * @param idempotentGet true if the call may be retried
+   * @param attempt executes a single attempt
+   * @return result of the call
+   * @throws IdentityClientException if the last attempt failed, the deadline was exceeded or the
+   *     circuit breaker is open
+   */
+  <T> T execute(
+      String tenantId, IdentityOperation operation, boolean idempotentGet, Attempt<T> attempt)
+      throws IdentityClientException {
+
+    CircuitBreaker breaker = getCircuitBreaker(tenantId, operation);
+    long deadline = now() + settings.getDeadline(operation);
+    int retries = idempotentGet ? settings.getMaxRetries() : 0;
+
+    for (int retry = 0; ; retry++) {
+      long remaining = deadline - now();
+      if (remaining <= 0) {
+        throw new IdentityClientException(
+            "Deadline of " + operation + " exceeded", Reason.TIMEOUT);
+      }
+      if (!breaker.tryAcquire(now())) {
+        throw new IdentityClientException(
+            "Circuit breaker of " + operation + " is open", Reason.CIRCUIT_OPEN);
+      }
+
+      IdentityClientException failure;
+      try {
+        T result = run(operation, attempt, remaining);
+        breaker.onSuccess();
+        return result;
+      } catch (IdentityClientException e) {
+        if (e.getCause() instanceof IOException || e.getReason() == Reason.TIMEOUT) {
+          breaker.onFailure(now());
+          throw e;
+        }
+        if (!isUnavailable(e.getStatus())) {
+          breaker.onSuccess();
+          throw e;
+        }
+        breaker.onFailure(now());
+        failure = e;
+      } catch (ProcessingException e) {
+        breaker.onFailure(now());
+        failure = getClientException(operation, e);
+      } catch (RuntimeException e) {
+        breaker.onIgnored();
+        throw e;
+      }
+
+      if (retry >= retries) {
+        throw failure;
+      }
+      long backoff = backoff(retry);
+      if (backoff >= deadline - now()) {
+        throw failure;
+      }
+      sleep(backoff);
+    }
+  }
+
+  /**
+   * Runs the attempt and waits for it at most the remaining time
+   *
+   * @throws IdentityClientException with {@link Reason#TIMEOUT} if the attempt did not complete in
+   *     time
+   */
+  private static <T> T run(IdentityOperation operation, Attempt<T> attempt, long remaining)
+      throws IdentityClientException {
+
+    int timeout = (int) Math.min(remaining, Integer.MAX_VALUE);
+    AtomicBoolean abandoned = new AtomicBoolean();
+    Future<T> future =
+        ATTEMPTS.submit(
+            () -> {
+              T result = attempt.run(timeout);
+              if (abandoned.get() && result instanceof Response) {
+                ((Response) result).close();
+              }
+              return result;
+            });
+    try {
+      try {
+        return future.get(remaining, TimeUnit.MILLISECONDS);
+      } catch (TimeoutException e) {
+        abandoned.set(true);
+        if (future.cancel(true)) {
+          throw new IdentityClientException(
+              "Deadline of " + operation + " exceeded", Reason.TIMEOUT);
+        }
+        // completed in the meantime
+        return future.get();
+      }
+    } catch (InterruptedException e) {
+      abandoned.set(true);
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IdentityClientException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IdentityClientException) {
+        throw (IdentityClientException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IdentityClientException(cause);
+    }
+  }
+
+  /**
+   * Returns the circuit breaker of the given operation of the given tenant
+   *
+   * @param tenantId id of the tenant
+   * @param operation the operation
+   * @return circuit breaker
+   */
+  public CircuitBreaker getCircuitBreaker(String tenantId, IdentityOperation operation) {
+    return breakers.computeIfAbsent(
+        tenantId + "/" + operation,
+        key -> new CircuitBreaker(settings.getFailureThreshold(), settings.getOpenDuration()));
+  }
+
+  /** Closes all circuit breakers */
+  public void reset() {
+    breakers.clear();
+  }
+
+  public IdentityCallSettings getSettings() {
+    return settings;
+  }
+
+  long now() {
+    return System.currentTimeMillis();
+  }
+
+  void sleep(long millis) throws IdentityClientException {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IdentityClientException(e);
+    }
+  }
+
+  /** Returns a random backoff between 0 and the exponential backoff of the given retry */
+  long backoff(int retry) {
+    long ceiling = settings.getInitialBackoff() << Math.min(retry, 30);
+    ceiling = Math.min(Math.max(ceiling, 0), settings.getMaxBackoff());
+    return ceiling == 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+  }
+
+  /** Status codes telling that oscm-identity is not able to answer the request */
+  private static boolean isUnavailable(int status) {
+    return status == 429 || status >= 500 && status != 501;
+  }
+
+  private static IdentityClientException getClientException(
+      IdentityOperation operation, ProcessingException e) {
+    Reason reason =
+        e.getCause() instanceof InterruptedIOException ? Reason.TIMEOUT : Reason.OIDC_ERROR;
+    IdentityClientException exception =
+        new IdentityClientException("Call of " + operation + " failed: " + e.getMessage(), reason);
+    exception.initCause(e);
+    return exception;
+  }
+}
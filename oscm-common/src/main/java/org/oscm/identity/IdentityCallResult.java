@@ -0,0 +1,50 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+/**
+ * Outcome of a single call within a bulk oscm-identity operation. It holds either the returned
+ * value or the exception the call failed with.
+ *
+ * @param <T> type of the returned value
+ */
+public class IdentityCallResult<T> {
+
+  private final T value;
+  private final Exception exception;
+
+  private IdentityCallResult(T value, Exception exception) {
+    this.value = value;
+    this.exception = exception;
+  }
+
+  public static <T> IdentityCallResult<T> success(T value) {
+    return new IdentityCallResult<>(value, null);
+  }
+
+  public static <T> IdentityCallResult<T> failure(Exception exception) {
+    return new IdentityCallResult<>(null, exception);
+  }
+
+  public boolean isSuccessful() {
+    return exception == null;
+  }
+
+  /** @return the returned value or null if the call failed */
+  public T getValue() {
+    return value;
+  }
+
+  /**
+   * @return the exception the call failed with, usually an {@link
+   *     org.oscm.identity.exception.IdentityClientException}, or null if it was successful
+   */
+  public Exception getException() {
+    return exception;
+  }
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.Singular;
+
+import java.util.Map;
+
+/** Stores deadline, retry and circuit breaker settings of an {@link IdentityCallPolicy} */
+@Builder(builderMethodName = "of")
+@Data
+public class IdentityCallSettings {
+
+  /**
+   * Deadlines in milliseconds of single operations, including all retries. No attempt is started
+   * after the deadline and the caller stops waiting for a running attempt, see {@link
+   * IdentityCallPolicy}.
+   */
+  @Singular Map<IdentityOperation, Long> deadlines;
+
+  /** Deadline in milliseconds of operations without an own deadline */
+  @Builder.Default long defaultDeadline = 10000;
+
+  /** Maximum number of retries of an idempotent GET */
+  @Builder.Default int maxRetries = 2;
+
+  /** Backoff in milliseconds before the first retry, doubled for every further retry */
+  @Builder.Default long initialBackoff = 100;
+
+  /** Maximum backoff in milliseconds before a retry */
+  @Builder.Default long maxBackoff = 2000;
+
+  /** Number of consecutive failures opening the circuit breaker of an operation */
+  @Builder.Default int failureThreshold = 5;
+
+  /** Time in milliseconds an opened circuit breaker rejects calls */
+  @Builder.Default long openDuration = 30000;
+
+  /**
+   * Returns the deadline of the given operation
+   *
+   * @param operation the operation
+   * @return deadline in milliseconds
+   */
+  public long getDeadline(IdentityOperation operation) {
+    Long deadline = deadlines == null ? null : deadlines.get(operation);
+    return deadline == null ? defaultDeadline : deadline;
+  }
+}
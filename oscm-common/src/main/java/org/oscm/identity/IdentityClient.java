@@ -9,6 +9,8 @@
  */
 package org.oscm.identity;
 
+import org.glassfish.jersey.client.ClientProperties;
+import org.oscm.identity.IdentityEndpoints.Endpoint;
 import org.oscm.identity.exception.IdentityClientException;
 import org.oscm.identity.model.*;
 import org.oscm.identity.validator.IdentityValidator;
@@ -16,29 +18,65 @@ import org.oscm.validation.ArgumentValidator;
 
 import javax.validation.ValidationException;
 import javax.ws.rs.client.Client;
-import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 
-/** Abstract client for accessing oscm-identity endpoints */
+/**
+ * Abstract client for accessing oscm-identity endpoints. Clients are lightweight, they use the
+ * pooled JAX-RS client of an {@link IdentityClientFactory}. Concurrent identical reads of users and
+ * group members share one request, see {@link RequestCoalescer}. The endpoints of a tenant are
+ * resolved once per factory, see {@link IdentityEndpointRegistry}.
+ */
 public abstract class IdentityClient {
 
   Client client;
   IdentityValidator validator;
   IdentityConfiguration configuration;
+  RequestCoalescer coalescer = RequestCoalescer.SHARED;
+  IdentityEndpointRegistry endpointRegistry;
   private static final String OSCM_PREFIX = "OSCM_";
 
   IdentityClient(IdentityConfiguration configuration) {
-    this.client = ClientBuilder.newClient();
+    this(configuration, IdentityClientFactory.getDefault());
+  }
+
+  IdentityClient(IdentityConfiguration configuration, IdentityClientFactory factory) {
+    this.client = factory.getClient();
+    this.endpointRegistry = factory.getEndpointRegistry();
     this.validator = new IdentityValidator();
     this.configuration = configuration;
   }
 
+  /**
+   * Returns an asynchronous view on this client running its calls on the given executor
+   *
+   * @param executor executor running the calls
+   * @return asynchronous client
+   */
+  public AsyncIdentityClient async(Executor executor) {
+    return new AsyncIdentityClient(this, executor);
+  }
+
   /**
    * Validates configuration settings necessary for specific client. In case of failure it throws
    * runtime exception {@link org.oscm.identity.exception.IdentityConfigurationException}
@@ -69,20 +107,115 @@ public abstract class IdentityClient {
     ArgumentValidator.notEmptyString("userId", userId);
     validate(configuration);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.buildGetUserUrl();
+    Endpoint users = endpoints().users();
+    String accessToken = getAccessToken(AccessType.IDP);
+
+    return fetchUser(users, userId, accessToken);
+  }
+
+  /**
+   * Retrieves information of several users. All requests share one access token and run with at
+   * most the given number of requests in parallel, the calling thread executing one share of
+   * them. A failing request does not abort the others, its exception is stored in the result.
+   *
+   * @param userIds ids of the users, duplicates are requested once, none may be empty
+   * @param executor executor running the additional parallel requests, may be null if
+   *     parallelism is 1
+   * @param parallelism maximum number of requests in parallel
+   * @return result per user id in the order of the given ids
+   * @throws IdentityClientException if no access token could be retrieved
+   */
+  public Map<String, IdentityCallResult<UserInfo>> getUsers(
+      Collection<String> userIds, Executor executor, int parallelism)
+      throws IdentityClientException {
+
+    ArgumentValidator.notNull("userIds", userIds);
+    if (parallelism < 1 || parallelism > 1 && executor == null) {
+      throw new IllegalArgumentException(
+          "Parallel requests require an executor and a parallelism of at least 1");
+    }
+    validate(configuration);
+
+    Set<String> ids = new LinkedHashSet<>(userIds);
+    for (String userId : ids) {
+      ArgumentValidator.notEmptyString("userId", userId);
+    }
+    Map<String, IdentityCallResult<UserInfo>> results = new LinkedHashMap<>();
+    if (ids.isEmpty()) {
+      return results;
+    }
+
+    Endpoint users = endpoints().users();
     String accessToken = getAccessToken(AccessType.IDP);
 
-    Response response =
-        client
-            .target(url)
-            .path(userId)
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .get();
+    Map<String, IdentityCallResult<UserInfo>> fetched = new ConcurrentHashMap<>();
+    Queue<String> pending = new ConcurrentLinkedQueue<>(ids);
+    Runnable worker =
+        () -> {
+          String userId;
+          while ((userId = pending.poll()) != null) {
+            fetched.put(userId, fetchUserResult(users, userId, accessToken));
+          }
+        };
+
+    List<CompletableFuture<Void>> workers = new ArrayList<>();
+    try {
+      for (int i = 1; i < Math.min(parallelism, ids.size()); i++) {
+        workers.add(CompletableFuture.runAsync(worker, executor));
+      }
+    } catch (RejectedExecutionException e) {
+      // the calling thread processes the remaining requests
+    }
+    worker.run();
+    CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[workers.size()])).join();
 
-    UserInfo userInfoResponse = IdentityClientHelper.handleResponse(response, UserInfo.class, url);
-    return userInfoResponse;
+    for (String userId : ids) {
+      results.put(userId, fetched.get(userId));
+    }
+    return results;
+  }
+
+  private IdentityCallResult<UserInfo> fetchUserResult(
+      Endpoint users, String userId, String accessToken) {
+    try {
+      return IdentityCallResult.success(fetchUser(users, userId, accessToken));
+    } catch (IdentityClientException | RuntimeException e) {
+      return IdentityCallResult.failure(e);
+    }
+  }
+
+  private UserInfo fetchUser(Endpoint users, String userId, String accessToken)
+      throws IdentityClientException {
+
+    return coalescer.read(
+        IdentityOperation.GET_USER,
+        configuration.getTenantId(),
+        userId,
+        accessToken,
+        () ->
+            call(
+                IdentityOperation.GET_USER,
+                true,
+                timeout -> {
+                  long start = System.nanoTime();
+                  Response response =
+                      IdentityClientHelper.send(
+                          IdentityOperation.GET_USER,
+                          start,
+                          () ->
+                              withTimeout(
+                                      users
+                                          .getTarget()
+                                          .path(userId)
+                                          .request(MediaType.APPLICATION_JSON),
+                                      timeout)
+                                  .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                                  .get());
+
+                  return IdentityClientHelper.handleResponse(
+                      response, UserInfo.class, users.getUrl(), IdentityOperation.GET_USER, start);
+                }),
+        IdentityClientHelper::copy);
   }
 
   /**
@@ -97,19 +230,31 @@ public abstract class IdentityClient {
     validate(configuration);
     validateUserObject(user);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.getUpdateUserUrl();
+    Endpoint users = endpoints().users();
     String accessToken = getAccessToken(AccessType.IDP);
 
-    Response response =
-        client
-            .target(url)
-            .path(user.getUserId())
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .put(Entity.entity(user, MediaType.APPLICATION_JSON));
-
-    return IdentityClientHelper.handleResponse(response, url);
+    return call(
+        IdentityOperation.UPDATE_USER,
+        false,
+        timeout -> {
+          long start = System.nanoTime();
+          Response response =
+              IdentityClientHelper.send(
+                  IdentityOperation.UPDATE_USER,
+                  start,
+                  () ->
+                      withTimeout(
+                              users
+                                  .getTarget()
+                                  .path(user.getUserId())
+                                  .request(MediaType.APPLICATION_JSON),
+                              timeout)
+                          .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                          .put(Entity.entity(user, MediaType.APPLICATION_JSON)));
+
+          return IdentityClientHelper.handleResponse(
+              response, users.getUrl(), IdentityOperation.UPDATE_USER, start);
+        });
   }
 
   /**
@@ -127,16 +272,23 @@ public abstract class IdentityClient {
     ArgumentValidator.notEmptyString("groupName", groupName);
     validate(configuration);
     String accessToken = getAccessToken(AccessType.IDP);
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
+    IdentityEndpoints endpoints = endpoints();
 
     GroupInfo newOrExistingGroup = null;
 
     try {
-      newOrExistingGroup = getExistingGroup(builder, client, groupName, accessToken);
+      newOrExistingGroup = getExistingGroup(endpoints, groupName, accessToken);
     } catch (IdentityClientException e) {
       if (e.getStatus() == Response.Status.NOT_FOUND.getStatusCode()) {
-        newOrExistingGroup =
-            createAndReturnNewGroup(builder, client, groupName, groupDescription, accessToken);
+        try {
+          newOrExistingGroup =
+              createAndReturnNewGroup(endpoints, groupName, groupDescription, accessToken);
+        } finally {
+          GroupCache groupCache = configuration.getGroupCache();
+          if (groupCache != null) {
+            groupCache.invalidateGroups(configuration.getTenantId());
+          }
+        }
       } else throw e;
     }
     return newOrExistingGroup;
@@ -146,8 +298,7 @@ public abstract class IdentityClient {
    * Search the existing group with the name equal to the given group name and return detailed
    * information of this group.
    *
-   * @param builder - an endpoint URL builder
-   * @param client - a client instance
+   * @param endpoints - the endpoints of the tenant
    * @param groupName - - the name of the group that is about to be created
    * @param accessToken - required IDP access token
    * @return representation of existing group which creation was requested
@@ -155,26 +306,35 @@ public abstract class IdentityClient {
    *     other problem occurred on retrieving the requested information.
    */
   private GroupInfo getExistingGroup(
-      IdentityUrlBuilder builder, Client client, String groupName, String accessToken)
+      IdentityEndpoints endpoints, String groupName, String accessToken)
       throws IdentityClientException {
-    String url = builder.buildCreateGroupUrl();
-    String path = builder.buildGroupPath(groupName);
-    Response response =
-        client
-            .target(url)
-            .path(path)
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .get();
-    return IdentityClientHelper.handleResponse(response, GroupInfo.class, url);
+    Endpoint groups = endpoints.groups();
+    String path = endpoints.groupPath(groupName);
+    return call(
+        IdentityOperation.GET_GROUP,
+        true,
+        timeout -> {
+          long start = System.nanoTime();
+          Response response =
+              IdentityClientHelper.send(
+                  IdentityOperation.GET_GROUP,
+                  start,
+                  () ->
+                      withTimeout(
+                              groups.getTarget().path(path).request(MediaType.APPLICATION_JSON),
+                              timeout)
+                          .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                          .get());
+          return IdentityClientHelper.handleResponse(
+              response, GroupInfo.class, groups.getUrl(), IdentityOperation.GET_GROUP, start);
+        });
   }
 
   /**
    * Calls the endpoint that will create new group in remote directory and returns representaion of
    * this newly created object
    *
-   * @param builder endpoint url builder
-   * @param client client instance
+   * @param endpoints endpoints of the tenant
    * @param groupName Group Info wrapper that contains the data about group that is about to be
    *     created
    * @param accessToken IDP access token
@@ -182,8 +342,7 @@ public abstract class IdentityClient {
    * @throws IdentityClientException
    */
   private GroupInfo createAndReturnNewGroup(
-      IdentityUrlBuilder builder,
-      Client client,
+      IdentityEndpoints endpoints,
       String groupName,
       String groupDescription,
       String accessToken)
@@ -191,15 +350,24 @@ public abstract class IdentityClient {
     GroupInfo groupInfo = new GroupInfo();
     groupInfo.setDescription(groupDescription);
     groupInfo.setName(OSCM_PREFIX + groupName);
-    String url = builder.buildCreateGroupUrl();
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .post(Entity.entity(groupInfo, MediaType.APPLICATION_JSON));
-
-    return IdentityClientHelper.handleResponse(response, GroupInfo.class, url);
+    Endpoint groups = endpoints.groups();
+    return call(
+        IdentityOperation.CREATE_GROUP,
+        false,
+        timeout -> {
+          long start = System.nanoTime();
+          Response response =
+              IdentityClientHelper.send(
+                  IdentityOperation.CREATE_GROUP,
+                  start,
+                  () ->
+                      withTimeout(groups.getTarget().request(MediaType.APPLICATION_JSON), timeout)
+                          .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                          .post(Entity.entity(groupInfo, MediaType.APPLICATION_JSON)));
+
+          return IdentityClientHelper.handleResponse(
+              response, GroupInfo.class, groups.getUrl(), IdentityOperation.CREATE_GROUP, start);
+        });
   }
 
   /**
@@ -215,20 +383,81 @@ public abstract class IdentityClient {
     validate(configuration);
     ArgumentValidator.notEmptyString("groupId", groupId);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.buildGroupMembersUrl(groupId);
+    GroupCache groupCache = configuration.getGroupCache();
+    if (groupCache != null) {
+      return groupCache.getGroupMembers(
+          configuration.getTenantId(), groupId, () -> fetchGroupMembers(groupId));
+    }
+    return fetchGroupMembers(groupId);
+  }
+
+  private Set<UserInfo> fetchGroupMembers(String groupId) throws IdentityClientException {
 
+    Endpoint members = endpoints().groupMembers(groupId);
     String accessToken = getAccessToken(AccessType.IDP);
 
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .get();
+    UserInfo[] result =
+        coalescer.read(
+            IdentityOperation.GET_GROUP_MEMBERS,
+            configuration.getTenantId(),
+            groupId,
+            accessToken,
+            () ->
+                call(
+                    IdentityOperation.GET_GROUP_MEMBERS,
+                    true,
+                    timeout -> {
+                      long start = System.nanoTime();
+                      Response response =
+                          IdentityClientHelper.send(
+                              IdentityOperation.GET_GROUP_MEMBERS,
+                              start,
+                              () ->
+                                  withTimeout(
+                                          members.getTarget().request(MediaType.APPLICATION_JSON),
+                                          timeout)
+                                      .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                                      .get());
+
+                      return IdentityClientHelper.handleResponse(
+                          response,
+                          UserInfo[].class,
+                          members.getUrl(),
+                          IdentityOperation.GET_GROUP_MEMBERS,
+                          start);
+                    }),
+            IdentityClient::copy);
+    return new HashSet<>(Arrays.asList(result));
+  }
 
-    UserInfo[] members = IdentityClientHelper.handleResponse(response, UserInfo[].class, url);
-    return new HashSet<>(Arrays.asList(members));
+  private static UserInfo[] copy(UserInfo[] users) {
+    UserInfo[] copy = new UserInfo[users.length];
+    for (int i = 0; i < users.length; i++) {
+      copy[i] = users[i] == null ? null : IdentityClientHelper.copy(users[i]);
+    }
+    return copy;
+  }
+
+  /**
+   * Streaming variant of {@link #getGroupMembers(String)}. The members are parsed one by one while
+   * the response is read and passed to the given consumer, so the memory needed does not grow with
+   * the size of the group. The group cache and request coalescing are bypassed, and the request is
+   * not retried once members have been passed to the consumer.
+   *
+   * @param groupId id of the group
+   * @param consumer receives the members
+   * @return number of members
+   * @throws IdentityClientException
+   */
+  public long forEachGroupMember(String groupId, Consumer<? super UserInfo> consumer)
+      throws IdentityClientException {
+
+    validate(configuration);
+    ArgumentValidator.notEmptyString("groupId", groupId);
+    ArgumentValidator.notNull("consumer", consumer);
+
+    Endpoint members = endpoints().groupMembers(groupId);
+    return readArray(IdentityOperation.GET_GROUP_MEMBERS, members, UserInfo.class, consumer);
   }
 
   /**
@@ -247,20 +476,41 @@ public abstract class IdentityClient {
 
     String accessToken = getAccessToken(AccessType.IDP);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.buildGroupMembersUrl(groupId);
+    Endpoint members = endpoints().groupMembers(groupId);
 
     UserInfo userInfo = new UserInfo();
     userInfo.setUserId(userId);
 
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .post(Entity.entity(userInfo, MediaType.APPLICATION_JSON));
-
-    IdentityClientHelper.handleResponse(response, String.class, url);
+    try {
+      call(
+          IdentityOperation.ADD_GROUP_MEMBER,
+          false,
+          timeout -> {
+            long start = System.nanoTime();
+            Response response =
+                IdentityClientHelper.send(
+                    IdentityOperation.ADD_GROUP_MEMBER,
+                    start,
+                    () ->
+                        withTimeout(
+                                members.getTarget().request(MediaType.APPLICATION_JSON),
+                                timeout)
+                            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                            .post(Entity.entity(userInfo, MediaType.APPLICATION_JSON)));
+
+            return IdentityClientHelper.handleResponse(
+                response,
+                String.class,
+                members.getUrl(),
+                IdentityOperation.ADD_GROUP_MEMBER,
+                start);
+          });
+    } finally {
+      GroupCache groupCache = configuration.getGroupCache();
+      if (groupCache != null) {
+        groupCache.invalidateGroupMembers(configuration.getTenantId(), groupId);
+      }
+    }
   }
 
   /**
@@ -278,19 +528,41 @@ public abstract class IdentityClient {
     ArgumentValidator.notEmptyString("token", token);
     ArgumentValidator.notNull("tokenType", tokenType);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.buildValidateTokenUrl();
+    TokenVerificationCache verificationCache = configuration.getTokenVerificationCache();
+    if (verificationCache != null) {
+      String userId = verificationCache.getUserId(configuration.getTenantId(), token, tokenType);
+      if (userId != null) {
+        return userId;
+      }
+    }
+
+    Endpoint verify = endpoints().verify();
     TokenDetails tokenDetails = new TokenDetails();
     tokenDetails.setToken(token);
     tokenDetails.setTokenType(tokenType.name());
 
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .post(Entity.entity(tokenDetails, MediaType.APPLICATION_JSON));
-
-    UserId user = IdentityClientHelper.handleResponse(response, UserId.class, url);
+    UserId user =
+        call(
+            IdentityOperation.VERIFY_TOKEN,
+            false,
+            timeout -> {
+              long start = System.nanoTime();
+              Response response =
+                  IdentityClientHelper.send(
+                      IdentityOperation.VERIFY_TOKEN,
+                      start,
+                      () ->
+                          withTimeout(
+                                  verify.getTarget().request(MediaType.APPLICATION_JSON),
+                                  timeout)
+                              .post(Entity.entity(tokenDetails, MediaType.APPLICATION_JSON)));
+
+              return IdentityClientHelper.handleResponse(
+                  response, UserId.class, verify.getUrl(), IdentityOperation.VERIFY_TOKEN, start);
+            });
+    if (verificationCache != null) {
+      verificationCache.put(configuration.getTenantId(), token, tokenType, user.getUserId());
+    }
     return user.getUserId();
   }
 
@@ -305,20 +577,90 @@ public abstract class IdentityClient {
 
     validate(configuration);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
+    GroupCache groupCache = configuration.getGroupCache();
+    if (groupCache != null) {
+      return groupCache.getGroups(configuration.getTenantId(), this::fetchGroups);
+    }
+    return fetchGroups();
+  }
+
+  private Set<GroupInfo> fetchGroups() throws IdentityClientException {
 
-    String url = builder.buildGroupsUrl();
+    Endpoint groups = endpoints().groups();
     String accessToken = getAccessToken(AccessType.IDP);
 
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .get();
+    GroupInfo[] result =
+        call(
+            IdentityOperation.GET_GROUPS,
+            true,
+            timeout -> {
+              long start = System.nanoTime();
+              Response response =
+                  IdentityClientHelper.send(
+                      IdentityOperation.GET_GROUPS,
+                      start,
+                      () ->
+                          withTimeout(
+                                  groups.getTarget().request(MediaType.APPLICATION_JSON),
+                                  timeout)
+                              .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                              .get());
+
+              return IdentityClientHelper.handleResponse(
+                  response,
+                  GroupInfo[].class,
+                  groups.getUrl(),
+                  IdentityOperation.GET_GROUPS,
+                  start);
+            });
+    return new HashSet<>(Arrays.asList(result));
+  }
+
+  /**
+   * Streaming variant of {@link #getGroups()}. The groups are parsed one by one while the response
+   * is read and passed to the given consumer. The group cache is bypassed, and the request is not
+   * retried once groups have been passed to the consumer.
+   *
+   * @param consumer receives the groups
+   * @return number of groups
+   * @throws IdentityClientException
+   */
+  public long forEachGroup(Consumer<? super GroupInfo> consumer) throws IdentityClientException {
+
+    validate(configuration);
+    ArgumentValidator.notNull("consumer", consumer);
+
+    return readArray(IdentityOperation.GET_GROUPS, endpoints().groups(), GroupInfo.class, consumer);
+  }
+
+  /** Requests a JSON array and passes its elements to the given consumer while it is read */
+  private <T> long readArray(
+      IdentityOperation operation, Endpoint endpoint, Class<T> type, Consumer<? super T> consumer)
+      throws IdentityClientException {
+
+    String accessToken = getAccessToken(AccessType.IDP);
 
-    GroupInfo[] groups = IdentityClientHelper.handleResponse(response, GroupInfo[].class, url);
-    return new HashSet<>(Arrays.asList(groups));
+    return call(
+        operation,
+        true,
+        timeout -> {
+          long start = System.nanoTime();
+          Response response =
+              IdentityClientHelper.send(
+                  operation,
+                  start,
+                  () ->
+                      withTimeout(endpoint.getTarget().request(MediaType.APPLICATION_JSON), timeout)
+                          .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                          .get());
+          try {
+            IdentityClientHelper.handleResponse(response, endpoint.getUrl(), operation, start);
+            return IdentityClientHelper.readArray(
+                response.readEntity(InputStream.class), type, consumer);
+          } finally {
+            response.close();
+          }
+        });
   }
 
   /**
@@ -336,21 +678,79 @@ public abstract class IdentityClient {
     ArgumentValidator.notEmptyString("username", username);
     ArgumentValidator.notEmptyString("password", password);
 
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-    String url = builder.buildIdTokenTokenUrl();
+    Endpoint identify = endpoints().identify();
 
     Credentials credentials = new Credentials(username, password);
 
-    Response response =
-        client
-            .target(url)
-            .request(MediaType.APPLICATION_JSON)
-            .post(Entity.entity(credentials, MediaType.APPLICATION_JSON));
-
-    IdToken token = IdentityClientHelper.handleResponse(response, IdToken.class, url);
+    IdToken token =
+        call(
+            IdentityOperation.ID_TOKEN,
+            false,
+            timeout -> {
+              long start = System.nanoTime();
+              Response response =
+                  IdentityClientHelper.send(
+                      IdentityOperation.ID_TOKEN,
+                      start,
+                      () ->
+                          withTimeout(
+                                  identify.getTarget().request(MediaType.APPLICATION_JSON),
+                                  timeout)
+                              .post(Entity.entity(credentials, MediaType.APPLICATION_JSON)));
+
+              return IdentityClientHelper.handleResponse(
+                  response, IdToken.class, identify.getUrl(), IdentityOperation.ID_TOKEN, start);
+            });
     return token.getIdToken();
   }
 
+  /**
+   * Returns the endpoints of the configured tenant
+   *
+   * @return endpoints
+   */
+  IdentityEndpoints endpoints() {
+    return endpointRegistry.getEndpoints(client, configuration.getTenantId());
+  }
+
+  /**
+   * Executes a call of oscm-identity. If the configuration contains an {@link IdentityCallPolicy},
+   * the call is executed under its deadline, retry and circuit breaker rules.
+   *
+   * @param operation the called operation
+   * @param idempotentGet true if the call is a GET which may be retried
+   * @param attempt executes a single attempt of the call
+   * @return result of the call
+   * @throws IdentityClientException
+   */
+  <T> T call(
+      IdentityOperation operation, boolean idempotentGet, IdentityCallPolicy.Attempt<T> attempt)
+      throws IdentityClientException {
+
+    IdentityCallPolicy callPolicy = configuration.getCallPolicy();
+    if (callPolicy == null) {
+      return attempt.run(0);
+    }
+    return callPolicy.execute(configuration.getTenantId(), operation, idempotentGet, attempt);
+  }
+
+  /**
+   * Limits the connect timeout and the timeout of every socket read of the given request. Neither
+   * bounds the total duration of the request.
+   *
+   * @param request the request
+   * @param timeout timeout in milliseconds, 0 keeps the timeouts of the client
+   * @return the request
+   */
+  static Invocation.Builder withTimeout(Invocation.Builder request, int timeout) {
+    if (timeout <= 0) {
+      return request;
+    }
+    return request
+        .property(ClientProperties.CONNECT_TIMEOUT, timeout)
+        .property(ClientProperties.READ_TIMEOUT, timeout);
+  }
+
   /**
    * Validated if provided user object has all mandatory fields filled up
    *
@@ -371,16 +771,32 @@ public abstract class IdentityClient {
     validate(configuration);
     ArgumentValidator.notEmptyString("groupId", groupId);
     String accessToken = getAccessToken(AccessType.IDP);
-    IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
+    Endpoint group = endpoints().groups().path(groupId);
 
-    String url = builder.buildGroupsUrl() + "/" + groupId;
-
-    Response response =
-        client
-            .target(url)
-            .request()
-            .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
-            .delete();
-    IdentityClientHelper.handleResponse(response, url);
+    try {
+      call(
+              IdentityOperation.DELETE_GROUP,
+              false,
+              timeout -> {
+                long start = System.nanoTime();
+                Response response =
+                    IdentityClientHelper.send(
+                        IdentityOperation.DELETE_GROUP,
+                        start,
+                        () ->
+                            withTimeout(group.getTarget().request(), timeout)
+                                .header(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken)
+                                .delete());
+                return IdentityClientHelper.handleResponse(
+                    response, group.getUrl(), IdentityOperation.DELETE_GROUP, start);
+              })
+          .close();
+    } finally {
+      GroupCache groupCache = configuration.getGroupCache();
+      if (groupCache != null) {
+        groupCache.invalidateGroups(configuration.getTenantId());
+        groupCache.invalidateGroupMembers(configuration.getTenantId(), groupId);
+      }
+    }
   }
 }
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+
+/**
+ * Provides the JAX-RS client used by oscm-identity clients. The client keeps alive and pools its
+ * http connections, so identity clients created per request or session share connections instead
+ * of opening their own, share the endpoints resolved per tenant, see {@link
+ * IdentityEndpointRegistry}, and share the access tokens of the oscm-identity instance, see {@link
+ * AccessTokenCache}. The default factory is created on first use and has to be closed when the
+ * application shuts down, see {@link #closeDefault()}.
+ */
+public class IdentityClientFactory implements AutoCloseable {
+
+  private static IdentityClientFactory defaultFactory;
+
+  private final IdentityClientSettings settings;
+  private final Client client;
+  private final IdentityEndpointRegistry endpointRegistry;
+  private final AccessTokenCache tokenCache;
+  private volatile boolean closed;
+
+  /**
+   * Creates a factory with its own connection pool
+   *
+   * @param settings connection settings
+   */
+  public IdentityClientFactory(IdentityClientSettings settings) {
+    this.settings = settings;
+    this.client = createClient(settings);
+    this.endpointRegistry = new IdentityEndpointRegistry(settings.getBaseUrl());
+    this.tokenCache = new AccessTokenCache();
+  }
+
+  /**
+   * Returns the factory shared by all oscm-identity clients created without a factory. The factory
+   * is created with default settings if there is none or the previous one has been closed.
+   *
+   * @return default factory
+   */
+  public static synchronized IdentityClientFactory getDefault() {
+    if (defaultFactory == null || defaultFactory.closed) {
+      defaultFactory = new IdentityClientFactory(IdentityClientSettings.of().build());
+    }
+    return defaultFactory;
+  }
+
+  /**
+   * Replaces the default factory by one with the given settings and closes the previous one.
+   * Clients created before keep using the closed factory's client and have to be recreated.
+   *
+   * @param settings connection settings
+   */
+  public static synchronized void configureDefault(IdentityClientSettings settings) {
+    closeDefault();
+    defaultFactory = new IdentityClientFactory(settings);
+  }
+
+  /** Closes the default factory and its pooled connections */
+  public static synchronized void closeDefault() {
+    if (defaultFactory != null) {
+      defaultFactory.close();
+      defaultFactory = null;
+    }
+  }
+
+  /**
+   * Returns the shared JAX-RS client
+   *
+   * @return client
+   * @throws IllegalStateException if the factory has been closed
+   */
+  public Client getClient() {
+    if (closed) {
+      throw new IllegalStateException("Identity client factory has been closed");
+    }
+    return client;
+  }
+
+  /** @return endpoints of oscm-identity per tenant */
+  public IdentityEndpointRegistry getEndpointRegistry() {
+    return endpointRegistry;
+  }
+
+  /** @return access tokens of the {@link ApiIdentityClient}s of this factory */
+  public AccessTokenCache getTokenCache() {
+    return tokenCache;
+  }
+
+  public IdentityClientSettings getSettings() {
+    return settings;
+  }
+
+  public boolean isClosed() {
+    return closed;
+  }
+
+  /** Closes the client and its pooled connections */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      client.close();
+    }
+  }
+
+  private static Client createClient(IdentityClientSettings settings) {
+    PoolingHttpClientConnectionManager connectionManager =
+        new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(settings.getMaxConnections());
+    connectionManager.setDefaultMaxPerRoute(settings.getMaxConnectionsPerRoute());
+
+    ClientConfig config = new ClientConfig();
+    config.connectorProvider(new ApacheConnectorProvider());
+    config.property(ApacheClientProperties.CONNECTION_MANAGER, connectionManager);
+    config.property(
+        ApacheClientProperties.REQUEST_CONFIG,
+        RequestConfig.custom()
+            .setConnectionRequestTimeout(settings.getConnectionRequestTimeout())
+            .build());
+    config.property(ClientProperties.CONNECT_TIMEOUT, settings.getConnectTimeout());
+    config.property(ClientProperties.READ_TIMEOUT, settings.getReadTimeout());
+    return ClientBuilder.newClient(config);
+  }
+}
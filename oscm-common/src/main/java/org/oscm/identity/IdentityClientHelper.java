@@ -9,21 +9,36 @@
  */
 package org.oscm.identity;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.oscm.identity.exception.IdentityClientException;
 import org.oscm.identity.model.ErrorInfo;
+import org.oscm.identity.model.GroupInfo;
 import org.oscm.identity.model.Token;
 import org.oscm.identity.model.TokenType;
+import org.oscm.identity.model.UserInfo;
 import org.oscm.logging.Log4jLogger;
 import org.oscm.logging.LoggerFactory;
 import org.oscm.types.enumtypes.LogMessageIdentifier;
 
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /** Utility class for handling issues related to oscm-identity client */
 public class IdentityClientHelper {
 
   private static final Log4jLogger LOGGER = LoggerFactory.getLogger(IdentityClientHelper.class);
 
+  private static final ObjectMapper JSON_MAPPER =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
   /**
    * Checks if http response status is successful
    *
@@ -49,11 +64,13 @@ public class IdentityClientHelper {
       throws IdentityClientException {
 
     int status = response.getStatus();
-    LOGGER.logInfo(
-        Log4jLogger.SYSTEM_LOG,
-        LogMessageIdentifier.INFO_IDENTITY_CLIENT_RESPONSE,
-        url,
-        Integer.toString(status));
+    if (IdentityMetrics.SHARED.isResponseLogging()) {
+      LOGGER.logInfo(
+          Log4jLogger.SYSTEM_LOG,
+          LogMessageIdentifier.INFO_IDENTITY_CLIENT_RESPONSE,
+          url,
+          Integer.toString(status));
+    }
 
     if (isResponseSuccessful(response)) {
       return response.readEntity(type);
@@ -68,6 +85,75 @@ public class IdentityClientHelper {
     }
   }
 
+  /**
+   * Sends a request and records it in {@link IdentityMetrics#SHARED} with status 0 if it fails
+   * without response. A received response is recorded when it is handled.
+   *
+   * @param operation the called operation
+   * @param startNanos value of {@link System#nanoTime()} when the request was started
+   * @param request sends the request
+   * @return http response
+   * @throws ProcessingException if no response was received
+   */
+  public static Response send(
+      IdentityOperation operation, long startNanos, Supplier<Response> request) {
+
+    try {
+      return request.get();
+    } catch (ProcessingException e) {
+      IdentityMetrics.SHARED.record(operation, 0, System.nanoTime() - startNanos);
+      throw e;
+    }
+  }
+
+  /**
+   * Handles http response like {@link #handleResponse(Response, Class, String)} and records the
+   * call in {@link IdentityMetrics#SHARED}
+   *
+   * @param <T>
+   * @param response http response
+   * @param type type of requested response body
+   * @param url
+   * @param operation the called operation
+   * @param startNanos value of {@link System#nanoTime()} when the request was started
+   * @return response body
+   * @throws IdentityClientException
+   */
+  public static <T> T handleResponse(
+      Response response, Class<T> type, String url, IdentityOperation operation, long startNanos)
+      throws IdentityClientException {
+
+    try {
+      return handleResponse(response, type, url);
+    } finally {
+      IdentityMetrics.SHARED.record(
+          operation, response.getStatus(), System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * Handles http response like {@link #handleResponse(Response, String)} and records the call in
+   * {@link IdentityMetrics#SHARED}
+   *
+   * @param response http response
+   * @param url
+   * @param operation the called operation
+   * @param startNanos value of {@link System#nanoTime()} when the request was started
+   * @return response
+   * @throws IdentityClientException
+   */
+  public static Response handleResponse(
+      Response response, String url, IdentityOperation operation, long startNanos)
+      throws IdentityClientException {
+
+    try {
+      return handleResponse(response, url);
+    } finally {
+      IdentityMetrics.SHARED.record(
+          operation, response.getStatus(), System.nanoTime() - startNanos);
+    }
+  }
+
   /**
    * Handles http response with no body returned. In case it is successful, it provides client with
    * response body objects, it provides client with {@link IdentityClientException} otherwise
@@ -81,11 +167,13 @@ public class IdentityClientHelper {
       throws IdentityClientException {
 
     int status = response.getStatus();
-    LOGGER.logInfo(
-        Log4jLogger.SYSTEM_LOG,
-        LogMessageIdentifier.INFO_IDENTITY_CLIENT_RESPONSE,
-        url,
-        Integer.toString(status));
+    if (IdentityMetrics.SHARED.isResponseLogging()) {
+      LOGGER.logInfo(
+          Log4jLogger.SYSTEM_LOG,
+          LogMessageIdentifier.INFO_IDENTITY_CLIENT_RESPONSE,
+          url,
+          Integer.toString(status));
+    }
 
     if (isResponseSuccessful(response)) {
       return response;
@@ -125,6 +213,78 @@ public class IdentityClientHelper {
 
 
 
+  /**
+   * Reads a JSON array element by element and passes every element to the given consumer, so the
+   * array is never materialized as a whole
+   *
+   * @param <T>
+   * @param in stream of the JSON array, closed by this method
+   * @param type type of the elements
+   * @param consumer receives the elements in array order
+   * @return number of elements
+   * @throws IdentityClientException if the stream could not be read or is no JSON array of the
+   *     given type
+   */
+  public static <T> long readArray(InputStream in, Class<T> type, Consumer<? super T> consumer)
+      throws IdentityClientException {
+
+    ObjectReader reader = JSON_MAPPER.readerFor(type);
+    long count = 0;
+    try (JsonParser parser = JSON_MAPPER.getFactory().createParser(in)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new IdentityClientException("Response is no JSON array");
+      }
+      JsonToken token;
+      while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+        if (token == null) {
+          throw new IdentityClientException("Response ended within the JSON array");
+        }
+        T element = reader.readValue(parser);
+        consumer.accept(element);
+        count++;
+      }
+    } catch (IOException e) {
+      throw new IdentityClientException(e);
+    }
+    return count;
+  }
+
+  /**
+   * Copies the given user, e.g. to hand a shared result to several callers
+   *
+   * @param user the user
+   * @return new user with the same fields
+   */
+  public static UserInfo copy(UserInfo user) {
+    UserInfo copy = new UserInfo();
+    copy.setUserId(user.getUserId());
+    copy.setFirstName(user.getFirstName());
+    copy.setLastName(user.getLastName());
+    copy.setEmail(user.getEmail());
+    copy.setPhone(user.getPhone());
+    copy.setCountry(user.getCountry());
+    copy.setCity(user.getCity());
+    copy.setAddress(user.getAddress());
+    copy.setPostalCode(user.getPostalCode());
+    copy.setLocale(user.getLocale());
+    copy.setGender(user.getGender());
+    return copy;
+  }
+
+  /**
+   * Copies the given group, e.g. to hand a shared result to several callers
+   *
+   * @param group the group
+   * @return new group with the same fields
+   */
+  public static GroupInfo copy(GroupInfo group) {
+    GroupInfo copy = new GroupInfo();
+    copy.setId(group.getId());
+    copy.setName(group.getName());
+    copy.setDescription(group.getDescription());
+    return copy;
+  }
+
   /**
    * Retrieves access token value form the session context
    *
@@ -0,0 +1,35 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** Stores connection settings of the http client shared by oscm-identity clients */
+@Builder(builderMethodName = "of")
+@Data
+public class IdentityClientSettings {
+
+  /** Timeout in milliseconds for establishing a connection */
+  @Builder.Default int connectTimeout = 5000;
+
+  /** Timeout in milliseconds for waiting on response data */
+  @Builder.Default int readTimeout = 30000;
+
+  /** Timeout in milliseconds for waiting on a pooled connection */
+  @Builder.Default int connectionRequestTimeout = 5000;
+
+  /** Maximum number of pooled connections per host */
+  @Builder.Default int maxConnectionsPerRoute = 20;
+
+  /** Maximum number of pooled connections in total */
+  @Builder.Default int maxConnections = 100;
+
+  /** Base url of oscm-identity, e.g. http://oscm-identity:9090/oscm-identity */
+  @Builder.Default String baseUrl = IdentityUrlBuilder.DEFAULT_BASE_URL;
+}
@@ -19,4 +19,13 @@ public class IdentityConfiguration {
 
   String tenantId;
   HttpSession sessionContext;
+
+  /** Optional cache for groups and group members, disabled if null */
+  GroupCache groupCache;
+
+  /** Optional cache for token validations, disabled if null */
+  TokenVerificationCache tokenVerificationCache;
+
+  /** Optional deadlines, retries and circuit breakers, disabled if null */
+  IdentityCallPolicy callPolicy;
 }
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import javax.ws.rs.client.Client;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the {@link IdentityEndpoints} per tenant, so repeated calls for the same tenant neither
+ * build urls nor resolve targets. The endpoints are resolved again if they were resolved with
+ * another JAX-RS client than the requested one. Endpoints without tenant are not cached.
+ */
+public class IdentityEndpointRegistry {
+
+  private final String baseUrl;
+  private final ConcurrentMap<String, IdentityEndpoints> endpoints = new ConcurrentHashMap<>();
+
+  /** @param baseUrl base url of oscm-identity */
+  public IdentityEndpointRegistry(String baseUrl) {
+    this.baseUrl = baseUrl;
+  }
+
+  /**
+   * Returns the endpoints of the given tenant
+   *
+   * @param client JAX-RS client the targets are resolved with
+   * @param tenantId id of the tenant
+   * @return endpoints
+   */
+  public IdentityEndpoints getEndpoints(Client client, String tenantId) {
+    if (tenantId == null) {
+      return new IdentityEndpoints(client, baseUrl, null);
+    }
+    IdentityEndpoints tenantEndpoints = endpoints.get(tenantId);
+    if (tenantEndpoints != null && tenantEndpoints.getClient() == client) {
+      return tenantEndpoints;
+    }
+    return endpoints.compute(
+        tenantId,
+        (id, current) ->
+            current != null && current.getClient() == client
+                ? current
+                : new IdentityEndpoints(client, baseUrl, id));
+  }
+
+  public String getBaseUrl() {
+    return baseUrl;
+  }
+
+  /** @return number of tenants with cached endpoints */
+  public int size() {
+    return endpoints.size();
+  }
+
+  /** Removes all cached endpoints */
+  public void clear() {
+    endpoints.clear();
+  }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.WebTarget;
+
+/**
+ * The oscm-identity endpoints of one tenant. Urls and targets are built and resolved once when the
+ * endpoints are created, requests only append the id of the requested resource. Instances are
+ * immutable and shared by all clients of the tenant, see {@link IdentityEndpointRegistry}.
+ */
+public class IdentityEndpoints {
+
+  private static final String RESOURCE_MEMBERS = "members";
+
+  private final Client client;
+  private final String tenantId;
+  private final IdentityUrlBuilder builder;
+  private final Endpoint users;
+  private final Endpoint groups;
+  private final Endpoint token;
+  private final Endpoint refresh;
+  private final Endpoint verify;
+  private final Endpoint identify;
+
+  IdentityEndpoints(Client client, String baseUrl, String tenantId) {
+    this.client = client;
+    this.tenantId = tenantId;
+    this.builder = new IdentityUrlBuilder(baseUrl, tenantId);
+    this.users = new Endpoint(client, builder.buildGetUserUrl());
+    this.groups = new Endpoint(client, builder.buildGroupsUrl());
+    this.token = new Endpoint(client, builder.buildGetAccessTokenUrl());
+    this.refresh = new Endpoint(client, builder.buildRefreshTokenUrl());
+    this.verify = new Endpoint(client, builder.buildValidateTokenUrl());
+    this.identify = new Endpoint(client, builder.buildIdTokenTokenUrl());
+  }
+
+  /** An endpoint url together with its resolved target */
+  public static final class Endpoint {
+
+    private final String url;
+    private final WebTarget target;
+
+    private Endpoint(String url, WebTarget target) {
+      this.url = url;
+      this.target = target;
+    }
+
+    private Endpoint(Client client, String url) {
+      this(url, client.target(url));
+    }
+
+    /**
+     * Returns the endpoint of a sub resource
+     *
+     * @param path path of the sub resource, not encoded
+     * @return endpoint
+     */
+    public Endpoint path(String path) {
+      return new Endpoint(url + "/" + path, target.path(path));
+    }
+
+    /** @return url of the endpoint, e.g. for logging */
+    public String getUrl() {
+      return url;
+    }
+
+    public WebTarget getTarget() {
+      return target;
+    }
+  }
+
+  /** @return endpoint for reading and updating users */
+  public Endpoint users() {
+    return users;
+  }
+
+  /** @return endpoint for reading, creating and deleting groups */
+  public Endpoint groups() {
+    return groups;
+  }
+
+  /**
+   * Returns the endpoint of the members of a group
+   *
+   * @param groupId id of the group
+   * @return endpoint
+   */
+  public Endpoint groupMembers(String groupId) {
+    return groups.path(groupId).path(RESOURCE_MEMBERS);
+  }
+
+  /**
+   * Builds the url encoded path of the group with the given name, relative to {@link #groups()}
+   *
+   * @param groupName name of the group without prefix
+   * @return path
+   * @throws IdentityClientException if the name could not be encoded
+   */
+  public String groupPath(String groupName) throws IdentityClientException {
+    return builder.buildGroupPath(groupName);
+  }
+
+  /** @return endpoint for retrieving access tokens */
+  public Endpoint token() {
+    return token;
+  }
+
+  /** @return endpoint for refreshing access tokens */
+  public Endpoint refresh() {
+    return refresh;
+  }
+
+  /** @return endpoint for verifying tokens */
+  public Endpoint verify() {
+    return verify;
+  }
+
+  /** @return endpoint for retrieving id tokens */
+  public Endpoint identify() {
+    return identify;
+  }
+
+  public String getTenantId() {
+    return tenantId;
+  }
+
+  Client getClient() {
+    return client;
+  }
+}
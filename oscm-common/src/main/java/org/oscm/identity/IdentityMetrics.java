@@ -0,0 +1,243 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.logging.Log4jLogger;
+import org.oscm.logging.LoggerFactory;
+import org.oscm.types.enumtypes.LogMessageIdentifier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records call counts, status classes and latencies per {@link IdentityOperation}. Recording only
+ * increments striped counters, so it is cheap enough to stay always on. The metrics can be read
+ * via {@link #getStatistics()}, exported via JMX with {@link #registerMBean()} or forwarded to
+ * custom {@link Sink}s. A failing sink is logged and does not affect the recorded call or the
+ * other sinks. Once metrics are collected, the INFO log of every response written by
+ * {@link IdentityClientHelper} can be switched off with {@link #setResponseLogging(boolean)}.
+ */
+public class IdentityMetrics implements IdentityMetricsMXBean {
+
+  private static final Log4jLogger LOGGER = LoggerFactory.getLogger(IdentityMetrics.class);
+
+  /** Upper bounds in milliseconds of the latency histogram buckets */
+  private static final long[] BUCKETS = {
+    1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000, Long.MAX_VALUE
+  };
+
+  /** Metrics of all oscm-identity clients */
+  public static final IdentityMetrics SHARED = new IdentityMetrics();
+
+  /** Name under which {@link #SHARED} is registered as MBean */
+  public static final String OBJECT_NAME = "org.oscm.identity:type=IdentityMetrics";
+
+  /** Receives every recorded call, e.g. to forward it to a monitoring system */
+  public interface Sink {
+    void record(IdentityOperation operation, int status, long latencyNanos);
+  }
+
+  private final Map<IdentityOperation, Metric> metrics = new EnumMap<>(IdentityOperation.class);
+  private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+  private volatile boolean responseLogging = true;
+
+  public IdentityMetrics() {
+    for (IdentityOperation operation : IdentityOperation.values()) {
+      metrics.put(operation, new Metric());
+    }
+  }
+
+  /**
+   * Records a call
+   *
+   * @param operation the called operation
+   * @param status http status of the response or 0 if there was none
+   * @param latencyNanos duration of the call in nanoseconds
+   */
+  public void record(IdentityOperation operation, int status, long latencyNanos) {
+    metrics.get(operation).record(status, latencyNanos);
+    for (Sink sink : sinks) {
+      try {
+        sink.record(operation, status, latencyNanos);
+      } catch (RuntimeException e) {
+        // recording runs in finally blocks and must not replace the outcome of the call
+        LOGGER.logWarn(
+            Log4jLogger.SYSTEM_LOG,
+            e,
+            LogMessageIdentifier.WARN_IDENTITY_METRICS_SINK_FAILED,
+            sink.getClass().getName(),
+            operation.name());
+      }
+    }
+  }
+
+  public void addSink(Sink sink) {
+    sinks.add(sink);
+  }
+
+  public void removeSink(Sink sink) {
+    sinks.remove(sink);
+  }
+
+  /**
+   * Returns the statistics of the given operation
+   *
+   * @param operation the operation
+   * @return statistics
+   */
+  public OperationStatistics getStatistics(IdentityOperation operation) {
+    return metrics.get(operation).snapshot(operation.name());
+  }
+
+  @Override
+  public List<OperationStatistics> getStatistics() {
+    List<OperationStatistics> statistics = new ArrayList<>();
+    for (IdentityOperation operation : IdentityOperation.values()) {
+      OperationStatistics snapshot = getStatistics(operation);
+      if (snapshot.getCount() > 0) {
+        statistics.add(snapshot);
+      }
+    }
+    return statistics;
+  }
+
+  @Override
+  public boolean isResponseLogging() {
+    return responseLogging;
+  }
+
+  /**
+   * Switches the INFO log of every oscm-identity response on or off. Error details are logged
+   * regardless of this setting.
+   */
+  @Override
+  public void setResponseLogging(boolean responseLogging) {
+    this.responseLogging = responseLogging;
+  }
+
+  @Override
+  public void reset() {
+    for (Metric metric : metrics.values()) {
+      metric.reset();
+    }
+  }
+
+  /**
+   * Registers {@link #SHARED} at the platform MBean server under {@link #OBJECT_NAME}, unless it is
+   * registered already.
+   *
+   * @throws JMException if the registration fails
+   */
+  public static void registerMBean() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(SHARED, new ObjectName(OBJECT_NAME));
+    } catch (InstanceAlreadyExistsException e) {
+      // registered by another application using this library
+    }
+  }
+
+  /**
+   * Removes {@link #SHARED} from the platform MBean server
+   *
+   * @throws JMException if the removal fails
+   */
+  public static void unregisterMBean() throws JMException {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(OBJECT_NAME);
+    if (server.isRegistered(name)) {
+      server.unregisterMBean(name);
+    }
+  }
+
+  private static int bucket(long latencyMillis) {
+    int i = 0;
+    while (latencyMillis > BUCKETS[i]) {
+      i++;
+    }
+    return i;
+  }
+
+  private static class Metric {
+
+    /** Index 0 counts calls without response, index n counts status nxx */
+    private final LongAdder[] statusClasses = newAdders(6);
+    private final LongAdder[] histogram = newAdders(BUCKETS.length);
+    private final LongAdder totalNanos = new LongAdder();
+
+    void record(int status, long latencyNanos) {
+      int statusClass = status / 100;
+      statusClasses[statusClass >= 1 && statusClass <= 5 ? statusClass : 0].increment();
+      histogram[bucket(TimeUnit.NANOSECONDS.toMillis(latencyNanos))].increment();
+      totalNanos.add(latencyNanos);
+    }
+
+    OperationStatistics snapshot(String operation) {
+      long[] counts = new long[statusClasses.length];
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = statusClasses[i].sum();
+      }
+      long[] buckets = new long[histogram.length];
+      long total = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        buckets[i] = histogram[i].sum();
+        total += buckets[i];
+      }
+      double mean = total == 0 ? 0 : totalNanos.sum() / 1e6 / total;
+      return new OperationStatistics(
+          operation,
+          counts,
+          mean,
+          percentile(buckets, total, 0.5),
+          percentile(buckets, total, 0.99));
+    }
+
+    void reset() {
+      for (LongAdder adder : statusClasses) {
+        adder.reset();
+      }
+      for (LongAdder adder : histogram) {
+        adder.reset();
+      }
+      totalNanos.reset();
+    }
+
+    private static long percentile(long[] buckets, long total, double quantile) {
+      if (total == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(total * quantile);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; i++) {
+        seen += buckets[i];
+        if (seen >= rank) {
+          return BUCKETS[i];
+        }
+      }
+      return BUCKETS[BUCKETS.length - 1];
+    }
+
+    private static LongAdder[] newAdders(int size) {
+      LongAdder[] adders = new LongAdder[size];
+      for (int i = 0; i < size; i++) {
+        adders[i] = new LongAdder();
+      }
+      return adders;
+    }
+  }
+}
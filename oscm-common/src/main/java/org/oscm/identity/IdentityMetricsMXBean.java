@@ -0,0 +1,24 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import java.util.List;
+
+/** Management interface exposing the oscm-identity client metrics via JMX */
+public interface IdentityMetricsMXBean {
+
+  /** @return statistics of all operations called at least once */
+  List<OperationStatistics> getStatistics();
+
+  boolean isResponseLogging();
+
+  void setResponseLogging(boolean responseLogging);
+
+  /** Resets all counters and histograms */
+  void reset();
+}
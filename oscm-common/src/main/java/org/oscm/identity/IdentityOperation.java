@@ -0,0 +1,24 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+/** Logical oscm-identity operations for which metrics are recorded */
+public enum IdentityOperation {
+  GET_USER,
+  UPDATE_USER,
+  GET_GROUP,
+  CREATE_GROUP,
+  GET_GROUPS,
+  DELETE_GROUP,
+  GET_GROUP_MEMBERS,
+  ADD_GROUP_MEMBER,
+  ACCESS_TOKEN,
+  REFRESH_TOKEN,
+  VERIFY_TOKEN,
+  ID_TOKEN
+}
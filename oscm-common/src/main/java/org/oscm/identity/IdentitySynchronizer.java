@@ -0,0 +1,343 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Delta based synchronization of the users, groups and group members of a tenant with the OIDC
+ * provider, e.g. for {@link
+ * org.oscm.types.enumtypes.TimerType#SYNCHRONIZE_USERS_WITH_OIDC_PROVIDER}. Every user and group
+ * is fingerprinted and compared with the {@link SyncSnapshot} of the last run, only the added,
+ * updated and removed ones are passed to the {@link SyncHandler}s. The members of every group are
+ * compared with the members of the last run, only the users that joined or left are passed to the
+ * {@link SyncMembershipHandler}. A run without changes costs one hash per user and group, one
+ * comparison per member and no handler call. Changes are applied in batches with at most the given
+ * number of batches in parallel, in the order: added and updated groups, added and updated users,
+ * joined and left members, removed users, removed groups. The snapshot only takes over the batches
+ * applied successfully, so failed changes are found again by the next run. Users are only removed
+ * if all current users are given, see {@link #synchronize(IdentityClient)}.
+ */
+public class IdentitySynchronizer {
+
+  private final SyncHandler<GroupInfo> groupHandler;
+  private final SyncHandler<UserInfo> userHandler;
+  private final SyncMembershipHandler membershipHandler;
+  private final Executor executor;
+  private final int parallelism;
+  private final int batchSize;
+
+  private volatile SyncSnapshot snapshot;
+
+  /**
+   * @param groupHandler applies the group changes
+   * @param userHandler applies the user changes
+   * @param membershipHandler applies the member changes
+   * @param executor executor running the additional parallel batches, may be null if
+   *     parallelism is 1
+   * @param parallelism maximum number of batches applied in parallel
+   * @param batchSize maximum number of changes per batch
+   * @param snapshot snapshot of the last synchronization, {@link SyncSnapshot#EMPTY} if there
+   *     was none
+   */
+  public IdentitySynchronizer(
+      SyncHandler<GroupInfo> groupHandler,
+      SyncHandler<UserInfo> userHandler,
+      SyncMembershipHandler membershipHandler,
+      Executor executor,
+      int parallelism,
+      int batchSize,
+      SyncSnapshot snapshot) {
+    if (parallelism < 1 || parallelism > 1 && executor == null || batchSize < 1) {
+      throw new IllegalArgumentException("Invalid synchronization settings");
+    }
+    this.groupHandler = groupHandler;
+    this.userHandler = userHandler;
+    this.membershipHandler = membershipHandler;
+    this.executor = executor;
+    this.parallelism = parallelism;
+    this.batchSize = batchSize;
+    this.snapshot = snapshot;
+  }
+
+  /**
+   * Reads all groups and their members from oscm-identity and synchronizes them. The users are
+   * only known as group members, so this never removes a user: a user that left all groups is
+   * kept unchanged. Use {@link #synchronize(Collection, Collection, Map)} with all users of the
+   * tenant to apply user removals.
+   *
+   * @param client client of the tenant
+   * @return outcome of the synchronization
+   * @throws IdentityClientException if the groups or members could not be read, nothing is
+   *     applied in that case
+   */
+  public synchronized SyncResult synchronize(IdentityClient client)
+      throws IdentityClientException {
+
+    Set<GroupInfo> groups = client.getGroups();
+    Map<String, UserInfo> users = new LinkedHashMap<>();
+    Map<String, List<String>> members = new HashMap<>();
+    for (GroupInfo group : groups) {
+      List<String> memberIds = new ArrayList<>();
+      client.forEachGroupMember(
+          group.getId(),
+          user -> {
+            users.putIfAbsent(user.getUserId(), user);
+            memberIds.add(user.getUserId());
+          });
+      members.put(group.getId(), memberIds);
+    }
+    return synchronize(groups, users.values(), members, false);
+  }
+
+  /**
+   * Synchronizes the given groups, users and group members
+   *
+   * @param groups all current groups
+   * @param users all current users
+   * @param members user ids of the current members by group id, a group without entry has no
+   *     members
+   * @return outcome of the synchronization
+   */
+  public synchronized SyncResult synchronize(
+      Collection<GroupInfo> groups,
+      Collection<UserInfo> users,
+      Map<String, ? extends Collection<String>> members) {
+    return synchronize(groups, users, members, true);
+  }
+
+  private SyncResult synchronize(
+      Collection<GroupInfo> groups,
+      Collection<UserInfo> users,
+      Map<String, ? extends Collection<String>> members,
+      boolean allUsers) {
+
+    SyncSnapshot previous = snapshot;
+    SyncDelta<GroupInfo> groupDelta =
+        SyncDelta.compute(
+            groups, previous.getGroups(), GroupInfo::getId, SyncSnapshot::fingerprint);
+    Map<String, String> previousUsers = previous.getUsers();
+    if (!allUsers) {
+      // a missing user is unknown rather than removed, it keeps its fingerprint
+      Set<String> userIds = new HashSet<>();
+      for (UserInfo user : users) {
+        userIds.add(user.getUserId());
+      }
+      previousUsers = new HashMap<>(previousUsers);
+      previousUsers.keySet().retainAll(userIds);
+    }
+    SyncDelta<UserInfo> userDelta =
+        SyncDelta.compute(users, previousUsers, UserInfo::getUserId, SyncSnapshot::fingerprint);
+    Set<String> groupIds = new HashSet<>();
+    for (GroupInfo group : groups) {
+      if (group.getId() != null) {
+        groupIds.add(group.getId());
+      }
+    }
+    SyncMembershipDelta membershipDelta =
+        SyncMembershipDelta.compute(groupIds, members, previous.getMembers());
+
+    List<Exception> failures = Collections.synchronizedList(new ArrayList<>());
+    if (groupDelta.isEmpty() && userDelta.isEmpty() && membershipDelta.isEmpty()) {
+      return new SyncResult(groupDelta, userDelta, membershipDelta, failures);
+    }
+
+    Map<String, String> groupFingerprints = new ConcurrentHashMap<>(previous.getGroups());
+    Map<String, String> userFingerprints = new ConcurrentHashMap<>(previous.getUsers());
+    Map<String, Set<String>> memberIds = new ConcurrentHashMap<>();
+    for (Map.Entry<String, Set<String>> entry : previous.getMembers().entrySet()) {
+      Set<String> groupMembers = ConcurrentHashMap.newKeySet();
+      groupMembers.addAll(entry.getValue());
+      memberIds.put(entry.getKey(), groupMembers);
+    }
+
+    List<Runnable> batches = new ArrayList<>();
+    addChanges(batches, groupDelta, groupHandler, GroupInfo::getId, groupFingerprints, failures);
+    run(batches);
+
+    addChanges(batches, userDelta, userHandler, UserInfo::getUserId, userFingerprints, failures);
+    run(batches);
+
+    addMemberChanges(batches, membershipDelta, memberIds, failures);
+    run(batches);
+
+    addRemovals(batches, userDelta.getRemoved(), userHandler, userFingerprints, failures);
+    run(batches);
+
+    addRemovals(batches, groupDelta.getRemoved(), groupHandler, groupFingerprints, failures);
+    run(batches);
+
+    memberIds.keySet().retainAll(groupFingerprints.keySet());
+    snapshot = new SyncSnapshot(userFingerprints, groupFingerprints, memberIds);
+    return new SyncResult(groupDelta, userDelta, membershipDelta, failures);
+  }
+
+  /** @return snapshot of the last synchronization, e.g. to persist it */
+  public SyncSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /** Applies a batch of changes */
+  private interface BatchAction<T> {
+    void apply(List<T> batch) throws Exception;
+  }
+
+  /** Adds the batches of the added and updated objects of the given delta */
+  private <T> void addChanges(
+      List<Runnable> batches,
+      SyncDelta<T> delta,
+      SyncHandler<T> handler,
+      Function<T, String> id,
+      Map<String, String> fingerprints,
+      List<Exception> failures) {
+
+    addBatches(batches, delta, delta.getAdded(), handler::add, id, fingerprints, failures);
+    addBatches(batches, delta, delta.getUpdated(), handler::update, id, fingerprints, failures);
+  }
+
+  private <T> void addBatches(
+      List<Runnable> batches,
+      SyncDelta<T> delta,
+      List<T> changes,
+      BatchAction<T> action,
+      Function<T, String> id,
+      Map<String, String> fingerprints,
+      List<Exception> failures) {
+
+    for (List<T> batch : partition(changes)) {
+      batches.add(
+          () -> {
+            try {
+              action.apply(batch);
+              for (T object : batch) {
+                String objectId = id.apply(object);
+                fingerprints.put(objectId, delta.getFingerprint(objectId));
+              }
+            } catch (Exception e) {
+              failures.add(e);
+            }
+          });
+    }
+  }
+
+  private void addRemovals(
+      List<Runnable> batches,
+      List<String> removedIds,
+      SyncHandler<?> handler,
+      Map<String, String> fingerprints,
+      List<Exception> failures) {
+
+    for (List<String> batch : partition(removedIds)) {
+      batches.add(
+          () -> {
+            try {
+              handler.remove(batch);
+              for (String removedId : batch) {
+                fingerprints.remove(removedId);
+              }
+            } catch (Exception e) {
+              failures.add(e);
+            }
+          });
+    }
+  }
+
+  /** Adds the batches of the joined and left members of every group */
+  private void addMemberChanges(
+      List<Runnable> batches,
+      SyncMembershipDelta delta,
+      Map<String, Set<String>> memberIds,
+      List<Exception> failures) {
+
+    for (Map.Entry<String, List<String>> entry : delta.getAdded().entrySet()) {
+      String groupId = entry.getKey();
+      for (List<String> batch : partition(entry.getValue())) {
+        batches.add(
+            () -> {
+              try {
+                membershipHandler.addMembers(groupId, batch);
+                memberIds
+                    .computeIfAbsent(groupId, id -> ConcurrentHashMap.newKeySet())
+                    .addAll(batch);
+              } catch (Exception e) {
+                failures.add(e);
+              }
+            });
+      }
+    }
+    for (Map.Entry<String, List<String>> entry : delta.getRemoved().entrySet()) {
+      String groupId = entry.getKey();
+      for (List<String> batch : partition(entry.getValue())) {
+        batches.add(
+            () -> {
+              try {
+                membershipHandler.removeMembers(groupId, batch);
+                memberIds.get(groupId).removeAll(batch);
+              } catch (Exception e) {
+                failures.add(e);
+              }
+            });
+      }
+    }
+  }
+
+  private <T> List<List<T>> partition(List<T> changes) {
+    List<List<T>> batches = new ArrayList<>();
+    for (int i = 0; i < changes.size(); i += batchSize) {
+      batches.add(changes.subList(i, Math.min(i + batchSize, changes.size())));
+    }
+    return batches;
+  }
+
+  /** Runs the given batches with bounded parallelism and clears the list */
+  private void run(List<Runnable> batches) {
+    if (batches.isEmpty()) {
+      return;
+    }
+    int count = batches.size();
+    Queue<Runnable> pending = new ConcurrentLinkedQueue<>(batches);
+    batches.clear();
+    Runnable worker =
+        () -> {
+          Runnable batch;
+          while ((batch = pending.poll()) != null) {
+            batch.run();
+          }
+        };
+
+    List<CompletableFuture<Void>> workers = new ArrayList<>();
+    try {
+      for (int i = 1; i < Math.min(parallelism, count); i++) {
+        workers.add(CompletableFuture.runAsync(worker, executor));
+      }
+    } catch (RejectedExecutionException e) {
+      // the calling thread applies the remaining batches
+    }
+    worker.run();
+    CompletableFuture.allOf(workers.toArray(new CompletableFuture<?>[workers.size()])).join();
+  }
+}
@@ -16,17 +16,25 @@ import org.oscm.identity.model.UserInfo;
 /** Class responsible for building oscm-identity related endpoints */
 public class IdentityUrlBuilder {
 
+  /** Base url of oscm-identity used if none is configured */
+  public static final String DEFAULT_BASE_URL = "http://oscm-identity:9090/oscm-identity";
+
   public IdentityUrlBuilder(String tenantId) {
+    this(DEFAULT_BASE_URL, tenantId);
+  }
+
+  public IdentityUrlBuilder(String baseUrl, String tenantId) {
+    this.baseUrl = baseUrl;
     this.tenantId = tenantId;
   }
 
-  private static String HOSTNAME = "http://oscm-identity:9090/oscm-identity";
   private static String RESOURCE_TENANTS = "tenants";
   private static String RESOURCE_USERS = "users";
   private static String RESOURCE_GROUPS = "groups";
   private static String RESOURCE_TOKEN = "token";
   private static final String OSCM_PREFIX = "OSCM_";
 
+  private String baseUrl;
   private String tenantId;
 
   /**
@@ -37,7 +45,7 @@ public class IdentityUrlBuilder {
   public String buildGetUserUrl() {
 
     String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -57,7 +65,7 @@ public class IdentityUrlBuilder {
   public String buildGetAccessTokenUrl() {
 
     String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -77,7 +85,7 @@ public class IdentityUrlBuilder {
   public String buildRefreshTokenUrl() {
 
     String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -111,7 +119,7 @@ public class IdentityUrlBuilder {
   public String buildCreateGroupUrl() {
 
     String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -147,7 +155,7 @@ public class IdentityUrlBuilder {
   public String buildGroupMembersUrl(String groupId) {
 
     String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -171,7 +179,7 @@ public class IdentityUrlBuilder {
   private String buildTokenUrl() {
 
     String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -190,7 +198,7 @@ public class IdentityUrlBuilder {
   public String buildGroupsUrl() {
   
       String url =
-        new StringBuilder(HOSTNAME)
+        new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -219,7 +227,7 @@ public class IdentityUrlBuilder {
    * @return url
    */
   public String getUpdateUserUrl() {
-    return new StringBuilder(HOSTNAME)
+    return new StringBuilder(baseUrl)
             .append("/")
             .append(RESOURCE_TENANTS)
             .append("/")
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+/**
+ * Snapshot of the metrics of one {@link IdentityOperation}. Latency percentiles are estimated from
+ * histogram buckets and report the upper bound of the bucket.
+ */
+public class OperationStatistics {
+
+  private final String operation;
+  private final long count;
+  private final long failureCount;
+  private final long successCount;
+  private final long redirectCount;
+  private final long clientErrorCount;
+  private final long serverErrorCount;
+  private final double meanLatencyMillis;
+  private final long p50LatencyMillis;
+  private final long p99LatencyMillis;
+
+  OperationStatistics(
+      String operation,
+      long[] statusClassCounts,
+      double meanLatencyMillis,
+      long p50LatencyMillis,
+      long p99LatencyMillis) {
+    this.operation = operation;
+    long total = 0;
+    for (long statusClassCount : statusClassCounts) {
+      total += statusClassCount;
+    }
+    this.count = total;
+    this.failureCount = statusClassCounts[0];
+    this.successCount = statusClassCounts[2];
+    this.redirectCount = statusClassCounts[3];
+    this.clientErrorCount = statusClassCounts[4];
+    this.serverErrorCount = statusClassCounts[5];
+    this.meanLatencyMillis = meanLatencyMillis;
+    this.p50LatencyMillis = p50LatencyMillis;
+    this.p99LatencyMillis = p99LatencyMillis;
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  /** @return number of calls */
+  public long getCount() {
+    return count;
+  }
+
+  /** @return number of calls that got no http response */
+  public long getFailureCount() {
+    return failureCount;
+  }
+
+  /** @return number of calls with status 2xx */
+  public long getSuccessCount() {
+    return successCount;
+  }
+
+  /** @return number of calls with status 3xx */
+  public long getRedirectCount() {
+    return redirectCount;
+  }
+
+  /** @return number of calls with status 4xx */
+  public long getClientErrorCount() {
+    return clientErrorCount;
+  }
+
+  /** @return number of calls with status 5xx */
+  public long getServerErrorCount() {
+    return serverErrorCount;
+  }
+
+  public double getMeanLatencyMillis() {
+    return meanLatencyMillis;
+  }
+
+  public long getP50LatencyMillis() {
+    return p50LatencyMillis;
+  }
+
+  public long getP99LatencyMillis() {
+    return p99LatencyMillis;
+  }
+}
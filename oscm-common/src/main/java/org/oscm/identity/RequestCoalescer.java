@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.exception.IdentityClientException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Deduplicates concurrent identical reads. While a read is in flight, further calls with the same
+ * operation, tenant, resource and access token wait for it and share its result or exception
+ * instead of sending their own request. Nothing is kept once the read has completed, so this works
+ * independently of any caching. The caller executing the read receives its result, every waiting
+ * caller receives its own copy, so no caller sees the changes of another. The result is only
+ * copied if other callers joined the read.
+ */
+public class RequestCoalescer {
+
+  /** Coalescer of all oscm-identity clients */
+  public static final RequestCoalescer SHARED = new RequestCoalescer();
+
+  private final ConcurrentMap<String, Call> inFlight = new ConcurrentHashMap<>();
+
+  private final LongAdder coalesced = new LongAdder();
+
+  /** Reads a resource from oscm-identity */
+  interface Read<T> {
+    T read() throws IdentityClientException;
+  }
+
+  /**
+   * Executes the given read unless an identical one is in flight, in which case its outcome is
+   * returned
+   *
+   * @param operation the called operation
+   * @param tenantId id of the tenant
+   * @param resourceId id of the read resource
+   * @param accessToken access token used for the read
+   * @param read executes the read
+   * @param copy copies the result for a waiting caller, must not modify the given result
+   * @return result of the read
+   * @throws IdentityClientException if the read failed
+   */
+  @SuppressWarnings("unchecked")
+  <T> T read(
+      IdentityOperation operation,
+      String tenantId,
+      String resourceId,
+      String accessToken,
+      Read<T> read,
+      UnaryOperator<T> copy)
+      throws IdentityClientException {
+
+    String key = operation + "\0" + tenantId + "\0" + resourceId + "\0" + accessToken;
+    Call call = new Call();
+    Call running =
+        inFlight.compute(
+            key,
+            (id, current) -> {
+              if (current == null) {
+                return call;
+              }
+              current.waiters++;
+              return current;
+            });
+    if (running != call) {
+      coalesced.increment();
+      T result = (T) await(running);
+      return result == null ? null : copy.apply(result);
+    }
+
+    T result;
+    try {
+      result = read.read();
+    } catch (Throwable e) {
+      inFlight.remove(key, call);
+      call.completeExceptionally(e);
+      throw e;
+    }
+    // nobody joins a removed call, so the result is only copied if there are waiters
+    inFlight.remove(key, call);
+    if (call.waiters == 0 || result == null) {
+      call.complete(result);
+    } else {
+      // waiters copy a snapshot, the caller may change the result as soon as it is returned
+      call.complete(copy.apply(result));
+    }
+    return result;
+  }
+
+  /** @return number of reads answered by a read of another caller */
+  public long getCoalescedCount() {
+    return coalesced.sum();
+  }
+
+  /** @return number of reads currently in flight */
+  public int size() {
+    return inFlight.size();
+  }
+
+  /** A read in flight */
+  private static class Call extends CompletableFuture<Object> {
+
+    /** Number of callers waiting for the read, guarded by the in-flight map */
+    private int waiters;
+  }
+
+  private static Object await(CompletableFuture<Object> call) throws IdentityClientException {
+    try {
+      return call.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IdentityClientException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IdentityClientException) {
+        throw (IdentityClientException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IdentityClientException(cause);
+    }
+  }
+}
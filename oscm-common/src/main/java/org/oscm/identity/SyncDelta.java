@@ -0,0 +1,95 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Changes of users or groups compared with a {@link SyncSnapshot}
+ *
+ * @param <T> type of the synchronized objects
+ */
+public class SyncDelta<T> {
+
+  private final List<T> added = new ArrayList<>();
+  private final List<T> updated = new ArrayList<>();
+  private final List<String> removed = new ArrayList<>();
+
+  /** Fingerprints of the added and updated objects by id */
+  private final Map<String, String> fingerprints = new HashMap<>();
+
+  /**
+   * Compares the current objects with the fingerprints of the last synchronization
+   *
+   * @param current the current objects
+   * @param previous fingerprints of the last synchronization by id
+   * @param id returns the id of an object
+   * @param fingerprint returns the fingerprint of an object
+   * @return the changes
+   */
+  static <T> SyncDelta<T> compute(
+      Collection<T> current,
+      Map<String, String> previous,
+      Function<T, String> id,
+      Function<T, String> fingerprint) {
+
+    SyncDelta<T> delta = new SyncDelta<>();
+    Set<String> seen = new HashSet<>();
+    for (T object : current) {
+      String objectId = id.apply(object);
+      if (objectId == null || !seen.add(objectId)) {
+        continue;
+      }
+      String objectFingerprint = fingerprint.apply(object);
+      String previousFingerprint = previous.get(objectId);
+      if (previousFingerprint == null) {
+        delta.added.add(object);
+      } else if (!previousFingerprint.equals(objectFingerprint)) {
+        delta.updated.add(object);
+      } else {
+        continue;
+      }
+      delta.fingerprints.put(objectId, objectFingerprint);
+    }
+    for (String previousId : previous.keySet()) {
+      if (!seen.contains(previousId)) {
+        delta.removed.add(previousId);
+      }
+    }
+    return delta;
+  }
+
+  public List<T> getAdded() {
+    return Collections.unmodifiableList(added);
+  }
+
+  public List<T> getUpdated() {
+    return Collections.unmodifiableList(updated);
+  }
+
+  public List<String> getRemoved() {
+    return Collections.unmodifiableList(removed);
+  }
+
+  /** @return true if nothing changed */
+  public boolean isEmpty() {
+    return added.isEmpty() && updated.isEmpty() && removed.isEmpty();
+  }
+
+  String getFingerprint(String id) {
+    return fingerprints.get(id);
+  }
+}
@@ -0,0 +1,38 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import java.util.List;
+
+/**
+ * Applies the changes found by an {@link IdentitySynchronizer} to the local users or groups. The
+ * methods are called with batches, possibly from several threads at once. A batch failing with an
+ * exception is retried by the next synchronization.
+ *
+ * @param <T> type of the synchronized objects
+ */
+public interface SyncHandler<T> {
+
+  /**
+   * @param added objects that are new since the last synchronization
+   * @throws Exception if the batch could not be applied
+   */
+  void add(List<T> added) throws Exception;
+
+  /**
+   * @param updated objects whose content changed since the last synchronization
+   * @throws Exception if the batch could not be applied
+   */
+  void update(List<T> updated) throws Exception;
+
+  /**
+   * @param removedIds ids of the objects that no longer exist
+   * @throws Exception if the batch could not be applied
+   */
+  void remove(List<String> removedIds) throws Exception;
+}
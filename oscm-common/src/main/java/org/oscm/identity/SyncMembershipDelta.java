@@ -0,0 +1,89 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Changes of the group members compared with a {@link SyncSnapshot}. Members of removed groups are
+ * not listed, they leave together with their group.
+ */
+public class SyncMembershipDelta {
+
+  private final Map<String, List<String>> added = new LinkedHashMap<>();
+  private final Map<String, List<String>> removed = new LinkedHashMap<>();
+
+  /**
+   * Compares the current members with the members of the last synchronization
+   *
+   * @param groupIds ids of the current groups
+   * @param current user ids of the current members by group id
+   * @param previous user ids of the members of the last synchronization by group id
+   * @return the changes
+   */
+  static SyncMembershipDelta compute(
+      Set<String> groupIds,
+      Map<String, ? extends Collection<String>> current,
+      Map<String, Set<String>> previous) {
+
+    SyncMembershipDelta delta = new SyncMembershipDelta();
+    for (String groupId : groupIds) {
+      Collection<String> currentMembers = current.get(groupId);
+      Set<String> members =
+          currentMembers == null ? Collections.emptySet() : new TreeSet<>(currentMembers);
+      Set<String> previousMembers = previous.get(groupId);
+      if (previousMembers == null) {
+        previousMembers = Collections.emptySet();
+      }
+      if (members.equals(previousMembers)) {
+        continue;
+      }
+      List<String> joined = new ArrayList<>();
+      for (String userId : members) {
+        if (!previousMembers.contains(userId)) {
+          joined.add(userId);
+        }
+      }
+      List<String> left = new ArrayList<>();
+      for (String userId : previousMembers) {
+        if (!members.contains(userId)) {
+          left.add(userId);
+        }
+      }
+      if (!joined.isEmpty()) {
+        delta.added.put(groupId, joined);
+      }
+      if (!left.isEmpty()) {
+        delta.removed.put(groupId, left);
+      }
+    }
+    return delta;
+  }
+
+  /** @return ids of the users that joined by group id */
+  public Map<String, List<String>> getAdded() {
+    return Collections.unmodifiableMap(added);
+  }
+
+  /** @return ids of the users that left by group id */
+  public Map<String, List<String>> getRemoved() {
+    return Collections.unmodifiableMap(removed);
+  }
+
+  /** @return true if no member changed */
+  public boolean isEmpty() {
+    return added.isEmpty() && removed.isEmpty();
+  }
+}
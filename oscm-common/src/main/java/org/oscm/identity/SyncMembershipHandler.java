@@ -0,0 +1,32 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import java.util.List;
+
+/**
+ * Applies the group member changes found by an {@link IdentitySynchronizer} to the local groups.
+ * The methods are called with batches of one group, possibly from several threads at once. A batch
+ * failing with an exception is retried by the next synchronization.
+ */
+public interface SyncMembershipHandler {
+
+  /**
+   * @param groupId id of the group
+   * @param userIds ids of the users that joined the group since the last synchronization
+   * @throws Exception if the batch could not be applied
+   */
+  void addMembers(String groupId, List<String> userIds) throws Exception;
+
+  /**
+   * @param groupId id of the group
+   * @param userIds ids of the users that left the group since the last synchronization
+   * @throws Exception if the batch could not be applied
+   */
+  void removeMembers(String groupId, List<String> userIds) throws Exception;
+}
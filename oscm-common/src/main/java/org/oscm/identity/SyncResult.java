@@ -0,0 +1,59 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.Collections;
+import java.util.List;
+
+/** Outcome of a synchronization run of an {@link IdentitySynchronizer} */
+public class SyncResult {
+
+  private final SyncDelta<GroupInfo> groupDelta;
+  private final SyncDelta<UserInfo> userDelta;
+  private final SyncMembershipDelta membershipDelta;
+  private final List<Exception> failures;
+
+  SyncResult(
+      SyncDelta<GroupInfo> groupDelta,
+      SyncDelta<UserInfo> userDelta,
+      SyncMembershipDelta membershipDelta,
+      List<Exception> failures) {
+    this.groupDelta = groupDelta;
+    this.userDelta = userDelta;
+    this.membershipDelta = membershipDelta;
+    this.failures = Collections.unmodifiableList(failures);
+  }
+
+  /** @return changes of the groups */
+  public SyncDelta<GroupInfo> getGroupDelta() {
+    return groupDelta;
+  }
+
+  /** @return changes of the users */
+  public SyncDelta<UserInfo> getUserDelta() {
+    return userDelta;
+  }
+
+  /** @return changes of the group members */
+  public SyncMembershipDelta getMembershipDelta() {
+    return membershipDelta;
+  }
+
+  /** @return exceptions of the batches that could not be applied */
+  public List<Exception> getFailures() {
+    return failures;
+  }
+
+  /** @return true if all changes have been applied */
+  public boolean isSuccessful() {
+    return failures.isEmpty();
+  }
+}
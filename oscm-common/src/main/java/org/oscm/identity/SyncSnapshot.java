@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Fingerprints of the users and groups and the group members seen by the last synchronization. A
+ * fingerprint is a SHA-256 hash of the content of a user or group, members are kept as the sorted
+ * user ids of every group, so a snapshot is small and can be serialized to survive restarts.
+ */
+public class SyncSnapshot implements Serializable {
+
+  private static final long serialVersionUID = 3052213877563806214L;
+
+  /** Snapshot before the first synchronization */
+  public static final SyncSnapshot EMPTY =
+      new SyncSnapshot(Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+  private static final ThreadLocal<MessageDigest> DIGEST =
+      ThreadLocal.withInitial(SyncSnapshot::newDigest);
+
+  private final Map<String, String> users;
+  private final Map<String, String> groups;
+  private final Map<String, Set<String>> members;
+
+  /**
+   * @param users fingerprints of the users by user id
+   * @param groups fingerprints of the groups by group id
+   * @param members user ids of the members by group id
+   */
+  public SyncSnapshot(
+      Map<String, String> users,
+      Map<String, String> groups,
+      Map<String, ? extends Collection<String>> members) {
+    this.users = Collections.unmodifiableMap(new HashMap<>(users));
+    this.groups = Collections.unmodifiableMap(new HashMap<>(groups));
+    Map<String, Set<String>> memberIds = new HashMap<>();
+    for (Map.Entry<String, ? extends Collection<String>> entry : members.entrySet()) {
+      memberIds.put(entry.getKey(), Collections.unmodifiableSet(new TreeSet<>(entry.getValue())));
+    }
+    this.members = Collections.unmodifiableMap(memberIds);
+  }
+
+  /** @return fingerprints of the users by user id */
+  public Map<String, String> getUsers() {
+    return users;
+  }
+
+  /** @return fingerprints of the groups by group id */
+  public Map<String, String> getGroups() {
+    return groups;
+  }
+
+  /** @return sorted user ids of the members by group id */
+  public Map<String, Set<String>> getMembers() {
+    return members;
+  }
+
+  /**
+   * Returns the fingerprint of the given user
+   *
+   * @param user the user
+   * @return hash of all fields of the user
+   */
+  public static String fingerprint(UserInfo user) {
+    return hash(
+        user.getUserId(),
+        user.getFirstName(),
+        user.getLastName(),
+        user.getEmail(),
+        user.getPhone(),
+        user.getCountry(),
+        user.getCity(),
+        user.getAddress(),
+        user.getPostalCode(),
+        user.getLocale(),
+        user.getGender());
+  }
+
+  /**
+   * Returns the fingerprint of the given group
+   *
+   * @param group the group
+   * @return hash of all fields of the group
+   */
+  public static String fingerprint(GroupInfo group) {
+    return hash(group.getId(), group.getName(), group.getDescription());
+  }
+
+  private static String hash(String... fields) {
+    MessageDigest digest = DIGEST.get();
+    digest.reset();
+    for (String field : fields) {
+      if (field == null) {
+        digest.update((byte) 1);
+      } else {
+        digest.update(field.getBytes(StandardCharsets.UTF_8));
+      }
+      digest.update((byte) 0);
+    }
+    return Base64.getEncoder().encodeToString(digest.digest());
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
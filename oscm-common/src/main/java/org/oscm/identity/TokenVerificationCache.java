@@ -0,0 +1,151 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2019
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+package org.oscm.identity;
+
+import org.oscm.identity.model.TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches successful token validations of {@link IdentityClient#validateToken(String,
+ * TokenType)}. Entries are keyed by a SHA-256 hash of tenant, token type and token, the token
+ * itself is never stored. An entry expires after the maximum time to live, but not later than the
+ * 'exp' claim of the token. Failed validations are not cached. The cache is enabled for a client
+ * by setting it in the {@link IdentityConfiguration}.
+ */
+public class TokenVerificationCache {
+
+  private static final ThreadLocal<MessageDigest> DIGEST =
+      ThreadLocal.withInitial(TokenVerificationCache::newDigest);
+
+  private final long maxTimeToLive;
+  private final int maxEntries;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @param maxTimeToLive maximum time in milliseconds a validation is cached
+   * @param maxEntries maximum number of cached validations
+   */
+  public TokenVerificationCache(long maxTimeToLive, int maxEntries) {
+    if (maxTimeToLive <= 0 || maxEntries < 1) {
+      throw new IllegalArgumentException("Invalid token verification cache settings");
+    }
+    this.maxTimeToLive = maxTimeToLive;
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * Returns the id of the user the given token has been validated for or null if there is no
+   * valid entry.
+   */
+  String getUserId(String tenantId, String token, TokenType tokenType) {
+    String key = hash(tenantId, token, tokenType);
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (now() >= entry.expiresAt) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry.userId;
+  }
+
+  /** Stores a successful validation of the given token. */
+  void put(String tenantId, String token, TokenType tokenType, String userId) {
+    long now = now();
+    long expiresAt = now + maxTimeToLive;
+    long expiry = AccessTokenCache.getExpiry(token);
+    if (expiry > 0) {
+      expiresAt = Math.min(expiresAt, expiry);
+    }
+    if (expiresAt <= now || userId == null) {
+      return;
+    }
+    if (entries.size() >= maxEntries) {
+      evict(now);
+    }
+    entries.put(hash(tenantId, token, tokenType), new Entry(userId, expiresAt));
+  }
+
+  /**
+   * Removes the validations of the given token for all token types, e.g. after logout
+   *
+   * @param tenantId id of the tenant
+   * @param token the revoked token
+   */
+  public void revoke(String tenantId, String token) {
+    for (TokenType tokenType : TokenType.values()) {
+      entries.remove(hash(tenantId, token, tokenType));
+    }
+  }
+
+  /** Removes all entries */
+  public void clear() {
+    entries.clear();
+  }
+
+  /** @return number of cached validations, including expired ones */
+  public int size() {
+    return entries.size();
+  }
+
+  long now() {
+    return System.currentTimeMillis();
+  }
+
+  /**
+   * Removes expired entries and, if that is not enough, arbitrary entries until there is room for
+   * a new one.
+   */
+  private void evict(long now) {
+    entries.values().removeIf(entry -> now >= entry.expiresAt);
+    Iterator<String> keys = entries.keySet().iterator();
+    while (entries.size() >= maxEntries && keys.hasNext()) {
+      keys.next();
+      keys.remove();
+    }
+  }
+
+  private static String hash(String tenantId, String token, TokenType tokenType) {
+    MessageDigest digest = DIGEST.get();
+    digest.reset();
+    digest.update(String.valueOf(tenantId).getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    digest.update(tokenType.name().getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+    return Base64.getEncoder()
+        .encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class Entry {
+
+    private final String userId;
+    private final long expiresAt;
+
+    Entry(String userId, long expiresAt) {
+      this.userId = userId;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
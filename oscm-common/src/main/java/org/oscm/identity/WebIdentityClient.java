@@ -7,31 +7,56 @@
  *******************************************************************************/
 package org.oscm.identity;
 
+import org.oscm.identity.IdentityEndpoints.Endpoint;
 import org.oscm.identity.exception.IdentityClientException;
 import org.oscm.identity.model.AccessType;
 import org.oscm.identity.model.GroupInfo;
 import org.oscm.identity.model.Token;
 import org.oscm.identity.model.UserInfo;
 
+import javax.servlet.http.HttpSession;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * Client for accessing oscm-identity using authentication flow related tokens (stored in session
  * context). In case access token used is expired, client tries to refresh and execute the request again. All
- * necessary settings are stored in {@link IdentityConfiguration} object.
+ * necessary settings are stored in {@link IdentityConfiguration} object. Concurrent requests of one
+ * session share a single refresh, and access tokens are refreshed shortly before they expire.
  */
 public class WebIdentityClient extends IdentityClient {
 
     
   private static final String EXPRIED_TOKEN="Access token has expired.";
 
+  /** Time in milliseconds before the expiry of the access token at which it is refreshed */
+  private static final long REFRESH_MARGIN = 30000;
+
+  /** Running token refreshes per session */
+  private static final ConcurrentMap<HttpSession, CompletableFuture<Void>> REFRESHES =
+      new ConcurrentHashMap<>();
+
   public WebIdentityClient(IdentityConfiguration configuration) {
     super(configuration);
   }
 
+  public WebIdentityClient(IdentityConfiguration configuration, IdentityClientFactory factory) {
+    super(configuration, factory);
+  }
+
   @Override
   void validate(IdentityConfiguration configuration) {
     validator.validateRequiredSettings(configuration);
@@ -41,17 +66,19 @@ public class WebIdentityClient extends IdentityClient {
   @Override
   public String getAccessToken(AccessType accessType) {
     validator.validateWebContext(configuration);
+    refreshIfExpiring(IdentityClientHelper.getAccessToken(configuration));
     return IdentityClientHelper.getAccessToken(configuration);
   }
 
   @Override
   public UserInfo getUser(String userId) throws IdentityClientException {
 
+    String usedToken = currentAccessToken();
     try {
       return super.getUser(userId);
     } catch (IdentityClientException exception) {
 
-      boolean tokenRefreshed = refreshAccessToken(exception);
+      boolean tokenRefreshed = refreshAccessToken(exception, usedToken);
       if (tokenRefreshed) {
         return super.getUser(userId);
       } else {
@@ -60,14 +87,40 @@ public class WebIdentityClient extends IdentityClient {
     }
   }
 
+  @Override
+  public Map<String, IdentityCallResult<UserInfo>> getUsers(
+      Collection<String> userIds, Executor executor, int parallelism)
+      throws IdentityClientException {
+
+    String usedToken = currentAccessToken();
+    Map<String, IdentityCallResult<UserInfo>> results =
+        super.getUsers(userIds, executor, parallelism);
+
+    IdentityClientException expired = null;
+    List<String> retry = new ArrayList<>();
+    for (Map.Entry<String, IdentityCallResult<UserInfo>> result : results.entrySet()) {
+      Exception exception = result.getValue().getException();
+      if (exception instanceof IdentityClientException
+          && EXPRIED_TOKEN.equals(exception.getMessage())) {
+        expired = (IdentityClientException) exception;
+        retry.add(result.getKey());
+      }
+    }
+    if (expired != null && refreshAccessToken(expired, usedToken)) {
+      results.putAll(super.getUsers(retry, executor, parallelism));
+    }
+    return results;
+  }
+
   @Override
   public GroupInfo createGroup(String groupName, String groupDescription) throws IdentityClientException {
 
+    String usedToken = currentAccessToken();
     try {
       return super.createGroup(groupName, groupDescription);
     } catch (IdentityClientException exception) {
 
-      boolean tokenRefreshed = refreshAccessToken(exception);
+      boolean tokenRefreshed = refreshAccessToken(exception, usedToken);
       if (tokenRefreshed) {
         return super.createGroup(groupName, groupDescription);
       } else {
@@ -79,11 +132,12 @@ public class WebIdentityClient extends IdentityClient {
   @Override
   public Set<UserInfo> getGroupMembers(String groupId) throws IdentityClientException {
 
+    String usedToken = currentAccessToken();
     try {
       return super.getGroupMembers(groupId);
     } catch (IdentityClientException exception) {
 
-      boolean tokenRefreshed = refreshAccessToken(exception);
+      boolean tokenRefreshed = refreshAccessToken(exception, usedToken);
       if (tokenRefreshed) {
         return super.getGroupMembers(groupId);
       } else {
@@ -92,14 +146,33 @@ public class WebIdentityClient extends IdentityClient {
     }
   }
 
+  @Override
+  public long forEachGroupMember(String groupId, Consumer<? super UserInfo> consumer)
+      throws IdentityClientException {
+
+    String usedToken = currentAccessToken();
+    try {
+      return super.forEachGroupMember(groupId, consumer);
+    } catch (IdentityClientException exception) {
+
+      boolean tokenRefreshed = refreshAccessToken(exception, usedToken);
+      if (tokenRefreshed) {
+        return super.forEachGroupMember(groupId, consumer);
+      } else {
+        throw exception;
+      }
+    }
+  }
+
   @Override
   public void addGroupMember(String userId, String groupId) throws IdentityClientException {
 
+    String usedToken = currentAccessToken();
     try {
       super.addGroupMember(userId, groupId);
     } catch (IdentityClientException exception) {
 
-      boolean tokenRefreshed = refreshAccessToken(exception);
+      boolean tokenRefreshed = refreshAccessToken(exception, usedToken);
       if (tokenRefreshed) {
         super.addGroupMember(userId, groupId);
       } else {
@@ -108,27 +181,115 @@ public class WebIdentityClient extends IdentityClient {
     }
   }
 
-  private boolean refreshAccessToken(IdentityClientException exception) throws IdentityClientException {
+  /**
+   * Refreshes the tokens of the session if the given exception reports an expired access token.
+   * Only one refresh per session runs at a time, concurrent callers wait for its result. No
+   * refresh is done if the session already holds other tokens than the failed request used.
+   *
+   * @param exception exception of the failed request
+   * @param usedToken access token used by the failed request
+   * @return true if the request can be repeated with refreshed tokens
+   * @throws IdentityClientException if the refresh failed
+   */
+  private boolean refreshAccessToken(IdentityClientException exception, String usedToken)
+      throws IdentityClientException {
 
     if (EXPRIED_TOKEN.equals(exception.getMessage())) {
+      refreshTokens(usedToken);
+      return true;
+    }
+    return false;
+  }
 
-      String refreshToken = IdentityClientHelper.getRefreshToken(configuration);
-      IdentityUrlBuilder builder = new IdentityUrlBuilder(configuration.getTenantId());
-      String url = builder.buildRefreshTokenUrl();
+  /**
+   * Refreshes the tokens shortly before the access token expires, according to its 'exp' claim.
+   * A failure is ignored, the request then fails and is repeated after a refresh.
+   */
+  private void refreshIfExpiring(String accessToken) {
 
-      Token token = new Token();
-      token.setRefreshToken(refreshToken);
+    long expiry = accessToken == null ? 0 : AccessTokenCache.getExpiry(accessToken);
+    if (expiry > 0 && System.currentTimeMillis() >= expiry - REFRESH_MARGIN) {
+      try {
+        refreshTokens(accessToken);
+      } catch (IdentityClientException | RuntimeException e) {
+        // the expired token is reported by the request
+      }
+    }
+  }
 
-      Response response =
-          client
-              .target(url)
-              .request(MediaType.APPLICATION_JSON)
-              .post(Entity.entity(token, MediaType.APPLICATION_JSON));
+  private void refreshTokens(String usedToken) throws IdentityClientException {
 
-      Token refreshedTokens = IdentityClientHelper.handleResponse(response, Token.class, url);
-      IdentityClientHelper.updateTokens(configuration, refreshedTokens);
-      return true;
+    HttpSession session = configuration.getSessionContext();
+    CompletableFuture<Void> refresh = new CompletableFuture<>();
+    CompletableFuture<Void> running = REFRESHES.putIfAbsent(session, refresh);
+    if (running != null) {
+      await(running);
+      return;
     }
-    return false;
+
+    try {
+      if (Objects.equals(usedToken, IdentityClientHelper.getAccessToken(configuration))) {
+        String refreshToken = IdentityClientHelper.getRefreshToken(configuration);
+        Endpoint endpoint = endpoints().refresh();
+
+        Token token = new Token();
+        token.setRefreshToken(refreshToken);
+
+        Token refreshedTokens =
+            call(
+                IdentityOperation.REFRESH_TOKEN,
+                false,
+                timeout -> {
+                  long start = System.nanoTime();
+                  Response response =
+                      IdentityClientHelper.send(
+                          IdentityOperation.REFRESH_TOKEN,
+                          start,
+                          () ->
+                              withTimeout(
+                                      endpoint.getTarget().request(MediaType.APPLICATION_JSON),
+                                      timeout)
+                                  .post(Entity.entity(token, MediaType.APPLICATION_JSON)));
+
+                  return IdentityClientHelper.handleResponse(
+                      response,
+                      Token.class,
+                      endpoint.getUrl(),
+                      IdentityOperation.REFRESH_TOKEN,
+                      start);
+                });
+        IdentityClientHelper.updateTokens(configuration, refreshedTokens);
+      }
+      refresh.complete(null);
+    } catch (IdentityClientException | RuntimeException e) {
+      refresh.completeExceptionally(e);
+      throw e;
+    } finally {
+      REFRESHES.remove(session, refresh);
+    }
+  }
+
+  private void await(CompletableFuture<Void> refresh) throws IdentityClientException {
+    try {
+      refresh.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IdentityClientException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IdentityClientException) {
+        throw (IdentityClientException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IdentityClientException(cause);
+    }
+  }
+
+  private String currentAccessToken() {
+    return configuration.getSessionContext() == null
+        ? null
+        : IdentityClientHelper.getAccessToken(configuration);
   }
 }
@@ -81,7 +81,17 @@ public class IdentityClientException extends SaaSApplicationException {
       /**
        * A communication problem with the OIDC server occurs 
        */
-      OIDC_ERROR
+      OIDC_ERROR,
+      
+      /**
+       * The IdentityClient request did not complete within its deadline
+       */
+      TIMEOUT,
+      
+      /**
+       * The IdentityClient request was rejected because the circuit breaker is open
+       */
+      CIRCUIT_OPEN
 
   }
 }
@@ -7,10 +7,14 @@
  *******************************************************************************/
 package org.oscm.identity.mapper;
 
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.oscm.identity.model.UserInfo;
 import org.oscm.internal.types.enumtypes.Salutation;
@@ -31,7 +35,16 @@ public class UserMapper {
     
     private static final String DEFAULT_LOCALE = "en";
 
-    
+    /**
+     * Minimum number of users mapped with a parallel stream when parallel
+     * mapping is requested.
+     */
+    public static final int PARALLEL_THRESHOLD = 1000;
+
+    /** Mapping functions resolved per element class of {@link #fromSet(Set)} */
+    private static final Map<Class<?>, Function<Object, Object>> MAPPERS =
+            new ConcurrentHashMap<>();
+
     
     /**
      * @param userDetails a VOUserDetails object which should be mapped to UserInfo object.
@@ -76,29 +89,100 @@ public class UserMapper {
     }
 
     
+    /**
+     * @param userInfos the UserInfo objects which should be mapped.
+     * @return the mapped VOUserDetails objects in iteration order of the
+     *         given collection.
+     */
+    public static List<VOUserDetails> toUserDetails(
+            Collection<UserInfo> userInfos) {
+        return toUserDetails(userInfos, false);
+    }
+
+    /**
+     * @param userInfos the UserInfo objects which should be mapped.
+     * @param parallel true if collections of at least
+     *            {@link #PARALLEL_THRESHOLD} users should be mapped with a
+     *            parallel stream.
+     * @return the mapped VOUserDetails objects in iteration order of the
+     *         given collection.
+     */
+    public static List<VOUserDetails> toUserDetails(
+            Collection<UserInfo> userInfos, boolean parallel) {
+        return map(userInfos, parallel, UserMapper::from);
+    }
+
+    /**
+     * @param userDetails the VOUserDetails objects which should be mapped.
+     * @return the mapped UserInfo objects in iteration order of the given
+     *         collection.
+     */
+    public static List<UserInfo> toUserInfos(
+            Collection<VOUserDetails> userDetails) {
+        return toUserInfos(userDetails, false);
+    }
+
+    /**
+     * @param userDetails the VOUserDetails objects which should be mapped.
+     * @param parallel true if collections of at least
+     *            {@link #PARALLEL_THRESHOLD} users should be mapped with a
+     *            parallel stream.
+     * @return the mapped UserInfo objects in iteration order of the given
+     *         collection.
+     */
+    public static List<UserInfo> toUserInfos(
+            Collection<VOUserDetails> userDetails, boolean parallel) {
+        return map(userDetails, parallel, UserMapper::from);
+    }
+
     /**
      * @param userInfo a set of UserInfo or VOUserDetail objects
      * @return a List of mapped objects. UserInfo -> VOUserDetails. VOUserDetails -> UserInfo. 
      */
     public static <T> List<?> fromSet(Set<T> userInfo) {
-        List<Object> userInfos = new ArrayList();
-        if (userInfo.getClass() != null) {
-            for (T user : userInfo) {
-                try {
-                    Method from = UserMapper.class
-                            .getMethod("from", user.getClass());
-                    userInfos.add(from.invoke(null, user));
-
-                } catch (Exception e) {
-                    logger.logError(
-                            LogMessageIdentifier.ERROR_OBJECT_ENCODING_FAILED,
-                            "An error occured while mapping userInfo and userDetails");
+        List<Object> userInfos = new ArrayList<>(userInfo.size());
+        for (T user : userInfo) {
+            try {
+                Function<Object, Object> from = MAPPERS
+                        .computeIfAbsent(user.getClass(), UserMapper::resolve);
+                if (from == null) {
+                    throw new IllegalArgumentException(
+                            "Unsupported type " + user.getClass());
                 }
+                userInfos.add(from.apply(user));
+
+            } catch (RuntimeException e) {
+                logger.logError(
+                        LogMessageIdentifier.ERROR_OBJECT_ENCODING_FAILED,
+                        "An error occured while mapping userInfo and userDetails");
             }
         }
         return userInfos;
     }
 
+    private static Function<Object, Object> resolve(Class<?> type) {
+        if (UserInfo.class.isAssignableFrom(type)) {
+            return user -> from((UserInfo) user);
+        }
+        if (VOUserDetails.class.isAssignableFrom(type)) {
+            return user -> from((VOUserDetails) user);
+        }
+        return null;
+    }
+
+    private static <S, T> List<T> map(Collection<S> source, boolean parallel,
+            Function<S, T> mapper) {
+        if (parallel && source.size() >= PARALLEL_THRESHOLD) {
+            return source.parallelStream().map(mapper)
+                    .collect(Collectors.toList());
+        }
+        List<T> result = new ArrayList<>(source.size());
+        for (S element : source) {
+            result.add(mapper.apply(element));
+        }
+        return result;
+    }
+
     /**
      * @param gender the gender type of the oidc provider
      * @return the oscm specific gender
@@ -409,6 +409,7 @@ public enum LogMessageIdentifier {
   WARN_GET_FILE_CONTENT_FAILED("40334"), //
   WARN_LDAP_PARTIAL_EXCEPTION("40335"), //
   WARN_TOO_MANY_CHARACTERS_FOR_PRICE_FROM_TAG("40336"), //
+  WARN_IDENTITY_METRICS_SINK_FAILED("40337"), //
 
   // Error log
   ERROR_USER_DELETION_FAILED("70001"), //
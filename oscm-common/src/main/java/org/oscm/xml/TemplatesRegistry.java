@@ -0,0 +1,302 @@
+/*******************************************************************************
+ *
+ *  Copyright FUJITSU LIMITED 2018
+ *
+ *  Creation Date: 18.10.2026
+ *
+ *******************************************************************************/
+
+package org.oscm.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Registry of compiled XSLT stylesheets. Every stylesheet is compiled once
+ * into thread-safe {@link Templates}, from which new transformers are created
+ * cheaply.
+ * <p>
+ * A stream source consisting of a system id only is registered under its
+ * system id. If the system id denotes a file, the stylesheet is compiled again
+ * as soon as the modification time of the file changes. All other sources are
+ * read completely and registered under a hash of their content and their
+ * system id, so a changed stylesheet results in a new entry.
+ * <p>
+ * The number of entries is bounded, the least recently used entry is evicted
+ * first. Instances are thread-safe; the same stylesheet may be compiled more
+ * than once if it is requested concurrently for the first time.
+ *
+ */
+public class TemplatesRegistry {
+
+    /**
+     * Registry shared by {@link Transformers#newTransformer(Source)}.
+     */
+    public static final TemplatesRegistry SHARED = new TemplatesRegistry(64);
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Map<String, Compiled> entries;
+
+    /**
+     * Compiled stylesheet together with the file it was compiled from.
+     */
+    private static class Compiled {
+
+        final Templates templates;
+        final File file;
+        final long lastModified;
+
+        Compiled(Templates templates, File file, long lastModified) {
+            this.templates = templates;
+            this.file = file;
+            this.lastModified = lastModified;
+        }
+
+        boolean isOutdated() {
+            return file != null && file.lastModified() != lastModified;
+        }
+    }
+
+    /**
+     * Stylesheet read into memory together with the hash of its content.
+     */
+    private static class Content {
+
+        final StreamSource source;
+        final String hash;
+
+        Content(byte[] bytes) {
+            source = new StreamSource(new ByteArrayInputStream(bytes));
+            hash = hash((byte) 0, bytes);
+        }
+
+        Content(String chars) {
+            source = new StreamSource(new StringReader(chars));
+            // distinguishes character from byte content
+            hash = hash((byte) 1, chars.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private static String hash(byte type, byte[] bytes) {
+            MessageDigest digest;
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+            digest.update(type);
+            byte[] hash = digest.digest(bytes);
+            char[] hex = new char[hash.length * 2];
+            for (int i = 0; i < hash.length; i++) {
+                hex[2 * i] = HEX[(hash[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HEX[hash[i] & 0xF];
+            }
+            return new String(hex);
+        }
+    }
+
+    /**
+     * Creates a registry holding up to the given number of stylesheets.
+     *
+     * @param capacity
+     *            the maximum number of compiled stylesheets
+     */
+    public TemplatesRegistry(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid capacity: "
+                    + capacity);
+        }
+        entries = new LinkedHashMap<String, Compiled>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Compiled> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the compiled stylesheet of the given source, compiling it if it
+     * is not registered yet or if its file has changed.
+     *
+     * @param source
+     *            the XSLT stylesheet
+     * @return the thread-safe compiled stylesheet
+     * @throws TransformerConfigurationException
+     *             if the stylesheet cannot be read or compiled
+     */
+    public Templates getTemplates(Source source)
+            throws TransformerConfigurationException {
+        if (isSystemIdOnly(source)) {
+            String key = source.getSystemId();
+            Compiled entry = get(key);
+            if (entry == null || entry.isOutdated()) {
+                File file = toFile(key);
+                // taken before compiling, a concurrent change triggers a reload
+                long lastModified = file == null ? 0 : file.lastModified();
+                entry = new Compiled(compile(source), file, lastModified);
+                put(key, entry);
+            }
+            return entry.templates;
+        }
+        Content content = readContent(source);
+        String key = content.hash + ' ' + source.getSystemId();
+        Compiled entry = get(key);
+        if (entry == null) {
+            entry = new Compiled(compile(content.source), null, 0);
+            put(key, entry);
+        }
+        return entry.templates;
+    }
+
+    /**
+     * Creates a new transformer for the given stylesheet.
+     *
+     * @param source
+     *            the XSLT stylesheet
+     * @return a new transformer, not thread-safe
+     * @throws TransformerConfigurationException
+     *             if the stylesheet cannot be read or compiled
+     */
+    public Transformer newTransformer(Source source)
+            throws TransformerConfigurationException {
+        return getTemplates(source).newTransformer();
+    }
+
+    /**
+     * Removes the stylesheet registered under the given system id.
+     */
+    public void invalidate(String systemId) {
+        synchronized (entries) {
+            entries.remove(systemId);
+        }
+    }
+
+    /**
+     * Removes all stylesheets.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Compiled get(String key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void put(String key, Compiled entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    private static Templates compile(Source source)
+            throws TransformerConfigurationException {
+        return Transformers.getFactory().newTemplates(source);
+    }
+
+    private static boolean isSystemIdOnly(Source source) {
+        if (!(source instanceof StreamSource) || source.getSystemId() == null) {
+            return false;
+        }
+        StreamSource streamSource = (StreamSource) source;
+        return streamSource.getInputStream() == null
+                && streamSource.getReader() == null;
+    }
+
+    /**
+     * Reads the stylesheet into memory, keeping its system id for resolving
+     * relative references.
+     */
+    private static Content readContent(Source source)
+            throws TransformerConfigurationException {
+        try {
+            StreamSource streamSource = source instanceof StreamSource
+                    ? (StreamSource) source : new StreamSource();
+            Content content;
+            if (streamSource.getInputStream() != null) {
+                content = new Content(read(streamSource.getInputStream()));
+            } else if (streamSource.getReader() != null) {
+                content = new Content(read(streamSource.getReader()));
+            } else {
+                StringWriter writer = new StringWriter();
+                Transformers.getFactory().newTransformer()
+                        .transform(source, new StreamResult(writer));
+                content = new Content(writer.toString());
+            }
+            content.source.setSystemId(source.getSystemId());
+            return content;
+        } catch (IOException e) {
+            throw new TransformerConfigurationException(e);
+        } catch (TransformerException e) {
+            throw new TransformerConfigurationException(e);
+        }
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static String read(Reader reader) throws IOException {
+        StringBuilder out = new StringBuilder();
+        char[] buffer = new char[4096];
+        int count;
+        while ((count = reader.read(buffer)) >= 0) {
+            out.append(buffer, 0, count);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns the file denoted by the given system id or <code>null</code>
+     * if it is no file URI.
+     */
+    private static File toFile(String systemId) {
+        try {
+            URI uri = new URI(systemId);
+            if ("file".equalsIgnoreCase(uri.getScheme())) {
+                return new File(uri);
+            }
+        } catch (Exception e) {
+            // no valid file URI, the stylesheet is not checked for changes
+        }
+        return null;
+    }
+}
@@ -16,12 +16,31 @@ import javax.xml.transform.TransformerFactory;
 
 /**
  * Utility class for working with XML transformers.
+ * <p>
+ * Stylesheets are compiled once by {@link TemplatesRegistry#SHARED}.
+ * Transformer factories are not thread-safe, every thread keeps its own
+ * factory instead of looking one up for each transformer.
  * 
  * @author kulle
  * 
  */
 public class Transformers {
 
+    private static final ThreadLocal<TransformerFactory> FACTORIES = new ThreadLocal<TransformerFactory>();
+
+    /**
+     * Returns the transformer factory of the calling thread. The factory must
+     * not be configured or handed over to other threads.
+     */
+    static TransformerFactory getFactory() {
+        TransformerFactory factory = FACTORIES.get();
+        if (factory == null) {
+            factory = TransformerFactory.newInstance();
+            FACTORIES.set(factory);
+        }
+        return factory;
+    }
+
     /**
      * Creates a XML transformer with the following properties:<br />
      * <br />
@@ -32,8 +51,7 @@ public class Transformers {
     public static Transformer newTransformer()
             throws TransformerConfigurationException {
 
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer();
+        Transformer transformer = getFactory().newTransformer();
         transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
         transformer.setOutputProperty(OutputKeys.VERSION, "1.0");
         transformer.setOutputProperty(OutputKeys.METHOD, "xml");
@@ -46,12 +64,15 @@ public class Transformers {
      * character encoding: UTF-8<br />
      * output method: xml<br />
      * output version: 1.0
+     * <p>
+     * The stylesheet is compiled once and taken from
+     * {@link TemplatesRegistry#SHARED} afterwards.
      */
     public static Transformer newTransformer(Source source)
             throws TransformerConfigurationException {
 
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer(source);
+        Transformer transformer = TemplatesRegistry.SHARED
+                .newTransformer(source);
         transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
         transformer.setOutputProperty(OutputKeys.VERSION, "1.0");
         transformer.setOutputProperty(OutputKeys.METHOD, "xml");
@@ -69,8 +90,7 @@ public class Transformers {
     public static Transformer newFormatingTransformer()
             throws TransformerConfigurationException {
 
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer();
+        Transformer transformer = getFactory().newTransformer();
         transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
         transformer.setOutputProperty(OutputKeys.VERSION, "1.0");
         transformer.setOutputProperty(OutputKeys.METHOD, "xml");
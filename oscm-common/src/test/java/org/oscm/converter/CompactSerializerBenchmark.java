@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.oscm.encrypter.AESEncrypter;
+
+/**
+ * JMH benchmark of the compact binary encoding compared with the XML encoding
+ * of {@link XMLSerializer}, both including encryption. The <code>main</code>
+ * method prints the encoded sizes before running the benchmarks.
+ * <p>
+ * Not part of the unit test run; start with the <code>main</code> method from
+ * the test class path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompactSerializerBenchmark {
+
+    private Object parameters;
+
+    private String xml;
+
+    private String binary;
+
+    @Setup
+    public void setup() {
+        AESEncrypter.generateKey();
+        parameters = createParameters();
+        xml = XMLSerializer.toXml(parameters);
+        binary = XMLSerializer.toBinary(parameters);
+    }
+
+    static Object createParameters() {
+        List<Object> parameters = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> parameter = new HashMap<>();
+            parameter.put("id", "PARAMETER_" + i);
+            parameter.put("value", new BigDecimal("1234.5" + i));
+            parameter.put("key", UUID.randomUUID());
+            parameter.put("unit", TimeUnit.SECONDS);
+            parameter.put("data", new byte[] { 1, 2, 3, (byte) i });
+            parameters.add(parameter);
+        }
+        return parameters;
+    }
+
+    @Benchmark
+    public String toXml() {
+        return XMLSerializer.toXml(parameters);
+    }
+
+    @Benchmark
+    public String toBinary() {
+        return XMLSerializer.toBinary(parameters);
+    }
+
+    @Benchmark
+    public Object toObjectFromXml() {
+        return XMLSerializer.toObject(xml);
+    }
+
+    @Benchmark
+    public Object toObjectFromBinary() {
+        return XMLSerializer.toObject(binary);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Object parameters = createParameters();
+        AESEncrypter.generateKey();
+        System.out.println("XML encoding:     "
+                + AESEncrypter.decrypt(XMLSerializer.toXml(parameters))
+                        .getBytes(StandardCharsets.UTF_8).length
+                + " bytes, " + XMLSerializer.toXml(parameters).length()
+                + " chars encrypted");
+        System.out.println("Compact encoding: "
+                + CompactSerializer.toBytes(parameters).length + " bytes, "
+                + XMLSerializer.toBinary(parameters).length()
+                + " chars encrypted");
+        new Runner(new OptionsBuilder()
+                .include(CompactSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.oscm.encrypter.AESEncrypter;
+
+/**
+ * Unit tests for {@link CompactSerializer}.
+ */
+@SuppressWarnings("unchecked")
+public class CompactSerializerTest {
+
+    private static Object roundTrip(Object value) throws IOException {
+        return CompactSerializer.toObject(CompactSerializer.toBytes(value));
+    }
+
+    @Test
+    public void roundTrip_simpleValues() throws Exception {
+        List<Object> values = Arrays.<Object> asList(null, "",
+                "text \u00E4\uD83D\uDE00", Boolean.TRUE, Boolean.FALSE,
+                Integer.valueOf(Integer.MIN_VALUE), Integer.valueOf(-1),
+                Long.valueOf(Long.MAX_VALUE), Short.valueOf((short) -5),
+                Byte.valueOf((byte) -128), Double.valueOf(-0.5),
+                Double.valueOf(Double.NaN), Float.valueOf(1.25f),
+                Character.valueOf('\uFFFF'), new BigDecimal("-12.500"),
+                new BigDecimal("1E+3"),
+                new BigInteger("-123456789012345678901234567890"),
+                UUID.fromString("0b6bb9a6-29d3-4ae9-9b4c-56c3a2b7c7e1"),
+                new Date(-1000L), TimeUnit.SECONDS);
+        for (Object value : values) {
+            assertEquals(value, roundTrip(value));
+        }
+    }
+
+    @Test
+    public void roundTrip_bigDecimalKeepsScale() throws Exception {
+        // when
+        BigDecimal result = (BigDecimal) roundTrip(new BigDecimal("12.50"));
+
+        // then
+        assertEquals(2, result.scale());
+    }
+
+    @Test
+    public void roundTrip_byteArray() throws Exception {
+        // given
+        byte[] bytes = new byte[] { 0, 1, -1, 127 };
+
+        // when
+        Object result = roundTrip(bytes);
+
+        // then
+        assertArrayEquals(bytes, (byte[]) result);
+    }
+
+    @Test
+    public void roundTrip_collectionsKeepTheirType() throws Exception {
+        // given
+        Map<String, Object> linked = new LinkedHashMap<>();
+        linked.put("z", new LinkedList<>(Arrays.asList("1", "2")));
+        linked.put("a", new LinkedHashSet<>(Arrays.asList("b", "a")));
+        Map<Object, Object> map = new HashMap<>();
+        map.put(Integer.valueOf(1), linked);
+        map.put(null, new HashSet<>(Arrays.asList(TimeUnit.DAYS)));
+        map.put("list", new ArrayList<>(Arrays.asList(null, "x")));
+
+        // when
+        Map<Object, Object> result = (Map<Object, Object>) roundTrip(map);
+
+        // then
+        assertEquals(map, result);
+        assertEquals(HashMap.class, result.getClass());
+        Map<String, Object> resultLinked = (Map<String, Object>) result
+                .get(Integer.valueOf(1));
+        assertEquals(LinkedHashMap.class, resultLinked.getClass());
+        assertEquals(Arrays.asList("z", "a"),
+                new ArrayList<>(resultLinked.keySet()));
+        assertEquals(LinkedList.class, resultLinked.get("z").getClass());
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(
+                (LinkedHashSet<String>) resultLinked.get("a")));
+    }
+
+    @Test
+    public void roundTrip_immutableListsAsArrayList() throws Exception {
+        assertEquals(ArrayList.class, roundTrip(Collections.emptyList())
+                .getClass());
+        assertEquals(ArrayList.class,
+                roundTrip(Collections.singletonList("a")).getClass());
+        assertEquals(Arrays.asList("a", "b"), roundTrip(Arrays.asList("a",
+                "b")));
+    }
+
+    @Test
+    public void toBytes_smallerThanXml() throws Exception {
+        // given
+        AESEncrypter.generateKey();
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            values.add(new BigDecimal("1234.5" + i));
+            values.add(UUID.randomUUID());
+            values.add(TimeUnit.SECONDS);
+        }
+
+        // when
+        byte[] compact = CompactSerializer.toBytes(values);
+        String xml = AESEncrypter.decrypt(XMLSerializer.toXml(values));
+
+        // then
+        assertTrue(CompactSerializer.isCompact(compact));
+        assertTrue(compact.length * 4 < xml.length());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toBytes_unsupportedType() {
+        CompactSerializer.toBytes(Arrays.asList(new TreeMap<>()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toBytes_cycle() {
+        List<Object> list = new ArrayList<>();
+        list.add(list);
+        CompactSerializer.toBytes(list);
+    }
+
+    @Test
+    public void toBytes_sharedReferencesWrittenTwice() throws Exception {
+        // given
+        List<String> shared = new ArrayList<>(Arrays.asList("a"));
+
+        // when
+        List<Object> result = (List<Object>) roundTrip(Arrays.asList(shared,
+                shared));
+
+        // then
+        assertEquals(Arrays.asList(shared, shared), result);
+    }
+
+    @Test
+    public void isCompact_xml() {
+        assertFalse(CompactSerializer.isCompact("<?xml version=\"1.0\"?>"
+                .getBytes(StandardCharsets.UTF_8)));
+        assertFalse(CompactSerializer.isCompact(new byte[0]));
+        assertFalse(CompactSerializer.isCompact(null));
+    }
+
+    @Test(expected = IOException.class)
+    public void toObject_unknownVersion() throws Exception {
+        byte[] bytes = CompactSerializer.toBytes(null);
+        bytes[CompactSerializer.MAGIC.length]++;
+        CompactSerializer.toObject(bytes);
+    }
+
+    @Test(expected = IOException.class)
+    public void toObject_truncated() throws Exception {
+        byte[] bytes = CompactSerializer.toBytes("text");
+        CompactSerializer.toObject(Arrays.copyOf(bytes, bytes.length - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void toObject_noEnumType() throws Exception {
+        byte[] bytes = CompactSerializer.toBytes(TimeUnit.SECONDS);
+        String replaced = new String(bytes, StandardCharsets.ISO_8859_1)
+                .replace(TimeUnit.class.getName(), "java.util.concurrent.Executor");
+        CompactSerializer.toObject(replaced
+                .getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void toObject_null() throws Exception {
+        assertNull(roundTrip(null));
+    }
+}
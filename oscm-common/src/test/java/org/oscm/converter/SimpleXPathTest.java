@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Unit tests for {@link SimpleXPath}. The results are compared with JAXP
+ * XPath.
+ */
+public class SimpleXPathTest {
+
+    private static final String BILLING_DETAILS = "<BillingDetails>"
+            + "<OrganizationDetails id='4711'><Name>Supplier</Name></OrganizationDetails>"
+            + "<Subscriptions>"
+            + "<Subscription id='1'><PriceModel id='10'/><PriceModel id='11'/></Subscription>"
+            + "<Subscription><PriceModel id='12'/></Subscription>"
+            + "<Subscription id='3'/>" + "</Subscriptions>"
+            + "</BillingDetails>";
+
+    private static final String[] EXPRESSIONS = new String[] { "/",
+            "/BillingDetails", "/BillingDetails/OrganizationDetails/@id",
+            "/BillingDetails/OrganizationDetails/Name",
+            "/BillingDetails/Subscriptions/Subscription",
+            "/BillingDetails/Subscriptions/Subscription/@id",
+            "/BillingDetails/Subscriptions/Subscription/PriceModel/@id",
+            "/BillingDetails/Other", "/BillingDetails/@id", "/@id",
+            "Subscriptions/Subscription", "@id", "PriceModel/@id" };
+
+    private static NodeList evaluateWithJaxp(Node node, String expression)
+            throws Exception {
+        XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                expression, null);
+        return (NodeList) expr.evaluate(node, XPathConstants.NODESET);
+    }
+
+    private static void assertSameAsJaxp(Node context, String expression)
+            throws Exception {
+        NodeList expected = evaluateWithJaxp(context, expression);
+        NodeList actual = XMLConverter.getNodeListByXPath(context, expression);
+        assertEquals(expression, expected.getLength(), actual.getLength());
+        for (int i = 0; i < expected.getLength(); i++) {
+            assertSame(expression, expected.item(i), actual.item(i));
+        }
+        assertSame(expression, expected.item(0),
+                XMLConverter.getNodeByXPath(context, expression));
+    }
+
+    @Test
+    public void compile_supportedExpressions() {
+        for (String expression : EXPRESSIONS) {
+            assertNotNull(expression, SimpleXPath.compile(expression));
+        }
+    }
+
+    @Test
+    public void compile_unsupportedExpressions() {
+        String[] expressions = new String[] { "", "//PriceModel", "/a//b",
+                "/a/", "/a/b[1]", "/a/@b/c", "/a/*", "/a/text()", "../a",
+                "./a", "/p:a", "/a/@p:b", "/a/@xmlns", "/a | /b", "count(/a)",
+                "/a/@*", "/ a" };
+        for (String expression : expressions) {
+            assertNull(expression, SimpleXPath.compile(expression));
+        }
+    }
+
+    @Test
+    public void forExpression_compiledOnce() {
+        for (String expression : EXPRESSIONS) {
+            assertSame(expression, SimpleXPath.forExpression(expression),
+                    SimpleXPath.forExpression(expression));
+        }
+        assertNull(SimpleXPath.forExpression("//PriceModel"));
+        assertNull(SimpleXPath.forExpression("//PriceModel"));
+        assertNull(SimpleXPath.forExpression(null));
+    }
+
+    @Test
+    public void select_sameAsJaxp() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(BILLING_DETAILS, false);
+        Node subscriptions = doc.getDocumentElement().getLastChild();
+        Node subscription = subscriptions.getFirstChild();
+
+        // then
+        for (String expression : EXPRESSIONS) {
+            assertSameAsJaxp(doc, expression);
+            assertSameAsJaxp(subscriptions, expression);
+            assertSameAsJaxp(subscription, expression);
+        }
+    }
+
+    @Test
+    public void select_namespaceAwareSameAsJaxp() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(BILLING_DETAILS, true);
+
+        // then
+        for (String expression : EXPRESSIONS) {
+            assertSameAsJaxp(doc, expression);
+        }
+    }
+
+    @Test
+    public void select_prefixedElementsFallBack() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(
+                "<a><p:b id='1'/><b id='2'/></a>", false);
+        List<Node> result = new ArrayList<Node>();
+
+        // when
+        boolean supported = SimpleXPath.compile("/a/b").selectAll(doc,
+                result);
+
+        // then
+        assertFalse(supported);
+        assertSameAsJaxp(doc, "/a/b/@id");
+    }
+
+    @Test
+    public void select_prefixedAttributesFallBack() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument("<a><b p:id='1'/></a>",
+                false);
+        List<Node> result = new ArrayList<Node>();
+
+        // when
+        boolean supported = SimpleXPath.compile("/a/b/@id").selectAll(doc,
+                result);
+
+        // then
+        assertFalse(supported);
+        assertSameAsJaxp(doc, "/a/b/@id");
+    }
+
+    @Test
+    public void select_defaultNamespace() throws Exception {
+        String xml = "<a xmlns='urn:test'><b id='1'/></a>";
+        assertSameAsJaxp(XMLConverter.convertToDocument(xml, false), "/a/b/@id");
+        assertSameAsJaxp(XMLConverter.convertToDocument(xml, true), "/a/b/@id");
+    }
+
+    @Test
+    public void select_detachedElement() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(BILLING_DETAILS, false);
+        Node detached = doc.createElement("Detached");
+        detached.appendChild(doc.createElement("Child"));
+        List<Node> result = new ArrayList<Node>();
+
+        // then
+        assertFalse(SimpleXPath.compile("/Detached").selectAll(detached,
+                result));
+        assertSameAsJaxp(detached, "Child");
+    }
+
+    @Test
+    public void getNodeTextContentByXPath() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(BILLING_DETAILS, false);
+
+        // then
+        assertEquals("4711", XMLConverter.getNodeTextContentByXPath(doc,
+                "/BillingDetails/OrganizationDetails/@id"));
+        assertEquals("Supplier", XMLConverter.getNodeTextContentByXPath(doc,
+                "/BillingDetails/OrganizationDetails/Name"));
+        assertNull(XMLConverter.getNodeTextContentByXPath(doc,
+                "/BillingDetails/Other"));
+    }
+}
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+/**
+ * JMH comparison of the pooled parser and cached XPath path of
+ * {@link XMLConverter} against creating factories and compiling expressions
+ * on every call, and of the direct DOM evaluation of simple paths against the
+ * cached XPath expressions.
+ * <p>
+ * Not part of the unit test run; start with the <code>main</code> method from
+ * the test class path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XMLConverterBenchmark {
+
+    private static final String BILLING_DETAILS = "<BillingDetails>"
+            + "<OrganizationDetails id='4711'><Name>Supplier</Name></OrganizationDetails>"
+            + "<Subscriptions><Subscription id='1'><PriceModels>"
+            + "<PriceModel id='10'><PriceModelCosts amount='12.50'/></PriceModel>"
+            + "<PriceModel id='11'><PriceModelCosts amount='7.50'/></PriceModel>"
+            + "</PriceModels></Subscription></Subscriptions>"
+            + "</BillingDetails>";
+
+    private static final String ORGANIZATION_ID = "/BillingDetails/OrganizationDetails/@id";
+
+    private static final String ORGANIZATION_NAME = "/BillingDetails/OrganizationDetails/Name";
+
+    private static final String AMOUNTS = "//PriceModelCosts/@amount";
+
+    private Document document;
+
+    @Setup
+    public void setup() throws Exception {
+        document = XMLConverter.convertToDocument(BILLING_DETAILS, false);
+    }
+
+    @Benchmark
+    public Document parsePerCall() throws Exception {
+        DocumentBuilderFactory dfactory = DocumentBuilderFactory.newInstance();
+        dfactory.setNamespaceAware(false);
+        dfactory.setValidating(false);
+        dfactory.setIgnoringElementContentWhitespace(true);
+        dfactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        DocumentBuilder builder = dfactory.newDocumentBuilder();
+        return builder.parse(new InputSource(new StringReader(BILLING_DETAILS)));
+    }
+
+    @Benchmark
+    public Document parsePooled() throws Exception {
+        return XMLConverter.convertToDocument(BILLING_DETAILS, false);
+    }
+
+    @Benchmark
+    public Node getNodeByXPathPerCall() throws Exception {
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        xpath.setNamespaceContext(new XmlNamespaceResolver(document));
+        XPathExpression expr = xpath.compile(ORGANIZATION_ID);
+        return (Node) expr.evaluate(document, XPathConstants.NODE);
+    }
+
+    @Benchmark
+    public Node getNodeByXPathCached() throws Exception {
+        XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                ORGANIZATION_ID, new XmlNamespaceResolver(document));
+        return (Node) expr.evaluate(document, XPathConstants.NODE);
+    }
+
+    @Benchmark
+    public Node getNodeByXPathDirect() throws Exception {
+        return XMLConverter.getNodeByXPath(document, ORGANIZATION_ID);
+    }
+
+    @Benchmark
+    public String getNodeTextContentByXPathCached() throws Exception {
+        XPathExpression expr = XPathExpressionCache.SHARED.compile(
+                ORGANIZATION_NAME, new XmlNamespaceResolver(document));
+        return ((Node) expr.evaluate(document, XPathConstants.NODE))
+                .getTextContent();
+    }
+
+    @Benchmark
+    public String getNodeTextContentByXPathDirect() throws Exception {
+        return XMLConverter.getNodeTextContentByXPath(document,
+                ORGANIZATION_NAME);
+    }
+
+    @Benchmark
+    public Double sumupPerCall() throws Exception {
+        XPath xpath = XPathFactory.newInstance().newXPath();
+        XPathExpression expr = xpath.compile("sum(" + AMOUNTS + ')');
+        return (Double) expr.evaluate(document, XPathConstants.NUMBER);
+    }
+
+    @Benchmark
+    public Double sumupCached() throws Exception {
+        return XMLConverter.sumup(document, AMOUNTS);
+    }
+
+    @Benchmark
+    public double sumDoubleAttValues() {
+        return XMLConverter.sumDoubleAttValues(
+                document.getElementsByTagName("PriceModelCosts"), "amount");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(XMLConverterBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
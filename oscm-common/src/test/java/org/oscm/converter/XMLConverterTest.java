@@ -10,12 +10,16 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -311,6 +315,99 @@ public class XMLConverterTest {
         assertEquals(23.45, value, 0.1);
     }
 
+    @Test
+    public void testGetLongAttValues() throws Exception {
+        String s = "<test><e b='x' attr='1'/><e attr='-2' b='y'/><e/>"
+                + "<f attr='9'/><e attr='9876543210'/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        long[] values = XMLConverter.getLongAttValues(doc, "e", "attr");
+        assertArrayEquals(new long[] { 1, -2, 0, 9876543210L }, values);
+    }
+
+    @Test
+    public void testGetLongAttValuesBuffer() throws Exception {
+        String s = "<test><e attr='1'/>text<e attr='2'/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        long[] values = new long[] { 7, 7, 7, 7, 7 };
+        int count = XMLConverter.getLongAttValues(doc.getDocumentElement()
+                .getChildNodes(), "attr", values, 1);
+        assertEquals(3, count);
+        assertArrayEquals(new long[] { 7, 1, 0, 2, 7 }, values);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGetLongAttValuesBufferTooSmall() throws Exception {
+        String s = "<test><e attr='1'/><e attr='2'/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        XMLConverter.getLongAttValues(doc.getElementsByTagName("e"), "attr",
+                new long[2], 1);
+    }
+
+    @Test
+    public void testGetDoubleAttValues() throws Exception {
+        String s = "<test><e attr='23.45'/><x><e attr='1'/></x><e/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        double[] values = XMLConverter.getDoubleAttValues(
+                doc.getDocumentElement(), "e", "attr");
+        assertArrayEquals(new double[] { 23.45, 1, 0 }, values, 0);
+        assertEquals(24.45, XMLConverter.sumDoubleAttValues(
+                doc.getElementsByTagName("e"), "attr"), 0.0001);
+    }
+
+    @Test
+    public void testGetDoubleAttValuesSameAsSingleValues() throws Exception {
+        String s = "<test><e attr='0.5' other='1'/><e other='2' attr='1.5'/>"
+                + "<e attr='2.5'/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        NodeList nodes = doc.getElementsByTagName("e");
+        double[] values = new double[nodes.getLength()];
+        XMLConverter.getDoubleAttValues(nodes, "attr", values, 0);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            assertEquals(XMLConverter.getDoubleAttValue(nodes.item(i),
+                    "attr"), values[i], 0);
+        }
+        assertEquals(XMLConverter.sumup(doc, "//e/@attr").doubleValue(),
+                XMLConverter.sumDoubleAttValues(nodes, "attr"), 0);
+    }
+
+    @Test
+    public void testSumDoubleAttValuesNoNumber() throws Exception {
+        String s = "<test><e attr='1'/><e attr='x'/><e/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        NodeList nodes = doc.getElementsByTagName("e");
+        assertTrue(Double.isNaN(XMLConverter.sumDoubleAttValues(nodes,
+                "attr")));
+        assertTrue(XMLConverter.sumup(doc, "//e/@attr").isNaN());
+    }
+
+    @Test
+    public void testSumDoubleAttValuesExponent() throws Exception {
+        String s = "<test><e attr='1'/><e attr='1e3'/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        NodeList nodes = doc.getElementsByTagName("e");
+        assertTrue(Double.isNaN(XMLConverter.sumDoubleAttValues(nodes,
+                "attr")));
+        assertTrue(XMLConverter.sumup(doc, "//e/@attr").isNaN());
+    }
+
+    @Test
+    public void testSumDoubleAttValuesHex() throws Exception {
+        String s = "<test><e attr='1'/><e attr='0x1p3'/></test>";
+        Document doc = XMLConverter.convertToDocument(s, false);
+        NodeList nodes = doc.getElementsByTagName("e");
+        assertTrue(Double.isNaN(XMLConverter.sumDoubleAttValues(nodes,
+                "attr")));
+        assertTrue(XMLConverter.sumup(doc, "//e/@attr").isNaN());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDoubleAttValuesNoElement() throws Exception {
+        Document doc = XMLConverter.convertToDocument("<test>text</test>",
+                false);
+        XMLConverter.getDoubleAttValues(doc.getDocumentElement()
+                .getFirstChild(), "e", "attr");
+    }
+
     @Test
     public void testToUTF8() {
         assertArrayEquals(new byte[] { (byte) 0x61, (byte) 0xc3, (byte) 0x9f },
@@ -343,6 +440,69 @@ public class XMLConverterTest {
         assertArrayEquals(expected.getBytes("UTF-8"), xml);
     }
 
+    @Test
+    public void testCombine3() throws Exception {
+        final List<String> fragments = Arrays.asList("<a/>", "<b/>");
+        byte[] xml = XMLConverter.combine("root", fragments, "xmlns=\"x\"");
+        String expected = String
+                .format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n<root xmlns=\"x\">%n<a/>%n<b/>%n</root>%n");
+        assertArrayEquals(expected.getBytes("UTF-8"), xml);
+    }
+
+    @Test
+    public void testCombineNullSchemaHeader() throws Exception {
+        final List<String> fragments = Arrays.asList("<a/>");
+        byte[] xml = XMLConverter.combine("root", fragments, null);
+        String expected = String
+                .format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n<root null>%n<a/>%n</root>%n");
+        assertArrayEquals(expected.getBytes("UTF-8"), xml);
+    }
+
+    @Test
+    public void testCombineToStream() throws Exception {
+        final List<String> fragments = Arrays.asList("<a/>", "<b>\u306f</b>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        XMLConverter.combine("root", fragments.stream(), "xmlns=\"x\"", out);
+
+        assertArrayEquals(
+                XMLConverter.combine("root", fragments, "xmlns=\"x\""),
+                out.toByteArray());
+    }
+
+    @Test
+    public void testCombineToChannel() throws Exception {
+        StringBuilder large = new StringBuilder("<a>");
+        for (int i = 0; i < 5000; i++) {
+            large.append("\u00e4\u306f\uD83D\uDE00");
+        }
+        large.append("</a>");
+        final List<String> fragments = Arrays.asList(large.toString(),
+                "<b/>");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        XMLConverter.combine("root", fragments.iterator(), null,
+                Channels.newChannel(out));
+
+        String expected = String.format(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n<root>%n%s%n<b/>%n</root>%n",
+                large);
+        assertArrayEquals(expected.getBytes("UTF-8"), out.toByteArray());
+    }
+
+    @Test
+    public void testCombineLazyFragments() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        XMLConverter.combine("root",
+                Stream.iterate(0, i -> i + 1).limit(3).map(i -> "<e" + i + "/>"),
+                null, out);
+
+        String expected = String
+                .format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>%n<root>%n<e0/>%n<e1/>%n<e2/>%n</root>%n");
+        assertArrayEquals(expected.getBytes("UTF-8"), out.toByteArray());
+    }
+
     @Test
     public void removeEOLCharsfromXML() throws Exception {
         // given
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.oscm.encrypter.AESEncrypter;
+
+/**
+ * Multi-threaded JMH benchmark of {@link XMLSerializer#toXml(Object, Class[])}
+ * compared with the former behavior of serializing all calls through one
+ * global lock. Run with <code>-t</code> set to different thread counts to see
+ * the scaling with the number of cores.
+ * <p>
+ * Not part of the unit test run; start with the <code>main</code> method from
+ * the test class path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+@State(Scope.Benchmark)
+public class XMLSerializerBenchmark {
+
+    private static final Object GLOBAL_LOCK = new Object();
+
+    private static final Class<?>[] TYPES = new Class<?>[] { TimeUnit.class };
+
+    private List<Object> parameters;
+
+    @Setup
+    public void setup() {
+        AESEncrypter.generateKey();
+        parameters = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            parameters.add(new BigDecimal("1234.5" + i));
+            parameters.add(UUID.randomUUID());
+            parameters.add(TimeUnit.SECONDS);
+            parameters.add("parameter value " + i);
+        }
+    }
+
+    @Benchmark
+    public String toXml() {
+        return XMLSerializer.toXml(parameters, TYPES);
+    }
+
+    @Benchmark
+    public String toXmlGlobalLock() {
+        synchronized (GLOBAL_LOCK) {
+            return XMLSerializer.toXml(parameters, TYPES);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(XMLSerializerBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
@@ -4,11 +4,22 @@
 
 package org.oscm.converter;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.oscm.encrypter.AESEncrypter;
@@ -83,4 +94,103 @@ public class XMLSerializerTest {
         assertEquals("a1", map2.get("a"));
         assertEquals("b1", map2.get("b"));
     }
+
+    @Test
+    public void toXmlConcurrent() throws Exception {
+
+        AESEncrypter.generateKey();
+
+        // given
+        final List<Object> values = new ArrayList<>();
+        values.add(new BigDecimal("12.50"));
+        values.add(UUID.fromString("0b6bb9a6-29d3-4ae9-9b4c-56c3a2b7c7e1"));
+        values.add(TimeUnit.SECONDS);
+        values.add(new byte[] { 1, 2, 3 });
+        final Class<?>[] types = new Class<?>[] { TimeUnit.class };
+        final String expected = AESEncrypter.decrypt(XMLSerializer.toXml(
+                values, types));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> results = new ArrayList<>();
+
+        // when
+        try {
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return AESEncrypter.decrypt(XMLSerializer.toXml(
+                                values, types));
+                    }
+                }));
+            }
+
+            // then
+            for (Future<String> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        List<Object> decoded = (List<Object>) XMLSerializer.toObject(expected);
+        assertEquals(new BigDecimal("12.50"), decoded.get(0));
+        assertEquals(TimeUnit.SECONDS, decoded.get(2));
+    }
+
+    @Test
+    public void toBinary() throws Exception {
+
+        AESEncrypter.generateKey();
+
+        // given
+        Map<String, Object> map = new HashMap<>();
+        map.put("a", new BigDecimal("12.50"));
+        map.put("b", TimeUnit.SECONDS);
+
+        // when
+        String binary = XMLSerializer.toBinary(map);
+
+        // then
+        assertTrue(CompactSerializer.isCompact(AESEncrypter
+                .decryptBytes(binary)));
+        assertEquals(map, XMLSerializer.toObject(binary));
+    }
+
+    @Test
+    public void toBinary_unsupportedFallsBackToXml() throws Exception {
+
+        AESEncrypter.generateKey();
+
+        // given
+        Map<String, String> map = new TreeMap<>();
+        map.put("a", "a1");
+
+        // when
+        String serialized = XMLSerializer.toBinary(map);
+
+        // then
+        assertTrue(AESEncrypter.decrypt(serialized).startsWith("<?xml"));
+        assertEquals(map, XMLSerializer.toObject(serialized));
+    }
+
+    @Test
+    public void migrateToBinary() throws Exception {
+
+        AESEncrypter.generateKey();
+
+        // given
+        List<Object> values = new ArrayList<>();
+        values.add(UUID.fromString("0b6bb9a6-29d3-4ae9-9b4c-56c3a2b7c7e1"));
+        values.add(new byte[] { 1, 2, 3 });
+        String xml = XMLSerializer.toXml(values);
+
+        // when
+        String binary = XMLSerializer.migrateToBinary(xml);
+
+        // then
+        List<Object> decoded = (List<Object>) XMLSerializer.toObject(binary);
+        assertTrue(CompactSerializer.isCompact(AESEncrypter
+                .decryptBytes(binary)));
+        assertEquals(values.get(0), decoded.get(0));
+        assertArrayEquals((byte[]) values.get(1), (byte[]) decoded.get(1));
+    }
 }
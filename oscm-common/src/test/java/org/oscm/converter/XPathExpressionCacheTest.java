@@ -0,0 +1,130 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathExpression;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Unit tests for {@link XPathExpressionCache}.
+ */
+public class XPathExpressionCacheTest {
+
+    private static final String NS_XML = "<p:test xmlns:p='http://example.com/'><p:e attr='1'/></p:test>";
+
+    @Test
+    public void compile_sameExpressionIsReused() throws Exception {
+        // given
+        XPathExpressionCache cache = new XPathExpressionCache(10);
+
+        // when
+        XPathExpression first = cache.compile("//e", null);
+        XPathExpression second = cache.compile("//e", null);
+
+        // then
+        assertSame(first, second);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void compile_equalNamespaceContextsShareEntry() throws Exception {
+        // given
+        XPathExpressionCache cache = new XPathExpressionCache(10);
+        Document doc1 = XMLConverter.convertToDocument(NS_XML, true);
+        Document doc2 = XMLConverter.convertToDocument(NS_XML, true);
+
+        // when
+        XPathExpression first = cache.compile("//p:e/@attr",
+                new XmlNamespaceResolver(doc1));
+        XPathExpression second = cache.compile("//p:e/@attr",
+                new XmlNamespaceResolver(doc2));
+
+        // then
+        assertSame(first, second);
+        assertEquals("1", second.evaluate(doc2));
+    }
+
+    @Test
+    public void compile_differentNamespaceContexts() throws Exception {
+        // given
+        XPathExpressionCache cache = new XPathExpressionCache(10);
+        Document doc = XMLConverter.convertToDocument(NS_XML, true);
+
+        // when
+        XPathExpression first = cache.compile("//e", null);
+        XPathExpression second = cache.compile("//e",
+                new XmlNamespaceResolver(doc));
+
+        // then
+        assertNotSame(first, second);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void compile_evictsLeastRecentlyUsed() throws Exception {
+        // given
+        XPathExpressionCache cache = new XPathExpressionCache(2);
+        XPathExpression a = cache.compile("//a", null);
+        cache.compile("//b", null);
+        cache.compile("//a", null);
+
+        // when
+        cache.compile("//c", null);
+
+        // then
+        assertEquals(2, cache.size());
+        assertSame(a, cache.compile("//a", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newCache_invalidCapacity() {
+        new XPathExpressionCache(0);
+    }
+
+    @Test
+    public void compile_concurrentUse() throws Exception {
+        // given
+        final XPathExpressionCache cache = new XPathExpressionCache(10);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Double>> results = new ArrayList<Future<Double>>();
+
+        // when
+        try {
+            for (int i = 0; i < 100; i++) {
+                final String xml = "<test><e v='" + i + "'/><e v='1'/></test>";
+                results.add(executor.submit(new Callable<Double>() {
+                    @Override
+                    public Double call() throws Exception {
+                        Document doc = XMLConverter.convertToDocument(xml,
+                                false);
+                        return (Double) cache.compile("sum(//e/@v)", null)
+                                .evaluate(doc, XPathConstants.NUMBER);
+                    }
+                }));
+            }
+
+            // then
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i + 1, results.get(i).get().doubleValue(), 0);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
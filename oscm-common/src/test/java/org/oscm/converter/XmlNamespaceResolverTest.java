@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Unit tests for {@link XmlNamespaceResolver}.
+ */
+public class XmlNamespaceResolverTest {
+
+    private static final String NS_XML = "<p:test xmlns:p='http://example.com/'>"
+            + "<p:e amount='1'/><p:e amount='2'/></p:test>";
+
+    @Test
+    public void forDocument_cachedPerDocument() throws Exception {
+        // given
+        Document doc1 = XMLConverter.convertToDocument(NS_XML, true);
+        Document doc2 = XMLConverter.convertToDocument(NS_XML, true);
+
+        // when
+        XmlNamespaceResolver resolver = XmlNamespaceResolver.forDocument(doc1);
+
+        // then
+        assertSame(resolver, XmlNamespaceResolver.forDocument(doc1));
+        assertNotSame(resolver, XmlNamespaceResolver.forDocument(doc2));
+        assertEquals(resolver, XmlNamespaceResolver.forDocument(doc2));
+        assertEquals("http://example.com/", resolver.getNamespaceURI("p"));
+    }
+
+    @Test
+    public void forDocument_notCopiedToClone() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(NS_XML, true);
+        XmlNamespaceResolver resolver = XmlNamespaceResolver.forDocument(doc);
+        Document clone = (Document) doc.cloneNode(true);
+        Element element = clone.createElementNS("http://example.com/q",
+                "q:e");
+        element.setAttributeNS("http://www.w3.org/2000/xmlns/", "xmlns:q",
+                "http://example.com/q");
+        clone.getDocumentElement().appendChild(element);
+
+        // when
+        XmlNamespaceResolver cloneResolver = XmlNamespaceResolver
+                .forDocument(clone);
+
+        // then
+        assertNotSame(resolver, cloneResolver);
+        assertNull(resolver.getNamespaceURI("q"));
+        assertEquals("http://example.com/q",
+                cloneResolver.getNamespaceURI("q"));
+    }
+
+    @Test
+    public void xpathHelpers_resolvePrefixes() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(NS_XML, true);
+
+        // then
+        assertEquals(Double.valueOf(3), XMLConverter.sumup(doc,
+                "/p:test/p:e/@amount"));
+        assertEquals(Double.valueOf(2), XMLConverter.countNodes(doc
+                .getDocumentElement(), "p:e"));
+        assertEquals(1, XMLConverter.getNumberByXPath(doc,
+                "/p:test/p:e[1]/@amount").intValue());
+        assertEquals("2", XMLConverter.getNodeTextContentByXPath(doc,
+                "/p:test/p:e[2]/@amount"));
+        assertEquals(2, XMLConverter.getNodeListByXPath(doc, "//p:e")
+                .getLength());
+    }
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+
+/**
+ * Unit tests for {@link XmlStreamAggregator}.
+ */
+public class XmlStreamAggregatorTest {
+
+    private static final String BILLING_RESULT = "<BillingDetails>"
+            + "<Subscriptions>"
+            + "<Subscription id='1'><PriceModel><PriceModelCosts amount='12.5'/></PriceModel></Subscription>"
+            + "<Subscription id='2'><PriceModel><PriceModelCosts amount='7.5'/>"
+            + "<Nested><PriceModelCosts amount='100'/></Nested></PriceModel></Subscription>"
+            + "<Subscription id='3'><PriceModel><PriceModelCosts/></PriceModel></Subscription>"
+            + "</Subscriptions>" + "</BillingDetails>";
+
+    private static InputStream stream(String xml) {
+        return new ByteArrayInputStream(XMLConverter.toUTF8(xml));
+    }
+
+    @Test
+    public void aggregate_childPath() throws Exception {
+        // when
+        XmlStreamAggregator.Aggregate result = new XmlStreamAggregator(
+                "/BillingDetails/Subscriptions/Subscription/PriceModel/PriceModelCosts")
+                .aggregate(stream(BILLING_RESULT), "amount");
+
+        // then
+        assertEquals(3, result.getCount());
+        assertEquals(2, result.getValueCount());
+        assertEquals(20.0, result.getSum(), 0);
+    }
+
+    @Test
+    public void aggregate_descendantPath() throws Exception {
+        // when
+        XmlStreamAggregator.Aggregate result = new XmlStreamAggregator(
+                "//PriceModelCosts").aggregate(stream(BILLING_RESULT), "amount");
+
+        // then
+        assertEquals(4, result.getCount());
+        assertEquals(120.0, result.getSum(), 0);
+    }
+
+    @Test
+    public void aggregate_wildcardAndMixedAxes() throws Exception {
+        // when
+        XmlStreamAggregator.Aggregate result = new XmlStreamAggregator(
+                "/BillingDetails//Subscription/*/*/PriceModelCosts").aggregate(
+                stream(BILLING_RESULT), "amount");
+
+        // then
+        assertEquals(1, result.getCount());
+        assertEquals(100.0, result.getSum(), 0);
+    }
+
+    @Test
+    public void aggregate_sameResultAsXPath() throws Exception {
+        // given
+        Document doc = XMLConverter.convertToDocument(BILLING_RESULT, false);
+        String path = "/BillingDetails/Subscriptions/Subscription";
+
+        // when
+        Double streamedSum = XMLConverter.sumup(stream(BILLING_RESULT), path,
+                "id");
+        Double streamedCount = XMLConverter.countNodes(stream(BILLING_RESULT),
+                "//PriceModelCosts");
+
+        // then
+        assertEquals(XMLConverter.sumup(doc, path + "/@id"), streamedSum);
+        assertEquals(XMLConverter.countNodes(doc, "//PriceModelCosts"),
+                streamedCount);
+    }
+
+    @Test
+    public void aggregate_namespacedElementsMatchByLocalName()
+            throws Exception {
+        // given
+        String xml = "<b:Root xmlns:b='http://example.com/'><b:E v='1'/><b:E v='2'/></b:Root>";
+
+        // when
+        Double sum = XMLConverter.sumup(stream(xml), "/Root/E", "v");
+
+        // then
+        assertEquals(Double.valueOf(3), sum);
+    }
+
+    @Test
+    public void aggregate_noNumber() throws Exception {
+        // when
+        Double sum = XMLConverter.sumup(stream("<a><b v='x'/><b v='1'/></a>"),
+                "/a/b", "v");
+
+        // then
+        assertTrue(sum.isNaN());
+    }
+
+    @Test
+    public void aggregate_numberGrammarOfXPath() throws Exception {
+        String[] values = { " -2.5 ", ".5", "3.", "1e5", "1f", "0x1p3",
+                "Infinity", "+1", "-", "." };
+        for (String value : values) {
+            // given
+            String xml = "<a><b v='" + value + "'/></a>";
+            Document doc = XMLConverter.convertToDocument(xml, false);
+
+            // when
+            Double sum = XMLConverter.sumup(stream(xml), "/a/b", "v");
+
+            // then
+            assertEquals(value, XMLConverter.sumup(doc, "/a/b/@v"), sum);
+        }
+    }
+
+    @Test
+    public void aggregate_noMatch() throws Exception {
+        // when
+        Double sum = XMLConverter.sumup(stream(BILLING_RESULT), "/Other",
+                "amount");
+
+        // then
+        assertEquals(Double.valueOf(0), sum);
+    }
+
+    @Test(expected = XMLStreamException.class)
+    public void aggregate_dtdRejected() throws Exception {
+        String xml = "<?xml version='1.0'?><!DOCTYPE a [<!ENTITY e 'x'>]><a v='&e;'/>";
+        XMLConverter.sumup(stream(xml), "/a", "v");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newAggregator_relativePath() {
+        new XmlStreamAggregator("a/b");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newAggregator_predicate() {
+        new XmlStreamAggregator("/a/b[1]");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newAggregator_attributeStep() {
+        new XmlStreamAggregator("/a/@b");
+    }
+}
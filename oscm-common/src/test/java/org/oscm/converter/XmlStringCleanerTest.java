@@ -0,0 +1,170 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link XmlStringCleaner}, {@link XmlCleaningReader} and
+ * {@link XmlCleaningWriter}. The results are compared with the former regular
+ * expression based implementation.
+ */
+public class XmlStringCleanerTest {
+
+    private static final Pattern INVALID_CHARACTERS = Pattern
+            .compile("<char\\scode=\"#.*\"/>");
+
+    private static final Pattern INVALID_XML_CHARS = Pattern
+            .compile("[^\\u0009\\u000A\\u000D\\u0020-\\uD7FF\\uE000-\\uFFFD\uD800\uDC00-\uDBFF\uDFFF]");
+
+    private static final Pattern DISCOURAGED_XML_CHARS = Pattern
+            .compile("[\\u007F-\\u0084\\u0086-\\u009F\\uFDD0-\\uFDEF"
+                    + "\uD83F\uDFFE-\uD83F\uDFFF" + "\uD87F\uDFFE-\uD87F\uDFFF"
+                    + "\uD8BF\uDFFE-\uD8BF\uDFFF" + "\uD8FF\uDFFE-\uD8FF\uDFFF"
+                    + "\uD93F\uDFFE-\uD93F\uDFFF" + "\uD97F\uDFFE-\uD97F\uDFFF"
+                    + "\uD9BF\uDFFE-\uD9BF\uDFFF" + "\uD9FF\uDFFE-\uD9FF\uDFFF"
+                    + "\uDA3F\uDFFE-\uDA3F\uDFFF" + "\uDA7F\uDFFE-\uDA7F\uDFFF"
+                    + "\uDABF\uDFFE-\uDABF\uDFFF" + "\uDAFF\uDFFE-\uDAFF\uDFFF"
+                    + "\uDB3F\uDFFE-\uDB3F\uDFFF" + "\uDB7F\uDFFE-\uDB7F\uDFFF"
+                    + "\uDBBF\uDFFE-\uDBBF\uDFFF"
+                    + "\uDBFF\uDFFE-\uDBFF\uDFFF]");
+
+    /**
+     * Characters the random test input is built from: valid, invalid and
+     * discouraged characters, surrogates and the parts of char elements.
+     */
+    private static final String[] ALPHABET = { "a", " ", "\n", "\r",
+            "\u0085", "\u2028", "\t", "\u000B", "\u0001", "\u007F", "\u0085",
+            "\u0090", "\uFDD0", "\uFFFE", "\u00E4", "\uD83D\uDE00",
+            "\uD83F\uDFFE", "\uDBFF\uDFFF", "\uD83D", "\uDE00", "<", "<char",
+            "<char ", "<char\n", "code=\"#", "<char code=\"#", "B", "\"/>",
+            "/>", "\"" };
+
+    private static String legacyClean(String toClean) {
+        String tmp = INVALID_XML_CHARS.matcher(toClean).replaceAll("");
+        tmp = DISCOURAGED_XML_CHARS.matcher(tmp).replaceAll("");
+        return INVALID_CHARACTERS.matcher(tmp).replaceAll("");
+    }
+
+    private static String readCleaned(String input, int chunkSize)
+            throws IOException {
+        Reader reader = new XmlCleaningReader(new StringReader(input));
+        StringBuilder result = new StringBuilder();
+        char[] chunk = new char[chunkSize];
+        int read;
+        while ((read = reader.read(chunk, 0, chunk.length)) >= 0) {
+            result.append(chunk, 0, read);
+        }
+        reader.close();
+        return result.toString();
+    }
+
+    private static String readCleanedByChar(String input) throws IOException {
+        Reader reader = new XmlCleaningReader(new StringReader(input));
+        StringBuilder result = new StringBuilder();
+        int c;
+        while ((c = reader.read()) >= 0) {
+            result.append((char) c);
+        }
+        reader.close();
+        return result.toString();
+    }
+
+    private static String writeCleaned(String input, int chunkSize)
+            throws IOException {
+        StringWriter result = new StringWriter();
+        Writer writer = new XmlCleaningWriter(result);
+        for (int i = 0; i < input.length(); i += chunkSize) {
+            writer.write(input, i, Math.min(chunkSize, input.length() - i));
+        }
+        writer.close();
+        return result.toString();
+    }
+
+    private static void assertCleaned(String expected, String input)
+            throws IOException {
+        assertEquals(expected, XmlStringCleaner.cleanString(input));
+        assertEquals(expected, readCleaned(input, 1));
+        assertEquals(expected, readCleanedByChar(input));
+        assertEquals(expected, readCleaned(input, 7));
+        assertEquals(expected, writeCleaned(input, 1));
+        assertEquals(expected, writeCleaned(input, 5));
+    }
+
+    @Test
+    public void cleanString_nothingToRemove() {
+        // given
+        String xml = "<a b=\"\u00E4\uD83D\uDE00\">text\r\n\t</a>";
+
+        // when
+        String cleaned = XmlStringCleaner.cleanString(xml);
+
+        // then
+        assertSame(xml, cleaned);
+    }
+
+    @Test
+    public void cleanString_invalidCharacters() throws Exception {
+        assertCleaned("ab", "a\u000B\u0000\uFFFEb");
+    }
+
+    @Test
+    public void cleanString_discouragedCharacters() throws Exception {
+        assertCleaned("a\u0085b", "a\u007F\u0085\u0086\uFDD0b\uD83F\uDFFE\uDBFF\uDFFF");
+    }
+
+    @Test
+    public void cleanString_loneSurrogates() throws Exception {
+        assertCleaned("ab\uD83D\uDE00", "a\uD83Db\uDE00\uD83D\uDE00\uD83D");
+    }
+
+    @Test
+    public void cleanString_charElement() throws Exception {
+        assertCleaned("<string></string>\n<string>x</string>",
+                "<string><char code=\"#B\"/></string>\n<string>x</string>");
+    }
+
+    @Test
+    public void cleanString_charElementGreedyWithinLine() throws Exception {
+        assertCleaned("<a></a>\n</b>",
+                "<a><char code=\"#B\"/>x<char code=\"#C\"/></a>\n</b>");
+    }
+
+    @Test
+    public void cleanString_charElementCreatedByRemoval() throws Exception {
+        assertCleaned("<a></a>", "<a><ch\u0001ar code=\"#B\"/></a>");
+    }
+
+    @Test
+    public void cleanString_charElementWithLineBreakAfterName()
+            throws Exception {
+        assertCleaned("x\n", "x<char\ncode=\"#B\"/>\n");
+    }
+
+    @Test
+    public void cleanString_sameResultAsRegularExpressions() throws Exception {
+        Random random = new Random(4711);
+        for (int run = 0; run < 2000; run++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                input.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            String s = input.toString();
+            assertCleaned(legacyClean(s), s);
+        }
+    }
+}
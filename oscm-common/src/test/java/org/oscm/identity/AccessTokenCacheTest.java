@@ -0,0 +1,267 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.AccessType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class AccessTokenCacheTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  private long time;
+  private AtomicInteger loads;
+  private AccessTokenCache cache;
+
+  @Before
+  public void setUp() {
+    time = NOW;
+    loads = new AtomicInteger();
+    cache =
+        new AccessTokenCache(100_000, 10_000, 0.5) {
+          @Override
+          long now() {
+            return time;
+          }
+        };
+  }
+
+  private static String jwt(long expirySeconds) {
+    String payload = "{\"sub\":\"oscm\",\"exp\":" + expirySeconds + "}";
+    return "eyJhbGciOiJub25lIn0."
+        + Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+        + ".signature";
+  }
+
+  private String get(String token) throws IdentityClientException {
+    return cache.getAccessToken(
+        "default",
+        AccessType.IDP,
+        () -> {
+          loads.incrementAndGet();
+          return token;
+        });
+  }
+
+  @Test
+  public void testGetAccessToken_givenCachedToken_thenNoNewTokenIsLoaded() throws Exception {
+
+    // when
+    String first = get("token1");
+    time += 39_000;
+    String second = get("token2");
+
+    // then
+    assertEquals("token1", first);
+    assertEquals("token1", second);
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testInvalidate_givenRejectedToken_thenOnlyThisTokenIsRemoved() throws Exception {
+
+    // given
+    get("token1");
+    cache.invalidate("default", AccessType.IDP, "token1");
+    get("token2");
+
+    // when
+    cache.invalidate("default", AccessType.IDP, "token1");
+    String token = get("token3");
+
+    // then
+    assertEquals("token2", token);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testGetAccessToken_givenRefreshIsDue_thenNewTokenIsLoaded() throws Exception {
+
+    // given
+    get("token1");
+    time += 45_000;
+
+    // when
+    String token = get("token2");
+
+    // then
+    assertEquals("token2", token);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testGetAccessToken_givenJwt_thenExpiryClaimIsUsed() throws Exception {
+
+    // given
+    String token = jwt(TimeUnit.MILLISECONDS.toSeconds(NOW) + 1_000);
+
+    // when
+    get(token);
+    time += 494_000;
+    String cached = get("other");
+    time += 2_000;
+    String refreshed = get("other");
+
+    // then
+    assertEquals(token, cached);
+    assertEquals("other", refreshed);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testGetAccessToken_givenExpiringJwt_thenTokenIsNotCached() throws Exception {
+
+    // given
+    String token = jwt(TimeUnit.MILLISECONDS.toSeconds(NOW) + 5);
+
+    // when
+    get(token);
+    get(token);
+
+    // then
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testGetAccessToken_givenFailedProactiveRefresh_thenValidTokenIsReturned()
+      throws Exception {
+
+    // given
+    get("token1");
+    time += 60_000;
+
+    // when
+    String token =
+        cache.getAccessToken(
+            "default",
+            AccessType.IDP,
+            () -> {
+              throw new IdentityClientException("unavailable");
+            });
+
+    // then
+    assertEquals("token1", token);
+  }
+
+  @Test(expected = IdentityClientException.class)
+  public void testGetAccessToken_givenFailedLoadOfExpiredToken_thenExceptionIsThrown()
+      throws Exception {
+
+    // given
+    get("token1");
+    time += 95_000;
+
+    // when
+    cache.getAccessToken(
+        "default",
+        AccessType.IDP,
+        () -> {
+          throw new IdentityClientException("unavailable");
+        });
+  }
+
+  @Test
+  public void testGetAccessToken_givenOtherTenantOrAccessType_thenTokensAreSeparate()
+      throws Exception {
+
+    // when
+    get("token1");
+    String otherType = cache.getAccessToken("default", AccessType.APPLICATION, () -> "token2");
+    String otherTenant = cache.getAccessToken("tenant", AccessType.IDP, () -> "token3");
+
+    // then
+    assertEquals("token1", get("token4"));
+    assertEquals("token2", otherType);
+    assertEquals("token3", otherTenant);
+  }
+
+  @Test
+  public void testGetAccessToken_givenConcurrentCallers_thenTokenIsLoadedOnce() throws Exception {
+
+    // given
+    int threads = 8;
+    CountDownLatch started = new CountDownLatch(threads);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<String>> results = new ArrayList<>();
+
+    // when
+    try {
+      for (int i = 0; i < threads; i++) {
+        results.add(
+            executor.submit(
+                () -> {
+                  started.countDown();
+                  return cache.getAccessToken(
+                      "default",
+                      AccessType.IDP,
+                      () -> {
+                        loads.incrementAndGet();
+                        try {
+                          release.await();
+                        } catch (InterruptedException e) {
+                          throw new IdentityClientException(e);
+                        }
+                        return "token";
+                      });
+                }));
+      }
+      started.await();
+      Thread.sleep(100);
+      release.countDown();
+
+      // then
+      for (Future<String> result : results) {
+        assertEquals("token", result.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testInvalidate_thenNewTokenIsLoaded() throws Exception {
+
+    // given
+    get("token1");
+
+    // when
+    cache.invalidate("default", AccessType.IDP);
+
+    // then
+    assertEquals("token2", get("token2"));
+  }
+
+  @Test
+  public void testGetExpiry() {
+    assertEquals(1_000_000L, AccessTokenCache.getExpiry(jwt(1_000)));
+    assertEquals(0, AccessTokenCache.getExpiry("opaque"));
+    assertEquals(0, AccessTokenCache.getExpiry("a.%%%.c"));
+    assertEquals(0, AccessTokenCache.getExpiry("a.e30.c"));
+  }
+}
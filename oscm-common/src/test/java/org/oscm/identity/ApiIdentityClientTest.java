@@ -16,8 +16,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.AccessToken;
 import org.oscm.identity.model.ErrorInfo;
 import org.oscm.identity.model.IdToken;
+import org.oscm.identity.model.UserInfo;
 
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Invocation;
@@ -28,6 +30,8 @@ import javax.ws.rs.core.Response;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -80,4 +84,31 @@ public class ApiIdentityClientTest {
     // when
     String idToken = identityClient.getIdToken("test", "test");
   }
+
+  @Test
+  public void testGetUser_givenCachedAccessToken_thenTokenIsRequestedOnce() throws Exception {
+
+    // given
+    identityClient.tokenCache = new AccessTokenCache(60000, 0, 1);
+    AccessToken token = new AccessToken();
+    token.setAccessToken("accessToken");
+    UserInfo user = new UserInfo();
+    user.setUserId("user");
+
+    when(webTarget.path(anyString())).thenReturn(webTarget);
+    when(builder.header(any(), any())).thenReturn(builder);
+    when(response.getStatus()).thenReturn(200);
+    when(response.readEntity(AccessToken.class)).thenReturn(token);
+    when(response.readEntity(UserInfo.class)).thenReturn(user);
+    when(builder.post(any())).thenReturn(response);
+    when(builder.get()).thenReturn(response);
+
+    // when
+    identityClient.getUser("user");
+    identityClient.getUser("user");
+
+    // then
+    verify(builder, times(1)).post(any());
+    verify(builder, times(2)).get();
+  }
 }
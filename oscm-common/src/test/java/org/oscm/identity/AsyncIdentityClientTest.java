@@ -0,0 +1,119 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AsyncIdentityClientTest {
+
+  @Mock private IdentityClient identityClient;
+  private ExecutorService executor;
+  private AsyncIdentityClient asyncClient;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    executor = Executors.newFixedThreadPool(2);
+    asyncClient = new AsyncIdentityClient(identityClient, executor);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldReturnUser_whenCallSucceeds() throws Exception {
+    UserInfo user = new UserInfo();
+    user.setUserId("user");
+    when(identityClient.getUser("user")).thenReturn(user);
+
+    UserInfo result = asyncClient.getUser("user").get(10, TimeUnit.SECONDS);
+
+    assertThat(result).isSameAs(user);
+  }
+
+  @Test
+  public void shouldCompleteExceptionally_whenCallFails() throws Exception {
+    IdentityClientException exception =
+        new IdentityClientException("Group not found", IdentityClientException.Reason.NOT_FOUND);
+    when(identityClient.getGroupMembers("group")).thenThrow(exception);
+
+    CompletableFuture<Set<UserInfo>> future = asyncClient.getGroupMembers("group");
+    Throwable thrown = catchThrowable(future::join);
+
+    assertThat(thrown).isInstanceOf(CompletionException.class);
+    assertThat(AsyncIdentityClient.getClientException(thrown)).isSameAs(exception);
+  }
+
+  @Test
+  public void shouldCompleteExceptionally_whenVoidCallFails() throws Exception {
+    IdentityClientException exception = new IdentityClientException("forbidden");
+    doThrow(exception).when(identityClient).deleteGroup("group");
+
+    Throwable thrown = catchThrowable(asyncClient.deleteGroup("group")::join);
+
+    assertThat(AsyncIdentityClient.getClientException(thrown)).isSameAs(exception);
+  }
+
+  @Test
+  public void shouldOverlapIndependentCalls() throws Exception {
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    when(identityClient.getGroups())
+        .thenAnswer(
+            invocation -> {
+              bothRunning.countDown();
+              bothRunning.await(10, TimeUnit.SECONDS);
+              return Collections.<GroupInfo>emptySet();
+            });
+    when(identityClient.getUser("user"))
+        .thenAnswer(
+            invocation -> {
+              bothRunning.countDown();
+              bothRunning.await(10, TimeUnit.SECONDS);
+              return new UserInfo();
+            });
+
+    CompletableFuture<Set<GroupInfo>> groups = asyncClient.getGroups();
+    CompletableFuture<UserInfo> user = asyncClient.getUser("user");
+    CompletableFuture.allOf(groups, user).get(10, TimeUnit.SECONDS);
+
+    assertThat(bothRunning.getCount()).isZero();
+  }
+
+  @Test
+  public void shouldAddGroupMember() throws Exception {
+    asyncClient.addGroupMember("user", "group").get(10, TimeUnit.SECONDS);
+
+    verify(identityClient).addGroupMember("user", "group");
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class GroupCacheTest {
+
+  private long time;
+  private AtomicInteger loads;
+  private GroupCache cache;
+
+  @Before
+  public void setUp() {
+    time = 0;
+    loads = new AtomicInteger();
+    cache =
+        new GroupCache(1000, 500, 2) {
+          @Override
+          long now() {
+            return time;
+          }
+        };
+  }
+
+  private Set<GroupInfo> groups(String tenantId) throws IdentityClientException {
+    return cache.getGroups(
+        tenantId,
+        () -> {
+          loads.incrementAndGet();
+          return new HashSet<>(Collections.singleton(new GroupInfo()));
+        });
+  }
+
+  private Set<UserInfo> members(String groupId) throws IdentityClientException {
+    return cache.getGroupMembers(
+        "default",
+        groupId,
+        () -> {
+          loads.incrementAndGet();
+          return new HashSet<>(Collections.singleton(new UserInfo()));
+        });
+  }
+
+  @Test
+  public void testGetGroups_givenCachedGroups_thenGroupsAreNotLoaded() throws Exception {
+
+    // when
+    Set<GroupInfo> first = groups("default");
+    time = 999;
+    Set<GroupInfo> second = groups("default");
+
+    // then
+    assertEquals(first, second);
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getHitCount());
+    assertEquals(1, cache.getMissCount());
+  }
+
+  @Test
+  public void testGetGroups_givenExpiredGroups_thenGroupsAreLoaded() throws Exception {
+
+    // given
+    Set<GroupInfo> first = groups("default");
+    time = 1000;
+
+    // when
+    Set<GroupInfo> second = groups("default");
+
+    // then
+    assertNotSame(first, second);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testGetGroupMembers_givenOwnTimeToLive_thenMembersExpire() throws Exception {
+
+    // given
+    members("group");
+    time = 500;
+
+    // when
+    members("group");
+
+    // then
+    assertEquals(2, loads.get());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testGetGroupMembers_givenMaxEntries_thenLeastRecentlyUsedIsEvicted()
+      throws Exception {
+
+    // given
+    members("group1");
+    members("group2");
+    members("group1");
+
+    // when
+    members("group3");
+    members("group1");
+
+    // then
+    assertEquals(2, cache.size());
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void testInvalidate_thenEntriesAreLoadedAgain() throws Exception {
+
+    // given
+    groups("default");
+    groups("other");
+    members("group1");
+
+    // when
+    cache.invalidateGroupMembers("default", "group1");
+    members("group1");
+    cache.invalidateTenant("default");
+
+    // then
+    assertEquals(1, cache.size());
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  public void testGetGroups_givenInvalidationDuringLoad_thenResultIsNotCached()
+      throws Exception {
+
+    // given
+    cache.getGroups(
+        "default",
+        () -> {
+          cache.invalidateGroups("default");
+          return new HashSet<>();
+        });
+
+    // when
+    groups("default");
+
+    // then
+    assertEquals(1, loads.get());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  @Test
+  public void testGetGroups_givenChangedGroup_thenCachedGroupIsUnchanged() throws Exception {
+
+    // given
+    groups("default").iterator().next().setName("changed");
+
+    // when
+    Set<GroupInfo> groups = groups("default");
+
+    // then
+    assertNull(groups.iterator().next().getName());
+    assertEquals(1, loads.get());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetGroups_thenCachedSetIsUnmodifiable() throws Exception {
+    groups("default").clear();
+  }
+}
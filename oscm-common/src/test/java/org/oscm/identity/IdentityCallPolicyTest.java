@@ -0,0 +1,336 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.exception.IdentityClientException.Reason;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response;
+import java.io.EOFException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class IdentityCallPolicyTest {
+
+  private long time;
+  private List<Long> sleeps;
+  private AtomicInteger attempts;
+  private IdentityCallPolicy policy;
+
+  @Before
+  public void setUp() {
+    time = 0;
+    sleeps = new ArrayList<>();
+    attempts = new AtomicInteger();
+    policy =
+        new IdentityCallPolicy(
+            IdentityCallSettings.of()
+                .deadline(IdentityOperation.GET_USER, 1000L)
+                .maxRetries(2)
+                .initialBackoff(10)
+                .maxBackoff(40)
+                .failureThreshold(3)
+                .openDuration(5000)
+                .build()) {
+          @Override
+          long now() {
+            return time;
+          }
+
+          @Override
+          void sleep(long millis) {
+            sleeps.add(millis);
+            time += millis;
+          }
+        };
+  }
+
+  private static IdentityClientException statusException(int status) {
+    IdentityClientException exception = new IdentityClientException("status " + status);
+    exception.setStatus(status);
+    return exception;
+  }
+
+  private String execute(String tenantId, boolean idempotentGet, int... statuses)
+      throws IdentityClientException {
+    return policy.execute(
+        tenantId,
+        IdentityOperation.GET_USER,
+        idempotentGet,
+        timeout -> {
+          int attempt = attempts.getAndIncrement();
+          if (attempt < statuses.length) {
+            throw statusException(statuses[attempt]);
+          }
+          return "result";
+        });
+  }
+
+  @Test
+  public void testExecute_givenServerErrors_thenIdempotentGetIsRetried() throws Exception {
+
+    // when
+    String result = execute("default", true, 503, 502);
+
+    // then
+    assertEquals("result", result);
+    assertEquals(3, attempts.get());
+    assertEquals(2, sleeps.size());
+    assertTrue(sleeps.get(0) <= 10 && sleeps.get(1) <= 20);
+  }
+
+  @Test
+  public void testExecute_givenServerError_thenOtherCallIsNotRetried() throws Exception {
+
+    // when
+    try {
+      execute("default", false, 503);
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+
+      // then
+      assertEquals(503, e.getStatus());
+      assertEquals(1, attempts.get());
+    }
+  }
+
+  @Test
+  public void testExecute_givenClientError_thenCallIsNotRetried() throws Exception {
+
+    // when
+    try {
+      execute("default", true, 404);
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+
+      // then
+      assertEquals(404, e.getStatus());
+      assertEquals(1, attempts.get());
+      assertEquals(
+          CircuitBreaker.State.CLOSED,
+          policy.getCircuitBreaker("default", IdentityOperation.GET_USER).getState());
+    }
+  }
+
+  @Test
+  public void testExecute_givenTooManyFailures_thenCallsFailFast() throws Exception {
+
+    // given
+    try {
+      execute("default", true, 500, 500, 500);
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+      assertEquals(500, e.getStatus());
+    }
+
+    // when
+    try {
+      execute("default", true);
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+
+      // then
+      assertEquals(Reason.CIRCUIT_OPEN, e.getReason());
+      assertEquals(3, attempts.get());
+    }
+    assertEquals("result", execute("other", true));
+  }
+
+  @Test
+  public void testExecute_givenOpenDurationElapsed_thenTrialCallClosesBreaker() throws Exception {
+
+    // given
+    CircuitBreaker breaker = policy.getCircuitBreaker("default", IdentityOperation.GET_USER);
+    breaker.onFailure(time);
+    breaker.onFailure(time);
+    breaker.onFailure(time);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    time = 5000;
+
+    // when
+    String result = execute("default", true);
+
+    // then
+    assertEquals("result", result);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testExecute_givenFailingTrialCall_thenBreakerOpensAgain() throws Exception {
+
+    // given
+    CircuitBreaker breaker = policy.getCircuitBreaker("default", IdentityOperation.GET_USER);
+    breaker.onFailure(time);
+    breaker.onFailure(time);
+    breaker.onFailure(time);
+    time = 5000;
+
+    // when
+    try {
+      execute("default", false, 503);
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+      assertEquals(503, e.getStatus());
+    }
+
+    // then
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire(time + 4999));
+  }
+
+  @Test
+  public void testExecute_givenSocketTimeouts_thenAttemptsShareDeadline() throws Exception {
+
+    // given
+    List<Integer> timeouts = new ArrayList<>();
+
+    // when
+    try {
+      policy.execute(
+          "default",
+          IdentityOperation.GET_USER,
+          true,
+          timeout -> {
+            timeouts.add(timeout);
+            time += 400;
+            throw new ProcessingException(new SocketTimeoutException("Read timed out"));
+          });
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+
+      // then
+      assertEquals(Reason.TIMEOUT, e.getReason());
+      assertEquals(3, timeouts.size());
+      assertEquals(1000, timeouts.get(0).intValue());
+      assertTrue(timeouts.get(1) <= 600 && timeouts.get(2) <= 200);
+    }
+  }
+
+  @Test
+  public void testExecute_givenBrokenResponseBody_thenFailureIsCountedButNotRetried()
+      throws Exception {
+
+    // when
+    try {
+      policy.execute(
+          "default",
+          IdentityOperation.GET_USER,
+          true,
+          timeout -> {
+            attempts.incrementAndGet();
+            throw new IdentityClientException(new EOFException("Unexpected end of stream"));
+          });
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+
+      // then
+      assertEquals(1, attempts.get());
+    }
+    CircuitBreaker breaker = policy.getCircuitBreaker("default", IdentityOperation.GET_USER);
+    breaker.onFailure(time);
+    breaker.onFailure(time);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+  }
+
+  private static IdentityCallPolicy deadlinePolicy() {
+    return new IdentityCallPolicy(
+        IdentityCallSettings.of().deadline(IdentityOperation.GET_USER, 100L).build());
+  }
+
+  @Test
+  public void testExecute_givenAttemptExceedingDeadline_thenAttemptIsInterrupted()
+      throws Exception {
+
+    // given
+    CountDownLatch interrupted = new CountDownLatch(1);
+    long start = System.currentTimeMillis();
+
+    // when
+    try {
+      deadlinePolicy()
+          .execute(
+              "default",
+              IdentityOperation.GET_USER,
+              true,
+              timeout -> {
+                try {
+                  Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                  interrupted.countDown();
+                }
+                return "result";
+              });
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+
+      // then
+      assertEquals(Reason.TIMEOUT, e.getReason());
+      assertTrue(System.currentTimeMillis() - start < 5000);
+      assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  public void testExecute_givenResponseAfterDeadline_thenResponseIsClosed() throws Exception {
+
+    // given
+    Response response = mock(Response.class);
+    CountDownLatch release = new CountDownLatch(1);
+
+    // when
+    try {
+      deadlinePolicy()
+          .execute(
+              "default",
+              IdentityOperation.GET_USER,
+              true,
+              timeout -> {
+                while (release.getCount() > 0) {
+                  try {
+                    release.await();
+                  } catch (InterruptedException e) {
+                    // like a blocking socket read
+                  }
+                }
+                return response;
+              });
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+      assertEquals(Reason.TIMEOUT, e.getReason());
+    }
+    release.countDown();
+
+    // then
+    verify(response, timeout(5000)).close();
+  }
+
+  @Test
+  public void testBackoff_givenManyRetries_thenBackoffIsLimited() {
+    for (int retry = 0; retry < 100; retry++) {
+      long backoff = policy.backoff(retry);
+      assertTrue(backoff >= 0 && backoff <= 40);
+    }
+  }
+}
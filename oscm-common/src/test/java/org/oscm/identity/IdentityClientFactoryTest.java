@@ -0,0 +1,101 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.apache.http.client.config.RequestConfig;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.junit.After;
+import org.junit.Test;
+
+import javax.ws.rs.client.Client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class IdentityClientFactoryTest {
+
+  @After
+  public void tearDown() {
+    IdentityClientFactory.closeDefault();
+  }
+
+  @Test
+  public void shouldShareClient_betweenIdentityClients() {
+    IdentityConfiguration configuration = IdentityConfiguration.of().tenantId("default").build();
+
+    ApiIdentityClient apiClient = new ApiIdentityClient(configuration);
+    WebIdentityClient webClient = new WebIdentityClient(configuration);
+
+    assertThat(apiClient.client).isSameAs(webClient.client);
+    assertThat(apiClient.client).isSameAs(IdentityClientFactory.getDefault().getClient());
+  }
+
+  @Test
+  public void shouldShareAccessTokens_onlyWithinFactory() {
+    IdentityConfiguration configuration = IdentityConfiguration.of().tenantId("default").build();
+    IdentityClientFactory other =
+        new IdentityClientFactory(
+            IdentityClientSettings.of().baseUrl("http://other-identity:9090/oscm-identity").build());
+
+    try {
+      ApiIdentityClient first = new ApiIdentityClient(configuration);
+      ApiIdentityClient second = new ApiIdentityClient(configuration);
+      ApiIdentityClient otherClient = new ApiIdentityClient(configuration, other);
+
+      assertThat(first.tokenCache).isSameAs(second.tokenCache);
+      assertThat(first.tokenCache).isSameAs(IdentityClientFactory.getDefault().getTokenCache());
+      assertThat(otherClient.tokenCache).isNotSameAs(first.tokenCache);
+    } finally {
+      other.close();
+    }
+  }
+
+  @Test
+  public void shouldCreateNewDefault_whenDefaultWasClosed() {
+    IdentityClientFactory factory = IdentityClientFactory.getDefault();
+
+    IdentityClientFactory.closeDefault();
+
+    assertThat(factory.isClosed()).isTrue();
+    assertThat(IdentityClientFactory.getDefault()).isNotSameAs(factory);
+  }
+
+  @Test
+  public void shouldApplySettings_whenDefaultIsConfigured() {
+    IdentityClientSettings settings =
+        IdentityClientSettings.of()
+            .connectTimeout(1000)
+            .readTimeout(2000)
+            .connectionRequestTimeout(3000)
+            .build();
+
+    IdentityClientFactory.configureDefault(settings);
+
+    Client client = IdentityClientFactory.getDefault().getClient();
+    assertThat(IdentityClientFactory.getDefault().getSettings()).isSameAs(settings);
+    assertThat(settings.getMaxConnectionsPerRoute()).isEqualTo(20);
+    assertThat(client.getConfiguration().getProperties())
+        .containsEntry("jersey.config.client.connectTimeout", 1000)
+        .containsEntry("jersey.config.client.readTimeout", 2000);
+    RequestConfig requestConfig =
+        (RequestConfig) client.getConfiguration().getProperty(ApacheClientProperties.REQUEST_CONFIG);
+    assertThat(requestConfig.getConnectionRequestTimeout()).isEqualTo(3000);
+  }
+
+  @Test
+  public void shouldNotProvideClient_whenFactoryIsClosed() {
+    IdentityClientFactory factory =
+        new IdentityClientFactory(IdentityClientSettings.of().build());
+
+    factory.close();
+
+    assertThatExceptionOfType(IllegalStateException.class).isThrownBy(factory::getClient);
+  }
+}
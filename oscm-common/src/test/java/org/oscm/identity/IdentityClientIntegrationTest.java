@@ -0,0 +1,205 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.exception.IdentityClientException.Reason;
+import org.oscm.identity.model.AccessType;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.TokenType;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Runs the oscm-identity clients over http connections against a {@link StubIdentityServer} */
+public class IdentityClientIntegrationTest {
+
+  private StubIdentityServer server;
+  private IdentityClientFactory factory;
+  private GroupInfo group;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new StubIdentityServer();
+    factory =
+        new IdentityClientFactory(IdentityClientSettings.of().baseUrl(server.getBaseUrl()).build());
+    group = IdentityLoadHarness.addTestData(server);
+  }
+
+  @After
+  public void tearDown() {
+    factory.close();
+    server.close();
+  }
+
+  private ApiIdentityClient apiClient(IdentityCallPolicy callPolicy) {
+    ApiIdentityClient client =
+        new ApiIdentityClient(
+            IdentityConfiguration.of()
+                .tenantId(IdentityLoadHarness.TENANT_ID)
+                .callPolicy(callPolicy)
+                .build(),
+            factory);
+    client.tokenCache = new AccessTokenCache(60000, 0, 1);
+    return client;
+  }
+
+  private static IdentityCallPolicy callPolicy(
+      IdentityCallSettings.IdentityCallSettingsBuilder settings) {
+    return new IdentityCallPolicy(settings.initialBackoff(1).maxBackoff(1).build());
+  }
+
+  @Test
+  public void shouldReadUsersAndGroupMembers_overHttp() throws Exception {
+    ApiIdentityClient client = apiClient(null);
+
+    UserInfo user = client.getUser("user1");
+    Set<UserInfo> members = client.getGroupMembers(group.getId());
+    List<UserInfo> streamed = new ArrayList<>();
+    long count = client.forEachGroupMember(group.getId(), streamed::add);
+
+    assertEquals("user1@test.com", user.getEmail());
+    assertEquals(IdentityLoadHarness.GROUP_MEMBERS, members.size());
+    assertEquals(IdentityLoadHarness.GROUP_MEMBERS, count);
+    assertEquals(IdentityLoadHarness.GROUP_MEMBERS, streamed.size());
+    assertEquals(1, server.getIssuedTokenCount());
+  }
+
+  @Test
+  public void shouldCreateGroupOnce_andAddMember() throws Exception {
+    ApiIdentityClient client = apiClient(null);
+
+    GroupInfo created = client.createGroup("test group", "description");
+    GroupInfo existing = client.createGroup("test group", "description");
+    client.addGroupMember("user1", created.getId());
+
+    assertEquals("OSCM_test group", created.getName());
+    assertEquals(created.getId(), existing.getId());
+    assertEquals(1, client.getGroupMembers(created.getId()).size());
+  }
+
+  @Test
+  public void shouldRefreshTokens_whenAccessTokenHasExpired() throws Exception {
+    StubHttpSession session = new StubHttpSession(server.login("user1"));
+    String accessToken = (String) session.getAttribute(TokenType.ACCESS_TOKEN.name());
+    WebIdentityClient client =
+        new WebIdentityClient(
+            IdentityConfiguration.of()
+                .tenantId(IdentityLoadHarness.TENANT_ID)
+                .sessionContext(session)
+                .build(),
+            factory);
+    server.expireTokens();
+
+    UserInfo user = client.getUser("user2");
+
+    assertEquals("user2", user.getUserId());
+    assertNotEquals(accessToken, session.getAttribute(TokenType.ACCESS_TOKEN.name()));
+  }
+
+  @Test
+  public void shouldRequestNewToken_whenCachedTokenIsRejected() throws Exception {
+    ApiIdentityClient client = apiClient(null);
+    client.getUser("user1");
+    server.expireTokens();
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("user2", client.getUser("user2").getUserId());
+    }
+
+    assertEquals(2, server.getIssuedTokenCount());
+  }
+
+  @Test
+  public void shouldRetryRead_whenServerFailsTemporarily() throws Exception {
+    ApiIdentityClient client = apiClient(callPolicy(IdentityCallSettings.of().maxRetries(2)));
+    client.getAccessToken(AccessType.IDP);
+    server.failNext(2, 503);
+    long requests = server.getRequestCount();
+
+    UserInfo user = client.getUser("user1");
+
+    assertEquals("user1", user.getUserId());
+    assertEquals(requests + 3, server.getRequestCount());
+  }
+
+  @Test
+  public void shouldFailFast_whenCircuitIsOpen() throws Exception {
+    ApiIdentityClient client =
+        apiClient(callPolicy(IdentityCallSettings.of().maxRetries(0).failureThreshold(2)));
+    client.getAccessToken(AccessType.IDP);
+    server.failNext(10, 503);
+    for (int i = 0; i < 2; i++) {
+      try {
+        client.getUser("user1");
+        fail("Exception expected");
+      } catch (IdentityClientException e) {
+        assertEquals(503, e.getStatus());
+      }
+    }
+    long requests = server.getRequestCount();
+
+    try {
+      client.getUser("user1");
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+      assertEquals(Reason.CIRCUIT_OPEN, e.getReason());
+    }
+    assertEquals(requests, server.getRequestCount());
+  }
+
+  @Test
+  public void shouldTimeOut_whenServerIsSlowerThanDeadline() throws Exception {
+    ApiIdentityClient client =
+        apiClient(
+            callPolicy(
+                IdentityCallSettings.of()
+                    .deadline(IdentityOperation.GET_USER, 200L)
+                    .maxRetries(0)));
+    client.getAccessToken(AccessType.IDP);
+    server.setLatency(2000);
+
+    long start = System.currentTimeMillis();
+    try {
+      client.getUser("user1");
+      fail("Exception expected");
+    } catch (IdentityClientException e) {
+      assertEquals(Reason.TIMEOUT, e.getReason());
+      assertTrue(System.currentTimeMillis() - start < 2000);
+    }
+  }
+
+  @Test
+  public void shouldReportLatencies_whenDrivenByLoadHarness() throws Exception {
+    ApiIdentityClient client = apiClient(null);
+
+    IdentityLoadHarness.Report report =
+        new IdentityLoadHarness(20, 2)
+            .run(Collections.nCopies(4, client), IdentityLoadHarness::readUser);
+
+    assertEquals(80, report.getRequests());
+    assertEquals(0, report.getErrors());
+    assertTrue(report.getPercentile(50) <= report.getPercentile(99));
+    assertTrue(report.getRequestsPerSecond() > 0);
+    assertFalse(report.toString().isEmpty());
+  }
+}
@@ -9,6 +9,7 @@
  */
 package org.oscm.identity;
 
+import org.glassfish.jersey.client.ClientProperties;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.InjectMocks;
@@ -17,19 +18,37 @@ import org.mockito.MockitoAnnotations;
 import org.oscm.identity.exception.IdentityClientException;
 import org.oscm.identity.model.ErrorInfo;
 import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.Token;
+import org.oscm.identity.model.TokenType;
+import org.oscm.identity.model.UserId;
 import org.oscm.identity.model.UserInfo;
 import org.oscm.identity.validator.IdentityValidator;
 import org.oscm.internal.types.exception.IllegalArgumentException;
 
 import javax.servlet.http.HttpSession;
 import javax.ws.rs.client.Client;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class IdentityClientTest {
@@ -150,6 +169,171 @@ public class IdentityClientTest {
     identityClient.deleteGroup("");
   }
 
+  @Test
+  public void shouldReturnPartialResults_whenSomeUsersFail() throws IdentityClientException {
+    UserInfo user = new UserInfo();
+    user.setUserId("user1");
+    ErrorInfo errorEntity = new ErrorInfo();
+    errorEntity.setErrorDescription("User not found");
+
+    when(response.getStatus()).thenReturn(200, 200, 404);
+    when(response.readEntity(any(Class.class))).thenReturn(user, errorEntity);
+
+    Map<String, IdentityCallResult<UserInfo>> users =
+        identityClient.getUsers(Arrays.asList("user1", "user2", "user1"), null, 1);
+
+    assertThat(users).containsOnlyKeys("user1", "user2");
+    assertThat(users.get("user1").getValue()).isSameAs(user);
+    assertThat(users.get("user2").isSuccessful()).isFalse();
+    assertThat(users.get("user2").getException())
+        .isInstanceOf(IdentityClientException.class)
+        .hasMessage("User not found");
+  }
+
+  @Test
+  public void shouldFetchUsersInParallel() throws IdentityClientException {
+    when(response.getStatus()).thenReturn(200);
+    when(response.readEntity(any(Class.class))).thenReturn(new UserInfo());
+    List<String> userIds = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      userIds.add("user" + i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      Map<String, IdentityCallResult<UserInfo>> users =
+          identityClient.getUsers(userIds, executor, 5);
+
+      assertThat(users.keySet()).containsExactlyElementsOf(userIds);
+      assertThat(users.values()).allMatch(IdentityCallResult::isSuccessful);
+      verify(builder, times(20)).get();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void shouldRetryUsers_whenAccessTokenHasExpired() throws IdentityClientException {
+    ErrorInfo errorEntity = new ErrorInfo();
+    errorEntity.setErrorDescription("Access token has expired.");
+    UserInfo user = new UserInfo();
+
+    when(response.getStatus()).thenReturn(401, 401, 401, 200);
+    when(response.readEntity(any(Class.class))).thenReturn(errorEntity, new Token(), user);
+
+    Map<String, IdentityCallResult<UserInfo>> users =
+        identityClient.getUsers(Collections.singleton("user"), null, 1);
+
+    assertThat(users.get("user").getValue()).isSameAs(user);
+    verify(builder, times(2)).get();
+    verify(builder).post(any());
+  }
+
+  @Test
+  public void shouldCacheGroupMembers_untilMemberIsAdded() throws IdentityClientException {
+    GroupCache groupCache = new GroupCache(60000, 60000, 10);
+    when(configuration.getGroupCache()).thenReturn(groupCache);
+    when(response.getStatus()).thenReturn(200);
+    when(response.readEntity(UserInfo[].class)).thenReturn(new UserInfo[] {new UserInfo()});
+    when(response.readEntity(String.class)).thenReturn("");
+
+    identityClient.getGroupMembers("groupId");
+    identityClient.getGroupMembers("groupId");
+    identityClient.addGroupMember("userId", "groupId");
+    identityClient.getGroupMembers("groupId");
+
+    verify(builder, times(2)).get();
+    assertThat(groupCache.getHitCount()).isEqualTo(1);
+    assertThat(groupCache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldValidateTokenOnce_whenVerificationIsCached() throws IdentityClientException {
+    when(configuration.getTenantId()).thenReturn("default");
+    when(configuration.getTokenVerificationCache())
+        .thenReturn(new TokenVerificationCache(60000, 10));
+    UserId userId = new UserId();
+    userId.setUserId("user");
+    when(response.getStatus()).thenReturn(200);
+    when(response.readEntity(any(Class.class))).thenReturn(userId);
+
+    String first = identityClient.validateToken("token", TokenType.ACCESS_TOKEN);
+    String second = identityClient.validateToken("token", TokenType.ACCESS_TOKEN);
+
+    assertThat(first).isEqualTo("user");
+    assertThat(second).isEqualTo("user");
+    verify(builder, times(1)).post(any());
+  }
+
+  @Test
+  public void shouldRetryGroupMembers_whenServerIsUnavailable() throws IdentityClientException {
+    when(configuration.getTenantId()).thenReturn("default");
+    when(configuration.getCallPolicy())
+        .thenReturn(
+            new IdentityCallPolicy(
+                IdentityCallSettings.of().initialBackoff(0).maxBackoff(0).build()));
+    when(builder.property(anyString(), any())).thenReturn(builder);
+    when(response.getStatus()).thenReturn(503, 503, 503, 503, 200);
+    when(response.readEntity(ErrorInfo.class)).thenReturn(new ErrorInfo());
+    when(response.readEntity(UserInfo[].class)).thenReturn(new UserInfo[] {new UserInfo()});
+
+    Set<UserInfo> members = identityClient.getGroupMembers("groupId");
+
+    assertThat(members).hasSize(1);
+    verify(builder, times(2)).get();
+    verify(builder, times(2)).property(eq(ClientProperties.READ_TIMEOUT), any());
+  }
+
+  @Test
+  public void shouldRecordCall_whenRequestFailsWithoutResponse() {
+    IdentityMetrics.SHARED.reset();
+    when(builder.get()).thenThrow(new ProcessingException("Connection refused"));
+
+    assertThatExceptionOfType(ProcessingException.class)
+        .isThrownBy(() -> identityClient.getGroupMembers("groupId"));
+
+    OperationStatistics statistics =
+        IdentityMetrics.SHARED.getStatistics(IdentityOperation.GET_GROUP_MEMBERS);
+    assertThat(statistics.getCount()).isEqualTo(1);
+    assertThat(statistics.getFailureCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldRecordCallOnce_whenRequestWithPolicyFailsWithoutResponse() {
+    IdentityMetrics.SHARED.reset();
+    when(configuration.getTenantId()).thenReturn("default");
+    when(configuration.getCallPolicy())
+        .thenReturn(new IdentityCallPolicy(IdentityCallSettings.of().maxRetries(0).build()));
+    when(builder.property(anyString(), any())).thenReturn(builder);
+    when(builder.get()).thenThrow(new ProcessingException("Connection refused"));
+
+    assertThatExceptionOfType(IdentityClientException.class)
+        .isThrownBy(() -> identityClient.getGroupMembers("groupId"));
+
+    OperationStatistics statistics =
+        IdentityMetrics.SHARED.getStatistics(IdentityOperation.GET_GROUP_MEMBERS);
+    assertThat(statistics.getCount()).isEqualTo(1);
+    assertThat(statistics.getFailureCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldStreamGroupMembers() throws IdentityClientException {
+    when(response.getStatus()).thenReturn(200);
+    when(response.readEntity(InputStream.class))
+        .thenReturn(
+            new ByteArrayInputStream(
+                "[{\"userId\":\"user1\"},{\"userId\":\"user2\"}]"
+                    .getBytes(StandardCharsets.UTF_8)));
+    List<String> userIds = new ArrayList<>();
+
+    long count =
+        identityClient.forEachGroupMember("groupId", member -> userIds.add(member.getUserId()));
+
+    assertThat(count).isEqualTo(2);
+    assertThat(userIds).containsExactly("user1", "user2");
+    verify(response).close();
+  }
+
   private void mockHttpRequestCreation() {
     when(client.target(anyString())).thenReturn(webTarget);
     when(webTarget.path(anyString())).thenReturn(webTarget);
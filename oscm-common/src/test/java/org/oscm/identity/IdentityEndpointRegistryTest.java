@@ -0,0 +1,107 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.WebTarget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdentityEndpointRegistryTest {
+
+  private static final String BASE_URL = "http://localhost:9090/oscm-identity";
+
+  @Mock private Client client;
+  @Mock private WebTarget webTarget;
+
+  private IdentityEndpointRegistry registry;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    when(client.target(anyString())).thenReturn(webTarget);
+    when(webTarget.path(anyString())).thenReturn(webTarget);
+    registry = new IdentityEndpointRegistry(BASE_URL);
+  }
+
+  @Test
+  public void testGetEndpoints_givenSameTenant_thenTargetsAreResolvedOnce() {
+
+    // when
+    IdentityEndpoints first = registry.getEndpoints(client, "tenant");
+    IdentityEndpoints second = registry.getEndpoints(client, "tenant");
+
+    // then
+    assertSame(first, second);
+    assertEquals(1, registry.size());
+    verify(client, times(6)).target(anyString());
+  }
+
+  @Test
+  public void testGetEndpoints_givenOtherTenant_thenOwnEndpointsAreReturned() {
+
+    // when
+    IdentityEndpoints tenant = registry.getEndpoints(client, "tenant");
+    IdentityEndpoints other = registry.getEndpoints(client, "other");
+
+    // then
+    assertNotSame(tenant, other);
+    assertEquals(BASE_URL + "/tenants/other/users", other.users().getUrl());
+    assertEquals(2, registry.size());
+  }
+
+  @Test
+  public void testGetEndpoints_givenOtherClient_thenTargetsAreResolvedAgain() {
+
+    // given
+    Client otherClient = mock(Client.class);
+    IdentityEndpoints endpoints = registry.getEndpoints(client, "tenant");
+
+    // when
+    IdentityEndpoints resolved = registry.getEndpoints(otherClient, "tenant");
+
+    // then
+    assertNotSame(endpoints, resolved);
+    assertSame(resolved, registry.getEndpoints(otherClient, "tenant"));
+    verify(otherClient, times(6)).target(anyString());
+  }
+
+  @Test
+  public void testEndpoints_givenTenant_thenUrlsMatchUrlBuilder() {
+
+    // given
+    IdentityUrlBuilder builder = new IdentityUrlBuilder(BASE_URL, "tenant");
+
+    // when
+    IdentityEndpoints endpoints = registry.getEndpoints(client, "tenant");
+
+    // then
+    assertEquals(builder.buildGetUserUrl(), endpoints.users().getUrl());
+    assertEquals(builder.buildGroupsUrl(), endpoints.groups().getUrl());
+    assertEquals(builder.buildGetAccessTokenUrl(), endpoints.token().getUrl());
+    assertEquals(builder.buildRefreshTokenUrl(), endpoints.refresh().getUrl());
+    assertEquals(builder.buildValidateTokenUrl(), endpoints.verify().getUrl());
+    assertEquals(builder.buildIdTokenTokenUrl(), endpoints.identify().getUrl());
+    assertEquals(builder.buildGroupMembersUrl("group"), endpoints.groupMembers("group").getUrl());
+    verify(webTarget, times(2)).path(anyString());
+  }
+}
@@ -0,0 +1,294 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Load test harness driving oscm-identity clients against a {@link StubIdentityServer}. Every
+ * client is driven by its own thread, so the number of clients is the concurrency. Reports the
+ * p50 and p99 latency and the requests per second of the measured calls.
+ *
+ * <p>Not part of the unit test run; start with the <code>main</code> method from the test class
+ * path, configured by the system properties
+ *
+ * <ul>
+ *   <li><code>identity.load.client</code>: <code>api</code> (default) or <code>web</code>
+ *   <li><code>identity.load.operation</code>: <code>user</code> (default) or <code>members</code>
+ *   <li><code>identity.load.concurrency</code>: number of clients, default 16
+ *   <li><code>identity.load.requests</code>: measured requests per client, default 500
+ *   <li><code>identity.load.warmup</code>: unmeasured requests per client, default 50
+ *   <li><code>identity.load.latency</code>: latency of the stub in milliseconds, default 0
+ *   <li><code>identity.load.errorRate</code>: share of failing requests, default 0
+ *   <li><code>identity.load.tokenLifetime</code>: access token lifetime in milliseconds, default 1
+ *       hour
+ * </ul>
+ */
+public class IdentityLoadHarness {
+
+  static final String TENANT_ID = "default";
+  static final int USERS = 1000;
+  static final int GROUP_MEMBERS = 50;
+
+  /** A call of oscm-identity measured by the harness */
+  interface Call {
+    void execute(IdentityClient client) throws Exception;
+  }
+
+  private final int requests;
+  private final int warmup;
+
+  /**
+   * @param requests measured requests per client
+   * @param warmup unmeasured requests per client before the measurement
+   */
+  IdentityLoadHarness(int requests, int warmup) {
+    this.requests = requests;
+    this.warmup = warmup;
+  }
+
+  /**
+   * Executes the call with every client in its own thread
+   *
+   * @param clients the clients, the same client may be given several times
+   * @param call the measured call
+   * @return measured latencies and throughput
+   * @throws InterruptedException if interrupted while waiting for the clients
+   * @throws IllegalStateException if a client thread failed with an error
+   */
+  Report run(List<? extends IdentityClient> clients, Call call) throws InterruptedException {
+
+    int concurrency = clients.size();
+    long[][] latencies = new long[concurrency][requests];
+    AtomicLong errors = new AtomicLong();
+    AtomicReference<Error> failure = new AtomicReference<>();
+    CountDownLatch ready = new CountDownLatch(concurrency);
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(concurrency);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < concurrency; i++) {
+      IdentityClient client = clients.get(i);
+      long[] clientLatencies = latencies[i];
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  try {
+                    for (int request = 0; request < warmup; request++) {
+                      execute(client, call, null);
+                    }
+                  } finally {
+                    // a failed warmup must not keep the run waiting
+                    ready.countDown();
+                  }
+                  start.await();
+                  for (int request = 0; request < requests; request++) {
+                    clientLatencies[request] = execute(client, call, errors);
+                  }
+                } catch (InterruptedException e) {
+                  Thread.currentThread().interrupt();
+                } catch (Error e) {
+                  failure.compareAndSet(null, e);
+                } finally {
+                  done.countDown();
+                }
+              },
+              "identity-load-" + i);
+      thread.setDaemon(true);
+      threads.add(thread);
+      thread.start();
+    }
+
+    ready.await();
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    long elapsed = System.nanoTime() - begin;
+    if (failure.get() != null) {
+      throw new IllegalStateException("Load test client failed", failure.get());
+    }
+
+    long[] all = new long[concurrency * requests];
+    for (int i = 0; i < concurrency; i++) {
+      System.arraycopy(latencies[i], 0, all, i * requests, requests);
+    }
+    Arrays.sort(all);
+    return new Report(all, errors.get(), elapsed);
+  }
+
+  /** Executes the call and returns its latency in nanoseconds */
+  private static long execute(IdentityClient client, Call call, AtomicLong errors) {
+    long start = System.nanoTime();
+    try {
+      call.execute(client);
+    } catch (Exception e) {
+      if (errors != null) {
+        errors.incrementAndGet();
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  /** Latencies and throughput of a run */
+  static class Report {
+
+    private final long[] latencies;
+    private final long errors;
+    private final long elapsedNanos;
+
+    private Report(long[] latencies, long errors, long elapsedNanos) {
+      this.latencies = latencies;
+      this.errors = errors;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    long getRequests() {
+      return latencies.length;
+    }
+
+    long getErrors() {
+      return errors;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return latency in milliseconds below which the given percentage of requests completed
+     */
+    double getPercentile(double percentile) {
+      if (latencies.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+      return toMillis(latencies[Math.max(0, Math.min(index, latencies.length - 1))]);
+    }
+
+    double getRequestsPerSecond() {
+      return elapsedNanos == 0 ? 0 : latencies.length * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          Locale.ROOT,
+          "%d requests, %d errors, %.1f requests/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+          getRequests(),
+          errors,
+          getRequestsPerSecond(),
+          getPercentile(50),
+          getPercentile(99),
+          getPercentile(100));
+    }
+
+    private static double toMillis(long nanos) {
+      return nanos / 1e6;
+    }
+  }
+
+  /** Adds the users and the group read by the calls of the harness */
+  static GroupInfo addTestData(StubIdentityServer server) {
+    String[] memberIds = new String[GROUP_MEMBERS];
+    for (int i = 0; i < USERS; i++) {
+      UserInfo user = new UserInfo();
+      user.setUserId("user" + i);
+      user.setFirstName("first" + i);
+      user.setLastName("last" + i);
+      user.setEmail("user" + i + "@test.com");
+      server.addUser(user);
+      if (i < GROUP_MEMBERS) {
+        memberIds[i] = user.getUserId();
+      }
+    }
+    GroupInfo group = new GroupInfo();
+    group.setName("OSCM_load");
+    return server.addGroup(group, memberIds);
+  }
+
+  /** Reads a random user, distinct ids keep concurrent reads from being coalesced */
+  static void readUser(IdentityClient client) throws Exception {
+    client.getUser("user" + ThreadLocalRandom.current().nextInt(USERS));
+  }
+
+  public static void main(String[] args) throws Exception {
+
+    String clientType = System.getProperty("identity.load.client", "api");
+    String operation = System.getProperty("identity.load.operation", "user");
+    int concurrency = Integer.getInteger("identity.load.concurrency", 16);
+    int requests = Integer.getInteger("identity.load.requests", 500);
+    int warmup = Integer.getInteger("identity.load.warmup", 50);
+    double errorRate = Double.parseDouble(System.getProperty("identity.load.errorRate", "0"));
+
+    try (StubIdentityServer server = new StubIdentityServer();
+        IdentityClientFactory factory =
+            new IdentityClientFactory(
+                IdentityClientSettings.of()
+                    .baseUrl(server.getBaseUrl())
+                    .maxConnectionsPerRoute(concurrency)
+                    .maxConnections(concurrency)
+                    .build())) {
+
+      server.setLatency(Long.getLong("identity.load.latency", 0));
+      server.setTokenLifetime(
+          Long.getLong("identity.load.tokenLifetime", TimeUnit.HOURS.toMillis(1)));
+      server.setErrorRate(errorRate, 503);
+      GroupInfo group = addTestData(server);
+
+      List<IdentityClient> clients = new ArrayList<>();
+      if ("web".equals(clientType)) {
+        for (int i = 0; i < concurrency; i++) {
+          StubHttpSession session = new StubHttpSession(server.login("user" + i));
+          clients.add(
+              new WebIdentityClient(
+                  IdentityConfiguration.of().tenantId(TENANT_ID).sessionContext(session).build(),
+                  factory));
+        }
+      } else {
+        clients.addAll(
+            Collections.nCopies(
+                concurrency,
+                new ApiIdentityClient(
+                    IdentityConfiguration.of().tenantId(TENANT_ID).build(), factory)));
+      }
+
+      Call call =
+          "members".equals(operation)
+              ? client -> client.getGroupMembers(group.getId())
+              : IdentityLoadHarness::readUser;
+
+      Report report = new IdentityLoadHarness(requests, warmup).run(clients, call);
+      System.out.println(
+          String.format(
+              Locale.ROOT,
+              "%s client, %s, %d clients: %s",
+              clientType,
+              operation,
+              concurrency,
+              report));
+      System.out.println(
+          String.format(
+              Locale.ROOT,
+              "stub server: %d requests, %d issued access tokens",
+              server.getRequestCount(),
+              server.getIssuedTokenCount()));
+    }
+  }
+}
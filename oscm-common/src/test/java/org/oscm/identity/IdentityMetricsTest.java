@@ -0,0 +1,170 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IdentityMetricsTest {
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+
+  @Test
+  public void testRecord_thenStatusClassesAreCounted() {
+
+    // given
+    IdentityMetrics metrics = new IdentityMetrics();
+
+    // when
+    metrics.record(IdentityOperation.GET_USER, 200, millis(1));
+    metrics.record(IdentityOperation.GET_USER, 204, millis(1));
+    metrics.record(IdentityOperation.GET_USER, 404, millis(1));
+    metrics.record(IdentityOperation.GET_USER, 503, millis(1));
+    metrics.record(IdentityOperation.GET_USER, 0, millis(1));
+
+    // then
+    OperationStatistics statistics = metrics.getStatistics(IdentityOperation.GET_USER);
+    assertEquals("GET_USER", statistics.getOperation());
+    assertEquals(5, statistics.getCount());
+    assertEquals(2, statistics.getSuccessCount());
+    assertEquals(1, statistics.getClientErrorCount());
+    assertEquals(1, statistics.getServerErrorCount());
+    assertEquals(1, statistics.getFailureCount());
+    assertEquals(0, metrics.getStatistics(IdentityOperation.GET_GROUPS).getCount());
+  }
+
+  @Test
+  public void testRecord_givenFailingSink_thenCallIsRecordedAndOtherSinksAreCalled() {
+
+    // given
+    IdentityMetrics metrics = new IdentityMetrics();
+    List<IdentityOperation> recorded = new ArrayList<>();
+    metrics.addSink(
+        (operation, status, latencyNanos) -> {
+          throw new IllegalStateException("sink failed");
+        });
+    metrics.addSink((operation, status, latencyNanos) -> recorded.add(operation));
+
+    // when
+    metrics.record(IdentityOperation.GET_USER, 200, millis(1));
+
+    // then
+    assertEquals(1, metrics.getStatistics(IdentityOperation.GET_USER).getCount());
+    assertEquals(1, recorded.size());
+  }
+
+  @Test
+  public void testRecord_thenLatencyPercentilesAreEstimated() {
+
+    // given
+    IdentityMetrics metrics = new IdentityMetrics();
+
+    // when
+    for (int i = 0; i < 98; i++) {
+      metrics.record(IdentityOperation.VERIFY_TOKEN, 200, millis(3));
+    }
+    metrics.record(IdentityOperation.VERIFY_TOKEN, 200, millis(150));
+    metrics.record(IdentityOperation.VERIFY_TOKEN, 200, millis(150));
+
+    // then
+    OperationStatistics statistics = metrics.getStatistics(IdentityOperation.VERIFY_TOKEN);
+    assertEquals(5, statistics.getP50LatencyMillis());
+    assertEquals(200, statistics.getP99LatencyMillis());
+    assertEquals(5.94, statistics.getMeanLatencyMillis(), 0.001);
+  }
+
+  @Test
+  public void testGetStatistics_thenOnlyCalledOperationsAreReported() {
+
+    // given
+    IdentityMetrics metrics = new IdentityMetrics();
+    metrics.record(IdentityOperation.ACCESS_TOKEN, 200, millis(1));
+
+    // when
+    List<OperationStatistics> statistics = metrics.getStatistics();
+
+    // then
+    assertEquals(1, statistics.size());
+    assertEquals("ACCESS_TOKEN", statistics.get(0).getOperation());
+  }
+
+  @Test
+  public void testRecord_thenSinksAreCalled() {
+
+    // given
+    IdentityMetrics metrics = new IdentityMetrics();
+    List<String> recorded = new ArrayList<>();
+    IdentityMetrics.Sink sink =
+        (operation, status, latencyNanos) -> recorded.add(operation + ":" + status);
+    metrics.addSink(sink);
+
+    // when
+    metrics.record(IdentityOperation.GET_GROUPS, 200, 1);
+    metrics.removeSink(sink);
+    metrics.record(IdentityOperation.GET_GROUPS, 200, 1);
+
+    // then
+    assertEquals(1, recorded.size());
+    assertEquals("GET_GROUPS:200", recorded.get(0));
+  }
+
+  @Test
+  public void testReset() {
+
+    // given
+    IdentityMetrics metrics = new IdentityMetrics();
+    metrics.record(IdentityOperation.GET_USER, 200, millis(1));
+
+    // when
+    metrics.reset();
+
+    // then
+    assertTrue(metrics.getStatistics().isEmpty());
+  }
+
+  @Test
+  public void testRegisterMBean() throws Exception {
+
+    // given
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(IdentityMetrics.OBJECT_NAME);
+    IdentityMetrics.SHARED.reset();
+    IdentityMetrics.SHARED.record(IdentityOperation.DELETE_GROUP, 204, millis(1));
+
+    try {
+      // when
+      IdentityMetrics.registerMBean();
+      IdentityMetrics.registerMBean();
+      CompositeData[] statistics = (CompositeData[]) server.getAttribute(name, "Statistics");
+
+      // then
+      assertEquals(1, statistics.length);
+      assertEquals("DELETE_GROUP", statistics[0].get("operation"));
+      assertEquals(Long.valueOf(1), statistics[0].get("successCount"));
+    } finally {
+      IdentityMetrics.unregisterMBean();
+      IdentityMetrics.SHARED.reset();
+    }
+    assertFalse(server.isRegistered(name));
+  }
+}
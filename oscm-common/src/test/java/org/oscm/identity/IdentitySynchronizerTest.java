@@ -0,0 +1,390 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.exception.IdentityClientException;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.UserInfo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IdentitySynchronizerTest {
+
+  private ExecutorService executor;
+  private RecordingHandler<GroupInfo> groupHandler;
+  private RecordingHandler<UserInfo> userHandler;
+  private RecordingMembershipHandler membershipHandler;
+  private IdentitySynchronizer synchronizer;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    groupHandler = new RecordingHandler<>();
+    userHandler = new RecordingHandler<>();
+    membershipHandler = new RecordingMembershipHandler();
+    synchronizer =
+        new IdentitySynchronizer(
+            groupHandler, userHandler, membershipHandler, executor, 3, 2, SyncSnapshot.EMPTY);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static GroupInfo group(String id) {
+    GroupInfo group = new GroupInfo();
+    group.setId(id);
+    group.setName("name " + id);
+    return group;
+  }
+
+  private static UserInfo user(String id, String email) {
+    UserInfo user = new UserInfo();
+    user.setUserId(id);
+    user.setEmail(email);
+    return user;
+  }
+
+  private static List<UserInfo> users(int count) {
+    List<UserInfo> users = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      users.add(user("user" + i, "user" + i + "@test.com"));
+    }
+    return users;
+  }
+
+  @Test
+  public void testSynchronize_givenEmptySnapshot_thenEverythingIsAdded() {
+
+    // when
+    SyncResult result = synchronize(Arrays.asList(group("g1")), users(5));
+
+    // then
+    assertTrue(result.isSuccessful());
+    assertEquals(1, groupHandler.added.size());
+    assertEquals(5, userHandler.added.size());
+    assertEquals(3, userHandler.batches.get());
+    assertEquals(5, synchronizer.getSnapshot().getUsers().size());
+    assertEquals(1, synchronizer.getSnapshot().getGroups().size());
+  }
+
+  @Test
+  public void testSynchronize_givenNoChanges_thenNoHandlerIsCalled() {
+
+    // given
+    synchronize(Arrays.asList(group("g1")), users(5));
+    groupHandler.batches.set(0);
+    userHandler.batches.set(0);
+
+    // when
+    SyncResult result = synchronize(Arrays.asList(group("g1")), users(5));
+
+    // then
+    assertTrue(result.getGroupDelta().isEmpty());
+    assertTrue(result.getUserDelta().isEmpty());
+    assertEquals(0, groupHandler.batches.get());
+    assertEquals(0, userHandler.batches.get());
+  }
+
+  @Test
+  public void testSynchronize_givenChangedAndRemovedUsers_thenOnlyDeltaIsApplied() {
+
+    // given
+    synchronize(Arrays.asList(group("g1"), group("g2")), users(3));
+    List<UserInfo> users = users(2);
+    users.set(1, user("user1", "changed@test.com"));
+    users.add(user("user3", "user3@test.com"));
+
+    // when
+    SyncResult result = synchronize(Arrays.asList(group("g1")), users);
+
+    // then
+    assertTrue(result.isSuccessful());
+    assertEquals(Collections.singletonList("user3"), ids(result.getUserDelta().getAdded()));
+    assertEquals(Collections.singletonList("user1"), ids(result.getUserDelta().getUpdated()));
+    assertEquals(Collections.singletonList("user2"), result.getUserDelta().getRemoved());
+    assertEquals(Collections.singletonList("g2"), result.getGroupDelta().getRemoved());
+    assertEquals(Collections.singletonList("user2"), userHandler.removed);
+    assertEquals(Collections.singletonList("g2"), groupHandler.removed);
+    assertFalse(synchronizer.getSnapshot().getUsers().containsKey("user2"));
+  }
+
+  @Test
+  public void testSynchronize_givenFailingBatch_thenChangeIsRetriedByNextRun() {
+
+    // given
+    userHandler.failing = true;
+    SyncResult failed = synchronize(Collections.emptyList(), users(1));
+    userHandler.failing = false;
+
+    // when
+    SyncResult result = synchronize(Collections.emptyList(), users(1));
+
+    // then
+    assertEquals(1, failed.getFailures().size());
+    assertEquals(1, ids(result.getUserDelta().getAdded()).size());
+    assertTrue(result.isSuccessful());
+    assertEquals(1, synchronizer.getSnapshot().getUsers().size());
+  }
+
+  @Test
+  public void testSynchronize_givenManyBatches_thenParallelismIsBounded() {
+
+    // when
+    synchronize(Collections.emptyList(), users(40));
+
+    // then
+    assertEquals(40, userHandler.added.size());
+    assertEquals(20, userHandler.batches.get());
+    assertTrue(userHandler.maxConcurrent.get() <= 3);
+  }
+
+  @Test
+  public void testSynchronize_givenNewMembers_thenMembersAreAdded() {
+
+    // given
+    Map<String, List<String>> members = new HashMap<>();
+    members.put("g1", Arrays.asList("user2", "user0", "user1"));
+
+    // when
+    SyncResult result =
+        synchronizer.synchronize(Arrays.asList(group("g1"), group("g2")), users(3), members);
+
+    // then
+    assertTrue(result.isSuccessful());
+    assertEquals(
+        Arrays.asList("user0", "user1", "user2"), result.getMembershipDelta().getAdded().get("g1"));
+    assertEquals(3, membershipHandler.added.size());
+    assertEquals(2, membershipHandler.batches.get());
+    assertEquals(
+        Arrays.asList("user0", "user1", "user2"),
+        new ArrayList<>(synchronizer.getSnapshot().getMembers().get("g1")));
+  }
+
+  @Test
+  public void testSynchronize_givenChangedMembers_thenOnlyMemberDeltaIsApplied() {
+
+    // given
+    Map<String, List<String>> members = new HashMap<>();
+    members.put("g1", Arrays.asList("user0", "user1"));
+    members.put("g2", Arrays.asList("user0"));
+    synchronizer.synchronize(Arrays.asList(group("g1"), group("g2")), users(3), members);
+    membershipHandler.batches.set(0);
+    membershipHandler.added.clear();
+    userHandler.batches.set(0);
+    members = new HashMap<>();
+    members.put("g1", Arrays.asList("user1", "user2"));
+
+    // when
+    SyncResult result = synchronizer.synchronize(Arrays.asList(group("g1")), users(3), members);
+
+    // then
+    assertTrue(result.isSuccessful());
+    assertTrue(result.getUserDelta().isEmpty());
+    assertEquals(0, userHandler.batches.get());
+    assertEquals(Collections.singletonList("g1:user2"), membershipHandler.added);
+    assertEquals(Collections.singletonList("g1:user0"), membershipHandler.removed);
+    assertEquals(Collections.singletonList("g2"), groupHandler.removed);
+    assertEquals(Collections.singleton("g1"), synchronizer.getSnapshot().getMembers().keySet());
+  }
+
+  @Test
+  public void testSynchronize_givenUnchangedMembers_thenNoHandlerIsCalled() {
+
+    // given
+    Map<String, List<String>> members = new HashMap<>();
+    members.put("g1", Arrays.asList("user0", "user1"));
+    synchronizer.synchronize(Arrays.asList(group("g1")), users(2), members);
+    membershipHandler.batches.set(0);
+    members.put("g1", Arrays.asList("user1", "user0"));
+
+    // when
+    SyncResult result = synchronizer.synchronize(Arrays.asList(group("g1")), users(2), members);
+
+    // then
+    assertTrue(result.getMembershipDelta().isEmpty());
+    assertEquals(0, membershipHandler.batches.get());
+  }
+
+  @Test
+  public void testSynchronize_givenFailingMemberBatch_thenMembersAreRetriedByNextRun() {
+
+    // given
+    Map<String, List<String>> members = new HashMap<>();
+    members.put("g1", Arrays.asList("user0"));
+    membershipHandler.failing = true;
+    SyncResult failed = synchronizer.synchronize(Arrays.asList(group("g1")), users(1), members);
+    membershipHandler.failing = false;
+
+    // when
+    SyncResult result = synchronizer.synchronize(Arrays.asList(group("g1")), users(1), members);
+
+    // then
+    assertEquals(1, failed.getFailures().size());
+    assertTrue(result.getUserDelta().isEmpty());
+    assertEquals(
+        Collections.singletonList("user0"), result.getMembershipDelta().getAdded().get("g1"));
+    assertTrue(result.isSuccessful());
+  }
+
+  @Test
+  public void testSynchronize_givenClientAndUserLeftAllGroups_thenUserIsNotRemoved()
+      throws Exception {
+
+    // given
+    List<UserInfo> users = users(2);
+    synchronizer.synchronize(client(users));
+
+    // when
+    SyncResult result = synchronizer.synchronize(client(users.subList(0, 1)));
+
+    // then
+    assertTrue(result.getUserDelta().getRemoved().isEmpty());
+    assertTrue(userHandler.removed.isEmpty());
+    assertEquals(Arrays.asList("g1:user1"), membershipHandler.removed);
+    assertTrue(synchronizer.getSnapshot().getUsers().containsKey("user1"));
+  }
+
+  @Test
+  public void testFingerprint_givenChangedField_thenFingerprintChanges() {
+    UserInfo user = user("user", "user@test.com");
+    String fingerprint = SyncSnapshot.fingerprint(user);
+
+    user.setCity("city");
+
+    assertFalse(fingerprint.equals(SyncSnapshot.fingerprint(user)));
+    assertEquals(SyncSnapshot.fingerprint(user), SyncSnapshot.fingerprint(user));
+  }
+
+  @SuppressWarnings("unchecked")
+  private static IdentityClient client(List<UserInfo> members) throws IdentityClientException {
+    IdentityClient client = mock(IdentityClient.class);
+    when(client.getGroups()).thenReturn(new HashSet<>(Arrays.asList(group("g1"))));
+    doAnswer(
+            invocation -> {
+              Consumer<UserInfo> consumer = (Consumer<UserInfo>) invocation.getArguments()[1];
+              members.forEach(consumer);
+              return (long) members.size();
+            })
+        .when(client)
+        .forEachGroupMember(eq("g1"), any(Consumer.class));
+    return client;
+  }
+
+  private SyncResult synchronize(List<GroupInfo> groups, List<UserInfo> users) {
+    return synchronizer.synchronize(groups, users, Collections.emptyMap());
+  }
+
+  private static List<String> ids(List<UserInfo> users) {
+    List<String> ids = new ArrayList<>();
+    for (UserInfo user : users) {
+      ids.add(user.getUserId());
+    }
+    return ids;
+  }
+
+  private static class RecordingMembershipHandler implements SyncMembershipHandler {
+
+    private final List<String> added = new CopyOnWriteArrayList<>();
+    private final List<String> removed = new CopyOnWriteArrayList<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private volatile boolean failing;
+
+    @Override
+    public void addMembers(String groupId, List<String> userIds) throws Exception {
+      record();
+      for (String userId : userIds) {
+        added.add(groupId + ":" + userId);
+      }
+    }
+
+    @Override
+    public void removeMembers(String groupId, List<String> userIds) throws Exception {
+      record();
+      for (String userId : userIds) {
+        removed.add(groupId + ":" + userId);
+      }
+    }
+
+    private void record() throws Exception {
+      batches.incrementAndGet();
+      if (failing) {
+        throw new Exception("failed");
+      }
+    }
+  }
+
+  private static class RecordingHandler<T> implements SyncHandler<T> {
+
+    private final List<T> added = new CopyOnWriteArrayList<>();
+    private final List<T> updated = new CopyOnWriteArrayList<>();
+    private final List<String> removed = new CopyOnWriteArrayList<>();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    private volatile boolean failing;
+
+    @Override
+    public void add(List<T> batch) throws Exception {
+      record();
+      added.addAll(batch);
+    }
+
+    @Override
+    public void update(List<T> batch) throws Exception {
+      record();
+      updated.addAll(batch);
+    }
+
+    @Override
+    public void remove(List<String> batch) throws Exception {
+      record();
+      removed.addAll(batch);
+    }
+
+    private void record() throws Exception {
+      batches.incrementAndGet();
+      int running = concurrent.incrementAndGet();
+      maxConcurrent.accumulateAndGet(running, Math::max);
+      try {
+        Thread.sleep(1);
+        if (failing) {
+          throw new Exception("failed");
+        }
+      } finally {
+        concurrent.decrementAndGet();
+      }
+    }
+  }
+}
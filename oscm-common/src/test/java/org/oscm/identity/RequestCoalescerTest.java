@@ -0,0 +1,175 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.exception.IdentityClientException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+
+public class RequestCoalescerTest {
+
+  private static final int THREADS = 8;
+
+  private RequestCoalescer coalescer;
+  private AtomicInteger reads;
+  private AtomicInteger copies;
+  private CountDownLatch release;
+
+  @Before
+  public void setUp() {
+    coalescer = new RequestCoalescer();
+    reads = new AtomicInteger();
+    copies = new AtomicInteger();
+    release = new CountDownLatch(1);
+  }
+
+  private List<String> blockingRead(String resourceId, boolean fail)
+      throws IdentityClientException {
+    return coalescer.read(
+        IdentityOperation.GET_USER,
+        "default",
+        resourceId,
+        "token",
+        () -> {
+          reads.incrementAndGet();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            throw new IdentityClientException(e);
+          }
+          if (fail) {
+            throw new IdentityClientException("failed");
+          }
+          return new ArrayList<>(Collections.singletonList("value"));
+        },
+        result -> {
+          copies.incrementAndGet();
+          return new ArrayList<>(result);
+        });
+  }
+
+  private List<Future<List<String>>> readConcurrently(ExecutorService executor, boolean fail)
+      throws Exception {
+    List<Future<List<String>>> results = new ArrayList<>();
+    for (int i = 0; i < THREADS; i++) {
+      results.add(executor.submit(() -> blockingRead("userId", fail)));
+    }
+    while (coalescer.getCoalescedCount() < THREADS - 1) {
+      Thread.sleep(5);
+    }
+    release.countDown();
+    return results;
+  }
+
+  @Test
+  public void testRead_givenConcurrentIdenticalReads_thenOneReadIsShared() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+
+      // when
+      List<Future<List<String>>> results = readConcurrently(executor, false);
+
+      // then
+      Set<List<String>> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+      for (Future<List<String>> result : results) {
+        assertEquals(Collections.singletonList("value"), result.get());
+        distinct.add(result.get());
+      }
+      assertEquals(THREADS, distinct.size());
+      assertEquals(THREADS, copies.get());
+      assertEquals(1, reads.get());
+      assertEquals(0, coalescer.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRead_givenFailingRead_thenAllCallersGetException() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+
+      // when
+      List<Future<List<String>>> results = readConcurrently(executor, true);
+
+      // then
+      for (Future<List<String>> result : results) {
+        try {
+          result.get();
+          fail("Exception expected");
+        } catch (ExecutionException e) {
+          assertEquals("failed", e.getCause().getMessage());
+        }
+      }
+      assertEquals(1, reads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testRead_givenCompletedRead_thenNextReadIsExecuted() throws Exception {
+
+    // given
+    release.countDown();
+    List<String> first = blockingRead("userId", false);
+
+    // when
+    List<String> second = blockingRead("userId", false);
+
+    // then
+    assertNotSame(first, second);
+    assertEquals(2, reads.get());
+    assertEquals(0, copies.get());
+    assertEquals(0, coalescer.getCoalescedCount());
+  }
+
+  @Test
+  public void testRead_givenReadWithOtherToken_thenReadsAreNotShared() throws Exception {
+
+    // when
+    Object result =
+        coalescer.read(
+            IdentityOperation.GET_USER,
+            "default",
+            "userId",
+            "token1",
+            () ->
+                coalescer.read(
+                    IdentityOperation.GET_USER,
+                    "default",
+                    "userId",
+                    "token2",
+                    () -> "second",
+                    String::new),
+            String::new);
+
+    // then
+    assertEquals("second", result);
+    assertEquals(0, coalescer.getCoalescedCount());
+  }
+}
@@ -0,0 +1,471 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.oscm.identity.model.AccessToken;
+import org.oscm.identity.model.Credentials;
+import org.oscm.identity.model.ErrorInfo;
+import org.oscm.identity.model.GroupInfo;
+import org.oscm.identity.model.IdToken;
+import org.oscm.identity.model.Token;
+import org.oscm.identity.model.TokenDetails;
+import org.oscm.identity.model.UserId;
+import org.oscm.identity.model.UserInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process http stub of oscm-identity implementing the endpoints built by {@link
+ * IdentityUrlBuilder}, for tests and load measurements with real connections. All tenants share
+ * the same users and groups. Access tokens are JWTs with an 'exp' claim, they are checked on every
+ * request to the user and group endpoints and rejected with the expiry error of oscm-identity
+ * once their lifetime has passed. Latency and errors can be injected at runtime.
+ */
+public class StubIdentityServer implements AutoCloseable {
+
+  static final String EXPIRED_TOKEN = "Access token has expired.";
+
+  private static final String CONTEXT = "/oscm-identity";
+  private static final String TENANTS = CONTEXT + "/tenants/";
+  private static final String JSON = "application/json";
+
+  private final ObjectMapper mapper =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final Map<String, UserInfo> users = new ConcurrentHashMap<>();
+  private final Map<String, GroupInfo> groups = new ConcurrentHashMap<>();
+  private final Map<String, Set<String>> members = new ConcurrentHashMap<>();
+
+  /** Subject and expiry time in milliseconds per issued access token */
+  private final Map<String, Issued> accessTokens = new ConcurrentHashMap<>();
+
+  /** Subject per issued refresh token */
+  private final Map<String, String> refreshTokens = new ConcurrentHashMap<>();
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong issuedTokens = new AtomicLong();
+  private final AtomicLong tokenSequence = new AtomicLong();
+  private final AtomicInteger failures = new AtomicInteger();
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+
+  private volatile long latency;
+  private volatile long tokenLifetime = TimeUnit.HOURS.toMillis(1);
+  private volatile int failureStatus = 503;
+  private volatile double errorRate;
+  private volatile int errorRateStatus = 503;
+
+  /**
+   * Starts the server on a free port of the loopback interface
+   *
+   * @throws IOException if the server could not be started
+   */
+  public StubIdentityServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.createContext(CONTEXT, this::handle);
+    server.start();
+  }
+
+  /** @return base url to configure with {@link IdentityClientSettings#baseUrl} */
+  public String getBaseUrl() {
+    return "http://"
+        + server.getAddress().getAddress().getHostAddress()
+        + ":"
+        + server.getAddress().getPort()
+        + CONTEXT;
+  }
+
+  /** @param millis time every request is delayed by */
+  public void setLatency(long millis) {
+    latency = millis;
+  }
+
+  /** @param millis lifetime of access tokens issued from now on */
+  public void setTokenLifetime(long millis) {
+    tokenLifetime = millis;
+  }
+
+  /**
+   * Lets the next requests to the user and group endpoints fail. Token endpoints are not affected.
+   *
+   * @param count number of failing requests
+   * @param status http status of the failures
+   */
+  public void failNext(int count, int status) {
+    failureStatus = status;
+    failures.set(count);
+  }
+
+  /**
+   * Lets the given share of requests to the user and group endpoints fail at random
+   *
+   * @param rate share of failing requests between 0 and 1
+   * @param status http status of the failures
+   */
+  public void setErrorRate(double rate, int status) {
+    errorRateStatus = status;
+    errorRate = rate;
+  }
+
+  /** Expires all access tokens issued so far */
+  public void expireTokens() {
+    for (Map.Entry<String, Issued> token : accessTokens.entrySet()) {
+      token.setValue(new Issued(token.getValue().subject, 0));
+    }
+  }
+
+  /**
+   * Issues the tokens of a web session of the given user, e.g. to put into a session context
+   *
+   * @param userId id of the user
+   * @return access and refresh token
+   */
+  public Token login(String userId) {
+    Token token = new Token();
+    token.setAccessToken(issueAccessToken(userId));
+    token.setRefreshToken(issueRefreshToken(userId));
+    return token;
+  }
+
+  public void addUser(UserInfo user) {
+    users.put(user.getUserId(), user);
+  }
+
+  /**
+   * Adds a group with the given members
+   *
+   * @param group the group, its id is generated if missing
+   * @param userIds ids of the members
+   * @return the group
+   */
+  public GroupInfo addGroup(GroupInfo group, String... userIds) {
+    if (group.getId() == null) {
+      group.setId(UUID.randomUUID().toString());
+    }
+    groups.put(group.getId(), group);
+    Set<String> groupMembers = ConcurrentHashMap.newKeySet();
+    for (String userId : userIds) {
+      groupMembers.add(userId);
+    }
+    members.put(group.getId(), groupMembers);
+    return group;
+  }
+
+  public UserInfo getUser(String userId) {
+    return users.get(userId);
+  }
+
+  /** @return number of requests received */
+  public long getRequestCount() {
+    return requests.get();
+  }
+
+  /** @return number of access tokens issued by the token endpoints */
+  public long getIssuedTokenCount() {
+    return issuedTokens.get();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    try {
+      delay();
+      String path = exchange.getRequestURI().getRawPath();
+      if (!path.startsWith(TENANTS)) {
+        error(exchange, 404, "not_found", "Unknown resource");
+        return;
+      }
+      List<String> segments = new ArrayList<>();
+      for (String segment : path.substring(TENANTS.length()).split("/")) {
+        segments.add(decode(segment));
+      }
+      if (segments.size() < 2) {
+        error(exchange, 404, "not_found", "Unknown resource");
+      } else if ("token".equals(segments.get(1))) {
+        handleToken(exchange, segments);
+      } else if (authorized(exchange) && !injectFailure(exchange)) {
+        if ("users".equals(segments.get(1))) {
+          handleUsers(exchange, segments);
+        } else if ("groups".equals(segments.get(1))) {
+          handleGroups(exchange, segments);
+        } else {
+          error(exchange, 404, "not_found", "Unknown resource");
+        }
+      }
+    } catch (RuntimeException e) {
+      error(exchange, 500, "server_error", String.valueOf(e.getMessage()));
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void handleToken(HttpExchange exchange, List<String> segments) throws IOException {
+    String operation = segments.size() > 2 ? segments.get(2) : "";
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      error(exchange, 405, "invalid_request", "Method not allowed");
+    } else if (operation.isEmpty()) {
+      AccessToken token = read(exchange, AccessToken.class);
+      token.setAccessToken(issueAccessToken("client"));
+      send(exchange, 200, token);
+    } else if ("refresh".equals(operation)) {
+      String subject = refreshTokens.remove(read(exchange, Token.class).getRefreshToken());
+      if (subject == null) {
+        error(exchange, 400, "invalid_grant", "Invalid refresh token");
+      } else {
+        send(exchange, 200, login(subject));
+      }
+    } else if ("verify".equals(operation)) {
+      Issued issued = accessTokens.get(read(exchange, TokenDetails.class).getToken());
+      if (issued == null || issued.expiry < System.currentTimeMillis()) {
+        error(exchange, 401, "invalid_token", "Token is invalid");
+      } else {
+        UserId userId = new UserId();
+        userId.setUserId(issued.subject);
+        send(exchange, 200, userId);
+      }
+    } else if ("identify".equals(operation)) {
+      Credentials credentials = read(exchange, Credentials.class);
+      if (!users.containsKey(credentials.getUsername())) {
+        error(exchange, 401, "invalid_grant", "Invalid user credentials");
+      } else {
+        IdToken token = new IdToken();
+        token.setIdToken(issueAccessToken(credentials.getUsername()));
+        send(exchange, 200, token);
+      }
+    } else {
+      error(exchange, 404, "not_found", "Unknown resource");
+    }
+  }
+
+  private void handleUsers(HttpExchange exchange, List<String> segments) throws IOException {
+    String method = exchange.getRequestMethod();
+    UserInfo user = segments.size() == 3 ? users.get(segments.get(2)) : null;
+    if (user == null) {
+      error(exchange, 404, "not_found", "User not found");
+    } else if ("GET".equals(method)) {
+      send(exchange, 200, user);
+    } else if ("PUT".equals(method)) {
+      UserInfo update = read(exchange, UserInfo.class);
+      update.setUserId(user.getUserId());
+      users.put(user.getUserId(), update);
+      send(exchange, 204, null);
+    } else {
+      error(exchange, 405, "invalid_request", "Method not allowed");
+    }
+  }
+
+  private void handleGroups(HttpExchange exchange, List<String> segments) throws IOException {
+    String method = exchange.getRequestMethod();
+    if (segments.size() == 2) {
+      if ("GET".equals(method)) {
+        send(exchange, 200, groups.values());
+      } else if ("POST".equals(method)) {
+        send(exchange, 201, addGroup(read(exchange, GroupInfo.class)));
+      } else {
+        error(exchange, 405, "invalid_request", "Method not allowed");
+      }
+      return;
+    }
+
+    GroupInfo group = findGroup(segments.get(2));
+    if (group == null) {
+      error(exchange, 404, "not_found", "Group not found");
+    } else if (segments.size() == 3 && "GET".equals(method)) {
+      send(exchange, 200, group);
+    } else if (segments.size() == 3 && "DELETE".equals(method)) {
+      groups.remove(group.getId());
+      members.remove(group.getId());
+      send(exchange, 204, null);
+    } else if (segments.size() == 4 && "members".equals(segments.get(3))) {
+      Set<String> groupMembers = members.get(group.getId());
+      if ("GET".equals(method)) {
+        List<UserInfo> result = new ArrayList<>();
+        for (String userId : groupMembers) {
+          UserInfo user = users.get(userId);
+          if (user != null) {
+            result.add(user);
+          }
+        }
+        send(exchange, 200, result);
+      } else if ("POST".equals(method)) {
+        groupMembers.add(read(exchange, UserInfo.class).getUserId());
+        send(exchange, 201, null);
+      } else {
+        error(exchange, 405, "invalid_request", "Method not allowed");
+      }
+    } else {
+      error(exchange, 404, "not_found", "Unknown resource");
+    }
+  }
+
+  /** Finds a group by its id or, as done by the group creation, by its name */
+  private GroupInfo findGroup(String idOrName) {
+    GroupInfo group = groups.get(idOrName);
+    if (group != null) {
+      return group;
+    }
+    for (GroupInfo candidate : groups.values()) {
+      if (idOrName.equals(candidate.getName())) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  private boolean authorized(HttpExchange exchange) throws IOException {
+    String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    Issued issued =
+        authorization != null && authorization.startsWith("Bearer ")
+            ? accessTokens.get(authorization.substring("Bearer ".length()))
+            : null;
+    if (issued == null) {
+      error(exchange, 401, "invalid_token", "Access token is invalid.");
+      return false;
+    }
+    if (issued.expiry < System.currentTimeMillis()) {
+      error(exchange, 401, "invalid_token", EXPIRED_TOKEN);
+      return false;
+    }
+    return true;
+  }
+
+  private boolean injectFailure(HttpExchange exchange) throws IOException {
+    int status = 0;
+    if (failures.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+      status = failureStatus;
+    } else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+      status = errorRateStatus;
+    }
+    if (status == 0) {
+      return false;
+    }
+    error(exchange, status, "server_error", "Injected failure");
+    return true;
+  }
+
+  private void delay() {
+    long millis = latency;
+    if (millis > 0) {
+      try {
+        Thread.sleep(millis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private String issueAccessToken(String subject) {
+    long expiry = System.currentTimeMillis() + tokenLifetime;
+    String header = encode("{\"alg\":\"none\"}");
+    String payload =
+        encode(
+            "{\"sub\":\""
+                + subject
+                + "\",\"exp\":"
+                + TimeUnit.MILLISECONDS.toSeconds(expiry)
+                + ",\"jti\":"
+                + tokenSequence.incrementAndGet()
+                + "}");
+    String token = header + "." + payload + ".stub";
+    accessTokens.put(token, new Issued(subject, expiry));
+    issuedTokens.incrementAndGet();
+    return token;
+  }
+
+  private String issueRefreshToken(String subject) {
+    String token = UUID.randomUUID().toString();
+    refreshTokens.put(token, subject);
+    return token;
+  }
+
+  private static String encode(String json) {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decode(String segment) {
+    try {
+      return URLDecoder.decode(segment, "UTF-8");
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private <T> T read(HttpExchange exchange, Class<T> type) throws IOException {
+    try (InputStream in = exchange.getRequestBody()) {
+      return mapper.readValue(in, type);
+    }
+  }
+
+  private void send(HttpExchange exchange, int status, Object body) throws IOException {
+    if (body == null) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    byte[] bytes = mapper.writeValueAsBytes(body);
+    exchange.getResponseHeaders().set("Content-Type", JSON);
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private void error(HttpExchange exchange, int status, String error, String description)
+      throws IOException {
+    ErrorInfo errorInfo = new ErrorInfo();
+    errorInfo.setError(error);
+    errorInfo.setErrorDescription(description);
+    send(exchange, status, errorInfo);
+  }
+
+  private static class Issued {
+
+    private final String subject;
+    private final long expiry;
+
+    private Issued(String subject, long expiry) {
+      this.subject = subject;
+      this.expiry = expiry;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.oscm.identity.model.TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TokenVerificationCacheTest {
+
+  private long time;
+  private TokenVerificationCache cache;
+
+  @Before
+  public void setUp() {
+    time = 1_000_000;
+    cache =
+        new TokenVerificationCache(60_000, 2) {
+          @Override
+          long now() {
+            return time;
+          }
+        };
+  }
+
+  private static String jwt(long expirySeconds) {
+    String payload = "{\"exp\":" + expirySeconds + "}";
+    return "eyJhbGciOiJub25lIn0."
+        + Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+        + ".signature";
+  }
+
+  @Test
+  public void testGetUserId_givenValidatedToken_thenUserIdIsReturned() {
+
+    // given
+    cache.put("default", "token", TokenType.ACCESS_TOKEN, "user");
+
+    // then
+    assertEquals("user", cache.getUserId("default", "token", TokenType.ACCESS_TOKEN));
+    assertNull(cache.getUserId("default", "token", TokenType.ID_TOKEN));
+    assertNull(cache.getUserId("other", "token", TokenType.ACCESS_TOKEN));
+    assertNull(cache.getUserId("default", "other", TokenType.ACCESS_TOKEN));
+  }
+
+  @Test
+  public void testGetUserId_givenMaxTimeToLivePassed_thenEntryExpires() {
+
+    // given
+    cache.put("default", "token", TokenType.ACCESS_TOKEN, "user");
+
+    // when
+    time += 60_000;
+
+    // then
+    assertNull(cache.getUserId("default", "token", TokenType.ACCESS_TOKEN));
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testGetUserId_givenTokenExpiresEarlier_thenEntryExpiresWithToken() {
+
+    // given
+    String token = jwt(1_010);
+    cache.put("default", token, TokenType.ID_TOKEN, "user");
+
+    // when
+    time = 1_009_999;
+    String valid = cache.getUserId("default", token, TokenType.ID_TOKEN);
+    time = 1_010_000;
+
+    // then
+    assertEquals("user", valid);
+    assertNull(cache.getUserId("default", token, TokenType.ID_TOKEN));
+  }
+
+  @Test
+  public void testPut_givenExpiredToken_thenNothingIsCached() {
+
+    // when
+    cache.put("default", jwt(999), TokenType.ID_TOKEN, "user");
+
+    // then
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testPut_givenMaxEntries_thenExpiredEntriesAreEvictedFirst() {
+
+    // given
+    cache.put("default", jwt(1_001), TokenType.ACCESS_TOKEN, "user1");
+    cache.put("default", "token2", TokenType.ACCESS_TOKEN, "user2");
+    time = 1_001_000;
+
+    // when
+    cache.put("default", "token3", TokenType.ACCESS_TOKEN, "user3");
+
+    // then
+    assertEquals(2, cache.size());
+    assertEquals("user2", cache.getUserId("default", "token2", TokenType.ACCESS_TOKEN));
+    assertEquals("user3", cache.getUserId("default", "token3", TokenType.ACCESS_TOKEN));
+  }
+
+  @Test
+  public void testPut_givenMaxEntries_thenSizeIsBounded() {
+
+    // when
+    for (int i = 0; i < 10; i++) {
+      cache.put("default", "token" + i, TokenType.ACCESS_TOKEN, "user" + i);
+    }
+
+    // then
+    assertEquals(2, cache.size());
+    assertEquals("user9", cache.getUserId("default", "token9", TokenType.ACCESS_TOKEN));
+  }
+
+  @Test
+  public void testRevoke_thenTokenIsValidatedAgain() {
+
+    // given
+    cache.put("default", "token", TokenType.ACCESS_TOKEN, "user");
+    cache.put("default", "token", TokenType.ID_TOKEN, "user");
+
+    // when
+    cache.revoke("default", "token");
+
+    // then
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,182 @@
+/**
+ * *****************************************************************************
+ *
+ * <p>Copyright FUJITSU LIMITED 2019
+ *
+ * <p>Creation Date: 18.10.2026
+ *
+ * <p>*****************************************************************************
+ */
+package org.oscm.identity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.oscm.identity.model.ErrorInfo;
+import org.oscm.identity.model.Token;
+import org.oscm.identity.model.TokenType;
+import org.oscm.identity.model.UserInfo;
+import org.oscm.identity.validator.IdentityValidator;
+
+import javax.servlet.http.HttpSession;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WebIdentityClientTest {
+
+  private static final String OLD_TOKEN = "oldToken";
+  private static final String NEW_TOKEN = "newToken";
+
+  @Mock private Client client;
+  @Mock private IdentityValidator validator;
+  @Mock private HttpSession session;
+  @Mock private IdentityConfiguration configuration;
+  @Mock private WebTarget webTarget;
+  @Mock private Invocation.Builder builder;
+  @Mock private Invocation.Builder oldTokenBuilder;
+  @Mock private Invocation.Builder newTokenBuilder;
+  @Mock private Response expiredResponse;
+  @Mock private Response userResponse;
+  @Mock private Response refreshResponse;
+  @InjectMocks private WebIdentityClient identityClient;
+
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final UserInfo user = new UserInfo();
+
+  @Before
+  public void setUp() {
+    identityClient = new WebIdentityClient(configuration);
+    MockitoAnnotations.initMocks(this);
+
+    when(configuration.getSessionContext()).thenReturn(session);
+    when(session.getAttribute(anyString()))
+        .thenAnswer(invocation -> attributes.get(invocation.getArguments()[0]));
+    doAnswer(
+            invocation -> {
+              attributes.put(
+                  (String) invocation.getArguments()[0], invocation.getArguments()[1]);
+              return null;
+            })
+        .when(session)
+        .setAttribute(anyString(), any());
+
+    when(client.target(anyString())).thenReturn(webTarget);
+    when(webTarget.path(anyString())).thenReturn(webTarget);
+    when(webTarget.request(anyString())).thenReturn(builder);
+    when(builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + OLD_TOKEN))
+        .thenReturn(oldTokenBuilder);
+    when(builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + NEW_TOKEN))
+        .thenReturn(newTokenBuilder);
+    when(builder.post(any())).thenReturn(refreshResponse);
+    when(oldTokenBuilder.get()).thenReturn(expiredResponse);
+    when(newTokenBuilder.get()).thenReturn(userResponse);
+
+    ErrorInfo expired = new ErrorInfo();
+    expired.setErrorDescription("Access token has expired.");
+    when(expiredResponse.getStatus()).thenReturn(401);
+    when(expiredResponse.readEntity(ErrorInfo.class)).thenReturn(expired);
+
+    when(userResponse.getStatus()).thenReturn(200);
+    when(userResponse.readEntity(UserInfo.class)).thenReturn(user);
+
+    Token refreshed = new Token();
+    refreshed.setAccessToken(NEW_TOKEN);
+    refreshed.setRefreshToken("newRefreshToken");
+    when(refreshResponse.getStatus())
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(50);
+              return 200;
+            });
+    when(refreshResponse.readEntity(Token.class)).thenReturn(refreshed);
+
+    attributes.put(TokenType.REFRESH_TOKEN.name(), "refreshToken");
+  }
+
+  private static String jwt(long expiryMillis) {
+    String payload = "{\"exp\":" + TimeUnit.MILLISECONDS.toSeconds(expiryMillis) + "}";
+    return "eyJhbGciOiJub25lIn0."
+        + Base64.getUrlEncoder()
+            .withoutPadding()
+            .encodeToString(payload.getBytes(StandardCharsets.UTF_8))
+        + ".signature";
+  }
+
+  @Test
+  public void shouldRefreshOnce_whenConcurrentRequestsFindExpiredToken() throws Exception {
+    attributes.put(TokenType.ACCESS_TOKEN.name(), OLD_TOKEN);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<UserInfo>> results = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(() -> identityClient.getUser("user")));
+      }
+      int read = 0;
+      for (Future<UserInfo> result : results) {
+        UserInfo info = result.get(10, TimeUnit.SECONDS);
+        assertThat(info).isEqualTo(user);
+        if (info == user) {
+          read++;
+        }
+      }
+      assertThat(read).isPositive();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    verify(builder, times(1)).post(any());
+    assertThat(attributes.get(TokenType.ACCESS_TOKEN.name())).isEqualTo(NEW_TOKEN);
+    assertThat(attributes.get(TokenType.REFRESH_TOKEN.name())).isEqualTo("newRefreshToken");
+  }
+
+  @Test
+  public void shouldRefreshBeforeRequest_whenAccessTokenIsAboutToExpire() throws Exception {
+    String expiring = jwt(System.currentTimeMillis() + 10000);
+    attributes.put(TokenType.ACCESS_TOKEN.name(), expiring);
+
+    UserInfo result = identityClient.getUser("user");
+
+    assertThat(result).isSameAs(user);
+    verify(builder, times(1)).post(any());
+    verify(builder, never()).header(eq(HttpHeaders.AUTHORIZATION), eq("Bearer " + expiring));
+  }
+
+  @Test
+  public void shouldNotRefresh_whenAccessTokenIsValid() throws Exception {
+    String valid = jwt(System.currentTimeMillis() + 600000);
+    attributes.put(TokenType.ACCESS_TOKEN.name(), valid);
+    when(builder.header(HttpHeaders.AUTHORIZATION, "Bearer " + valid))
+        .thenReturn(newTokenBuilder);
+
+    UserInfo result = identityClient.getUser("user");
+
+    assertThat(result).isSameAs(user);
+    verify(builder, never()).post(any());
+  }
+}
@@ -0,0 +1,198 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2018
+ *******************************************************************************/
+
+package org.oscm.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.Test;
+import org.oscm.converter.XMLConverter;
+
+/**
+ * Unit tests for {@link TemplatesRegistry}.
+ */
+public class TemplatesRegistryTest {
+
+    private static final String INPUT = "<a><b>text</b></a>";
+
+    private static String stylesheet(String element) {
+        return "<xsl:stylesheet version='1.0' xmlns:xsl='http://www.w3.org/1999/XSL/Transform'>"
+                + "<xsl:output method='xml' omit-xml-declaration='yes'/>"
+                + "<xsl:template match='/'><" + element
+                + "><xsl:value-of select='/a/b'/></" + element + ">"
+                + "</xsl:template></xsl:stylesheet>";
+    }
+
+    private static String transform(Transformer transformer)
+            throws Exception {
+        StringWriter writer = new StringWriter();
+        transformer.transform(new StreamSource(new StringReader(INPUT)),
+                new StreamResult(writer));
+        return writer.toString();
+    }
+
+    @Test
+    public void getTemplates_sameContentIsReused() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(10);
+
+        // when
+        Templates first = registry.getTemplates(new StreamSource(
+                new StringReader(stylesheet("x"))));
+        Templates second = registry.getTemplates(new StreamSource(
+                new StringReader(stylesheet("x"))));
+
+        // then
+        assertSame(first, second);
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void getTemplates_streamContent() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(10);
+        byte[] bytes = stylesheet("x").getBytes(StandardCharsets.UTF_8);
+
+        // when
+        Templates first = registry.getTemplates(new StreamSource(
+                new ByteArrayInputStream(bytes)));
+        Templates second = registry.getTemplates(new StreamSource(
+                new ByteArrayInputStream(bytes)));
+
+        // then
+        assertSame(first, second);
+        assertEquals("<x>text</x>", transform(first.newTransformer()));
+    }
+
+    @Test
+    public void getTemplates_differentContent() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(10);
+
+        // when
+        Transformer first = registry.newTransformer(new StreamSource(
+                new StringReader(stylesheet("x"))));
+        Transformer second = registry.newTransformer(new StreamSource(
+                new StringReader(stylesheet("y"))));
+
+        // then
+        assertEquals("<x>text</x>", transform(first));
+        assertEquals("<y>text</y>", transform(second));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    public void getTemplates_domSource() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(10);
+
+        // when
+        Templates first = registry.getTemplates(new DOMSource(XMLConverter
+                .convertToDocument(stylesheet("x"), true)));
+        Templates second = registry.getTemplates(new DOMSource(XMLConverter
+                .convertToDocument(stylesheet("x"), true)));
+
+        // then
+        assertSame(first, second);
+        assertEquals("<x>text</x>", transform(second.newTransformer()));
+    }
+
+    @Test
+    public void getTemplates_reloadsChangedFile() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(10);
+        File file = File.createTempFile("stylesheet", ".xsl");
+        file.deleteOnExit();
+        Files.write(file.toPath(),
+                stylesheet("x").getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(10000);
+        String systemId = file.toURI().toString();
+        Templates first = registry.getTemplates(new StreamSource(systemId));
+
+        // when
+        Templates unchanged = registry
+                .getTemplates(new StreamSource(systemId));
+        Files.write(file.toPath(),
+                stylesheet("y").getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(20000);
+        Templates changed = registry.getTemplates(new StreamSource(systemId));
+
+        // then
+        assertSame(first, unchanged);
+        assertNotSame(first, changed);
+        assertEquals("<y>text</y>", transform(changed.newTransformer()));
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void getTemplates_evictsLeastRecentlyUsed() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(2);
+        Templates x = registry.getTemplates(new StreamSource(
+                new StringReader(stylesheet("x"))));
+        registry.getTemplates(new StreamSource(new StringReader(
+                stylesheet("y"))));
+        registry.getTemplates(new StreamSource(new StringReader(
+                stylesheet("x"))));
+
+        // when
+        registry.getTemplates(new StreamSource(new StringReader(
+                stylesheet("z"))));
+
+        // then
+        assertEquals(2, registry.size());
+        assertSame(x, registry.getTemplates(new StreamSource(
+                new StringReader(stylesheet("x")))));
+    }
+
+    @Test
+    public void invalidate() throws Exception {
+        // given
+        TemplatesRegistry registry = new TemplatesRegistry(10);
+        File file = File.createTempFile("stylesheet", ".xsl");
+        file.deleteOnExit();
+        Files.write(file.toPath(),
+                stylesheet("x").getBytes(StandardCharsets.UTF_8));
+        String systemId = file.toURI().toString();
+        Templates first = registry.getTemplates(new StreamSource(systemId));
+
+        // when
+        registry.invalidate(systemId);
+
+        // then
+        assertEquals(0, registry.size());
+        assertNotSame(first, registry.getTemplates(new StreamSource(systemId)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newRegistry_invalidCapacity() {
+        new TemplatesRegistry(0);
+    }
+
+    @Test
+    public void newTransformer_outputProperties() throws Exception {
+        // when
+        Transformer transformer = Transformers.newTransformer(new StreamSource(
+                new StringReader(stylesheet("x"))));
+
+        // then
+        assertEquals("UTF-8", transformer.getOutputProperty("encoding"));
+        assertEquals("<x>text</x>", transform(transformer));
+    }
+}
@@ -0,0 +1,96 @@
+/*******************************************************************************
+ *  Copyright FUJITSU LIMITED 2019
+ *******************************************************************************/
+
+package oscm.org.identity.mapper;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.oscm.identity.mapper.UserMapper;
+import org.oscm.identity.model.UserInfo;
+import org.oscm.internal.vo.VOUserDetails;
+
+/**
+ * JMH benchmark of mapping sets of {@link UserInfo} objects with
+ * {@link UserMapper}, compared with the former reflective lookup of the
+ * mapping method for every element.
+ * <p>
+ * Not part of the unit test run; start with the <code>main</code> method from
+ * the test class path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    @Param({ "100", "10000" })
+    private int size;
+
+    private Set<UserInfo> userInfos;
+
+    @Setup
+    public void setup() {
+        userInfos = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            UserInfo userInfo = new UserInfo();
+            userInfo.setUserId("user" + i);
+            userInfo.setFirstName("first" + i);
+            userInfo.setLastName("last" + i);
+            userInfo.setEmail("user" + i + "@test.com");
+            userInfo.setGender(i % 2 == 0 ? "male" : "female");
+            userInfos.add(userInfo);
+        }
+    }
+
+    @Benchmark
+    public List<?> reflective() throws Exception {
+        List<Object> result = new ArrayList<>();
+        for (UserInfo user : userInfos) {
+            Method from = UserMapper.class.getMethod("from", user.getClass());
+            result.add(from.invoke(null, user));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<?> fromSet() {
+        return UserMapper.fromSet(userInfos);
+    }
+
+    @Benchmark
+    public List<VOUserDetails> toUserDetails() {
+        return UserMapper.toUserDetails(userInfos);
+    }
+
+    @Benchmark
+    public List<VOUserDetails> toUserDetailsParallel() {
+        return UserMapper.toUserDetails(userInfos, true);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(UserMapperBenchmark.class.getSimpleName()).build())
+                .run();
+    }
+}
@@ -10,6 +10,7 @@ package oscm.org.identity.mapper;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -197,4 +198,78 @@ public class UserMapperTest {
         assertEquals(expected.get(0).getUserId(), result.get(0).getUserId());
         assertEquals(expected.get(0).getFirstName(), result.get(0).getFirstName());
     }
+
+    @Test
+    public void testToUserDetails() {
+        // given
+        List<UserInfo> userInfos = new ArrayList<UserInfo>();
+        for (int i = 0; i < 3; i++) {
+            UserInfo userInfo = new UserInfo();
+            userInfo.setUserId("user" + i);
+            userInfo.setGender("male");
+            userInfos.add(userInfo);
+        }
+
+        // when
+        List<VOUserDetails> result = UserMapper.toUserDetails(userInfos);
+
+        // then
+        assertEquals(3, result.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals("user" + i, result.get(i).getUserId());
+            assertEquals("user" + i, result.get(i).getEMail());
+            assertEquals(Salutation.MR, result.get(i).getSalutation());
+        }
+    }
+
+    @Test
+    public void testToUserInfos() {
+        // given
+        VOUserDetails userDetails = new VOUserDetails();
+        userDetails.setUserId("user");
+        userDetails.setEMail("first.last@test.com");
+
+        // when
+        List<UserInfo> result = UserMapper
+                .toUserInfos(Collections.singleton(userDetails));
+
+        // then
+        assertEquals(1, result.size());
+        assertEquals("user", result.get(0).getUserId());
+        assertEquals("first.last@test.com", result.get(0).getEmail());
+        assertEquals("en", result.get(0).getLocale());
+    }
+
+    @Test
+    public void testToUserDetailsParallel() {
+        // given
+        List<UserInfo> userInfos = new ArrayList<UserInfo>();
+        for (int i = 0; i < UserMapper.PARALLEL_THRESHOLD * 2; i++) {
+            UserInfo userInfo = new UserInfo();
+            userInfo.setUserId("user" + i);
+            userInfos.add(userInfo);
+        }
+
+        // when
+        List<VOUserDetails> result = UserMapper.toUserDetails(userInfos, true);
+
+        // then
+        assertEquals(userInfos.size(), result.size());
+        for (int i = 0; i < userInfos.size(); i++) {
+            assertEquals("user" + i, result.get(i).getUserId());
+        }
+    }
+
+    @Test
+    public void testMapSetWithUnsupportedType() {
+        // given
+        Set<Object> models = new HashSet<Object>();
+        models.add("user");
+
+        // when
+        List<?> result = UserMapper.fromSet(models);
+
+        // then
+        assertEquals(0, result.size());
+    }
 }